@@ -0,0 +1,34 @@
+package com.sk89q.squirrelid.cache;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.sk89q.squirrelid.Profile;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents a profile cache whose lookups can report failures, rather than answering as if the
+ * profiles didn't exist. {@link TieredProfileCache} only remembers missing profiles of delegates
+ * that implement this interface when their lookup succeeds.
+ *
+ * @since 0.9.3
+ */
+public interface CheckedProfileCache {
+
+  /**
+   * Returns the profiles of the given ids that are present, like
+   * {@link AbstractProfileCache#getAllPresent(Iterable)}, but throws if the lookup fails.
+   *
+   * @param uuids ids of the profiles
+   *
+   * @return map of present profiles
+   *
+   * @throws SQLException thrown if the lookup fails
+   */
+  @Nonnull
+  ImmutableMap<UUID, Profile> getAllPresentOrThrow(@Nonnull Iterable<UUID> uuids)
+      throws SQLException;
+}
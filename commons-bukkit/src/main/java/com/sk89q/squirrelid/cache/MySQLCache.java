@@ -1,9 +1,11 @@
 package com.sk89q.squirrelid.cache;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
-import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.sk89q.squirrelid.Profile;
 import com.supaham.commons.CMain;
@@ -14,43 +16,115 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 
 import javax.annotation.Nonnull;
 
 /**
  * Represents a MySQL implementation of {@link AbstractProfileCache}.
+ * <p />
+ * Lookups use prepared statements with IN-lists of 1, 8, 32 or 128 placeholders, so the driver
+ * and server can reuse them. Lookups of more than 128 ids are split into chunks
+ * that are queried concurrently, each on its own pooled connection.
+ * <p />
+ * Writes are executed immediately unless {@link #enableWriteBehind(long, TimeUnit, int)} is
+ * called, in which case they are coalesced per {@link UUID} and flushed in the background. Call
+ * {@link #shutdown()} to flush the remaining writes when done.
  *
  * @author SupaHam
  * @since 0.1
  */
-public class MySQLCache extends AbstractProfileCache {
+public class MySQLCache extends AbstractProfileCache implements CheckedProfileCache {
 
   public static final String TABLE_NAME = "uuid_cache";
-  
+  // Amounts of IN-list placeholders of lookup statements. A lookup uses the smallest bucket that
+  // fits, padding the remaining placeholders by repeating its last id.
+  private static final int[] BUCKETS = {1, 8, 32, 128};
+  private static final int CHUNK_SIZE = BUCKETS[BUCKETS.length - 1];
+
+  // Shared by instances constructed without an executor. Threads die off when idle.
+  private static final Executor DEFAULT_EXECUTOR;
+
+  static {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        4, 4, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("MySQLCache-%d").build());
+    executor.allowCoreThreadTimeOut(true);
+    DEFAULT_EXECUTOR = executor;
+  }
+
   private final JDBCAgent agent;
   private final String tableName;
   private final String queryString;
+  private final String[] selectQueries = new String[BUCKETS.length];
+  private final Executor executor;
+  private volatile WriteBehind writeBehind;
+  private final AtomicLong flushedWrites = new AtomicLong();
+  private final AtomicLong failedFlushes = new AtomicLong();
 
   public MySQLCache(@Nonnull JDBCAgent jdbcAgent) throws SQLException {
     this(jdbcAgent, TABLE_NAME);
   }
   
   public MySQLCache(@Nonnull JDBCAgent jdbcAgent, @Nonnull String tableName) throws SQLException {
+    this(jdbcAgent, tableName, DEFAULT_EXECUTOR);
+  }
+
+  /**
+   * Constructs a new {@link MySQLCache}.
+   *
+   * @param jdbcAgent agent to get connections from
+   * @param tableName name of the table to store profiles in
+   * @param executor executor to run concurrent chunks of large lookups in
+   *
+   * @throws SQLException thrown if the table could not be created
+   * @since 0.9.3
+   */
+  public MySQLCache(@Nonnull JDBCAgent jdbcAgent, @Nonnull String tableName,
+                    @Nonnull Executor executor) throws SQLException {
     checkNotNull(jdbcAgent);
 //    checkNotNullOrEmpty(tableName, "tableName");
     this.agent = jdbcAgent;
     this.tableName = tableName;
+    this.executor = checkNotNull(executor, "executor cannot be null.");
     this.queryString = "REPLACE INTO `" + tableName + "` (uuid, name) VALUES (?, ?)";
+    for (int i = 0; i < BUCKETS.length; i++) {
+      this.selectQueries[i] = "SELECT name, uuid FROM `" + tableName + "` WHERE uuid IN ("
+                              + String.join(",", Collections.nCopies(BUCKETS[i], "?")) + ")";
+    }
     createTable();
   }
 
   @Override
   public void putAll(Iterable<Profile> iterable) {
+    WriteBehind writeBehind = this.writeBehind;
+    if (writeBehind != null && writeBehind.add(iterable)) {
+      return;
+    }
     try {
       executePut(iterable);
     } catch (SQLException e) {
@@ -60,13 +134,144 @@ public class MySQLCache extends AbstractProfileCache {
 
   @Override
   public ImmutableMap<UUID, Profile> getAllPresent(Iterable<UUID> iterable) {
+    Map<UUID, Profile> pending = new HashMap<>();
     try {
-      return executeGet(iterable);
+      return getAllPresent(iterable, pending);
     } catch (SQLException e) {
       CMain.getLogger().log(Level.WARNING, "Failed to execute queries", e);
     }
 
-    return ImmutableMap.of();
+    return ImmutableMap.copyOf(pending);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 0.9.3
+   */
+  @Nonnull
+  @Override
+  public ImmutableMap<UUID, Profile> getAllPresentOrThrow(@Nonnull Iterable<UUID> uuids)
+      throws SQLException {
+    checkNotNull(uuids, "uuids cannot be null.");
+    return getAllPresent(uuids, new HashMap<>());
+  }
+
+  /*
+   * Looks up the given ids, answering queued ids from the write-behind queue. The queued profiles
+   * are put in the given map before querying, so they are available even if the query fails.
+   */
+  private ImmutableMap<UUID, Profile> getAllPresent(Iterable<UUID> iterable,
+                                                   Map<UUID, Profile> pending)
+      throws SQLException {
+    WriteBehind writeBehind = this.writeBehind;
+    List<UUID> query = new ArrayList<>();
+    for (UUID uuid : iterable) {
+      Profile profile = writeBehind == null || uuid == null ? null : writeBehind.get(uuid);
+      if (profile != null) {
+        pending.put(uuid, profile); // Not written yet, the database may be out of date.
+      } else {
+        query.add(uuid);
+      }
+    }
+    ImmutableMap<UUID, Profile> result = executeGet(query);
+    if (pending.isEmpty()) {
+      return result;
+    }
+    Map<UUID, Profile> map = new HashMap<>(result);
+    map.putAll(pending);
+    return ImmutableMap.copyOf(map);
+  }
+
+  /**
+   * Enables write-behind mode. Subsequent puts are queued, keeping only the latest profile of
+   * each {@link UUID}, and written in a single batch every {@code flushInterval}, or as soon as
+   * {@code flushThreshold} profiles are queued.
+   *
+   * @param flushInterval interval between flushes
+   * @param unit unit of {@code flushInterval}
+   * @param flushThreshold amount of queued profiles that triggers an early flush
+   *
+   * @throws IllegalStateException thrown if write-behind mode is already enabled
+   * @since 0.9.3
+   */
+  public synchronized void enableWriteBehind(long flushInterval, @Nonnull TimeUnit unit,
+                                             int flushThreshold) {
+    checkArgument(flushInterval > 0, "flushInterval must be positive.");
+    checkNotNull(unit, "unit cannot be null.");
+    checkArgument(flushThreshold > 0, "flushThreshold must be positive.");
+    checkState(this.writeBehind == null, "write-behind is already enabled.");
+    this.writeBehind = new WriteBehind(flushInterval, unit, flushThreshold);
+  }
+
+  /**
+   * Writes every queued profile now, in the current thread. Does nothing if write-behind mode is
+   * disabled.
+   *
+   * @since 0.9.3
+   */
+  public void flush() {
+    WriteBehind writeBehind = this.writeBehind;
+    if (writeBehind != null) {
+      writeBehind.flush();
+    }
+  }
+
+  /**
+   * Disables write-behind mode, stopping the background flusher and writing every queued
+   * profile. Subsequent puts are executed immediately.
+   *
+   * @since 0.9.3
+   */
+  public synchronized void shutdown() {
+    WriteBehind writeBehind = this.writeBehind;
+    if (writeBehind == null) {
+      return;
+    }
+    writeBehind.scheduler.shutdown();
+    try {
+      writeBehind.scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    writeBehind.close();
+    // Readers use the queue until it has been written, so only detach it now.
+    this.writeBehind = null;
+  }
+
+  /**
+   * Returns the amount of profiles queued to be written.
+   *
+   * @return queue depth, 0 if write-behind mode is disabled
+   *
+   * @since 0.9.3
+   */
+  public int getPendingWrites() {
+    WriteBehind writeBehind = this.writeBehind;
+    return writeBehind == null ? 0 : writeBehind.pending.size();
+  }
+
+  /**
+   * Returns the amount of profiles written by write-behind flushes.
+   *
+   * @return amount of written profiles
+   *
+   * @since 0.9.3
+   */
+  public long getFlushedWrites() {
+    return this.flushedWrites.get();
+  }
+
+  /**
+   * Returns the amount of write-behind flushes that failed. The profiles of failed flushes are
+   * queued again, unless newer profiles were queued in the meantime.
+   *
+   * @return amount of failed flushes
+   *
+   * @since 0.9.3
+   */
+  public long getFailedFlushes() {
+    return this.failedFlushes.get();
   }
 
   /**
@@ -86,50 +291,200 @@ public class MySQLCache extends AbstractProfileCache {
     }
   }
 
-  protected synchronized void executePut(Iterable<Profile> profiles) throws SQLException {
-    PreparedStatement stmt = preparedStatement();
-    for (Profile profile : profiles) {
-      stmt.setString(1, profile.getUniqueId().toString());
-      stmt.setString(2, profile.getName());
-      stmt.addBatch();
+  protected void executePut(Iterable<Profile> profiles) throws SQLException {
+    try (Connection conn = getConnection();
+         PreparedStatement stmt = conn.prepareStatement(queryString)) {
+      for (Profile profile : profiles) {
+        stmt.setString(1, profile.getUniqueId().toString());
+        stmt.setString(2, profile.getName());
+        stmt.addBatch();
+      }
+      stmt.executeBatch();
     }
-    stmt.executeBatch();
   }
 
   protected ImmutableMap<UUID, Profile> executeGet(Iterable<UUID> uuids) throws SQLException {
-    Iterator<UUID> it = uuids.iterator();
+    Set<String> ids = new LinkedHashSet<>();
+    for (UUID uuid : uuids) {
+      if (uuid != null) {
+        ids.add(uuid.toString());
+      }
+    }
     // It was an empty collection
-    if (!it.hasNext()) {
+    if (ids.isEmpty()) {
       return ImmutableMap.of();
     }
 
-    StringBuilder builder = new StringBuilder();
-    // SELECT ... WHERE ... IN ('abc', 'def', 'ghi');
-    builder.append("SELECT name, uuid FROM `").append(this.tableName).append("` WHERE uuid IN ('");
-    Joiner.on("', '").skipNulls().appendTo(builder, uuids);
-    builder.append("');");
+    List<String> list = new ArrayList<>(ids);
+    Map<UUID, Profile> map = new HashMap<>();
+    if (list.size() <= CHUNK_SIZE) {
+      executeGet(list, map);
+      return ImmutableMap.copyOf(map);
+    }
 
-    synchronized (this) {
-      try (Connection conn = getConnection();
-           Statement stmt = conn.createStatement()) {
-        ResultSet rs = stmt.executeQuery(builder.toString());
-        Map<UUID, Profile> map = new HashMap<>();
+    // Query the first chunk in this thread, and the rest concurrently.
+    List<CompletableFuture<Map<UUID, Profile>>> futures = new ArrayList<>();
+    for (int from = CHUNK_SIZE; from < list.size(); from += CHUNK_SIZE) {
+      List<String> chunk = list.subList(from, Math.min(from + CHUNK_SIZE, list.size()));
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        Map<UUID, Profile> result = new HashMap<>();
+        try {
+          executeGet(chunk, result);
+        } catch (SQLException e) {
+          throw new CompletionException(e);
+        }
+        return result;
+      }, this.executor));
+    }
+    executeGet(list.subList(0, CHUNK_SIZE), map);
+    for (CompletableFuture<Map<UUID, Profile>> future : futures) {
+      try {
+        map.putAll(future.join());
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof SQLException) {
+          throw (SQLException) e.getCause();
+        }
+        throw e;
+      }
+    }
+    return ImmutableMap.copyOf(map);
+  }
 
+  /*
+   * Looks up at most CHUNK_SIZE ids using the smallest fitting bucket statement.
+   */
+  private void executeGet(List<String> ids, Map<UUID, Profile> result) throws SQLException {
+    int bucket = 0;
+    while (BUCKETS[bucket] < ids.size()) {
+      bucket++;
+    }
+    try (Connection conn = getConnection();
+         PreparedStatement stmt = conn.prepareStatement(this.selectQueries[bucket])) {
+      String last = ids.get(ids.size() - 1);
+      for (int i = 0; i < BUCKETS[bucket]; i++) {
+        stmt.setString(i + 1, i < ids.size() ? ids.get(i) : last);
+      }
+      try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
           UUID uuid = UUID.fromString(rs.getString("uuid"));
-          map.put(uuid, new Profile(uuid, rs.getString("name")));
+          result.put(uuid, new Profile(uuid, rs.getString("name")));
         }
-
-        return ImmutableMap.copyOf(map);
       }
     }
   }
 
-  private PreparedStatement preparedStatement() throws SQLException {
-    return getConnection().prepareStatement(queryString);
-  }
-
   private Connection getConnection() throws SQLException {
     return this.agent.getDataSource().getConnection();
   }
+
+  /*
+   * Queued profiles of write-behind mode and their flusher.
+   */
+  private final class WriteBehind {
+
+    private final ConcurrentMap<UUID, Profile> pending = new ConcurrentHashMap<>();
+    // Profiles of the batch being written, visible to readers until the batch is written.
+    private final ConcurrentMap<UUID, Profile> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("MySQLCache-flusher-%d").build());
+    // Flushes are serialized, so that an older batch can never be written after a newer one.
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Adds share the read lock, closing takes the write lock so no add can follow the last flush.
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final int flushThreshold;
+    private boolean closed;
+
+    public WriteBehind(long flushInterval, TimeUnit unit, int flushThreshold) {
+      this.flushThreshold = flushThreshold;
+      this.scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, unit);
+    }
+
+    public Profile get(UUID uuid) {
+      Profile profile = this.pending.get(uuid);
+      return profile != null ? profile : this.inFlight.get(uuid);
+    }
+
+    /*
+     * Queues the given profiles, returning false if closed, in which case they must be written
+     * by the caller.
+     */
+    public boolean add(Iterable<Profile> profiles) {
+      this.closeLock.readLock().lock();
+      try {
+        if (this.closed) {
+          return false;
+        }
+        for (Profile profile : profiles) {
+          this.pending.put(profile.getUniqueId(), profile);
+        }
+        if (this.pending.size() >= this.flushThreshold
+            && this.flushRequested.compareAndSet(false, true)) {
+          try {
+            this.scheduler.execute(this::flush);
+          } catch (RejectedExecutionException e) {
+            // The scheduler is shutting down, and close() will flush what we queued.
+            this.flushRequested.set(false);
+          }
+        }
+        return true;
+      } finally {
+        this.closeLock.readLock().unlock();
+      }
+    }
+
+    /*
+     * Stops accepting profiles and writes every queued profile. Puts wait for the final flush,
+     * so they can't be overwritten by an older queued profile.
+     */
+    public void close() {
+      this.closeLock.writeLock().lock();
+      try {
+        this.closed = true;
+        flush();
+        if (!this.pending.isEmpty()) {
+          CMain.getLogger().warning("Discarding " + this.pending.size() + " unwritten profiles");
+        }
+      } finally {
+        this.closeLock.writeLock().unlock();
+      }
+    }
+
+    public void flush() {
+      this.flushLock.lock();
+      try {
+        this.flushRequested.set(false);
+        List<Profile> batch = new ArrayList<>(this.pending.size());
+        for (Map.Entry<UUID, Profile> entry : this.pending.entrySet()) {
+          // Publish before removing, so readers always find the profile in one of the maps.
+          this.inFlight.put(entry.getKey(), entry.getValue());
+          // Only remove the profile we write, a newer one may be put concurrently.
+          if (this.pending.remove(entry.getKey(), entry.getValue())) {
+            batch.add(entry.getValue());
+          } else {
+            this.inFlight.remove(entry.getKey(), entry.getValue());
+          }
+        }
+        if (batch.isEmpty()) {
+          return;
+        }
+        try {
+          executePut(batch);
+          flushedWrites.addAndGet(batch.size());
+        } catch (SQLException | RuntimeException e) { // Keep the scheduled flusher alive.
+          failedFlushes.incrementAndGet();
+          for (Profile profile : batch) {
+            this.pending.putIfAbsent(profile.getUniqueId(), profile);
+          }
+          CMain.getLogger().log(Level.WARNING, "Failed to flush " + batch.size() + " profiles", e);
+        } finally {
+          for (Profile profile : batch) {
+            this.inFlight.remove(profile.getUniqueId(), profile);
+          }
+        }
+      } finally {
+        this.flushLock.unlock();
+      }
+    }
+  }
 }
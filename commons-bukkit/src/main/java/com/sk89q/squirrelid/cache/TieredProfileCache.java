@@ -0,0 +1,294 @@
+package com.sk89q.squirrelid.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+
+import com.sk89q.squirrelid.Profile;
+import com.supaham.commons.CMain;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents an in-memory, size-bounded {@link AbstractProfileCache} in front of another, slower
+ * cache, such as a {@link MySQLCache}.
+ * <p />
+ * Found profiles are kept until evicted by size, least recently used first. Profiles that
+ * weren't found are remembered for a short time, so repeated lookups of unknown ids don't reach
+ * the delegate either. Concurrent lookups of the same missing id are de-duplicated: one thread
+ * queries the delegate while the others wait for its result.
+ * <p />
+ * Delegates that implement {@link CheckedProfileCache}, such as {@link MySQLCache}, report failed
+ * lookups. Profiles of a failed lookup are not remembered as missing, so a database outage doesn't
+ * hide them for the rest of the negative TTL.
+ * <p />
+ * Puts are written through to the delegate.
+ *
+ * @since 0.9.3
+ */
+public class TieredProfileCache extends AbstractProfileCache {
+
+  public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+  public static final long DEFAULT_NEGATIVE_TTL_SECONDS = 30;
+
+  private final AbstractProfileCache delegate;
+  private final Cache<UUID, Profile> profiles;
+  private final Cache<UUID, Boolean> absent;
+  // Lookups of the delegate in progress, completed with null if the profile wasn't found.
+  private final ConcurrentMap<UUID, CompletableFuture<Profile>> loading = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder negativeHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+
+  /**
+   * Constructs a new {@link TieredProfileCache} of at most {@link #DEFAULT_MAXIMUM_SIZE} profiles,
+   * remembering missing profiles for {@link #DEFAULT_NEGATIVE_TTL_SECONDS} seconds.
+   *
+   * @param delegate cache to load profiles from and write profiles to
+   */
+  public TieredProfileCache(@Nonnull AbstractProfileCache delegate) {
+    this(delegate, DEFAULT_MAXIMUM_SIZE, DEFAULT_NEGATIVE_TTL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Constructs a new {@link TieredProfileCache}.
+   *
+   * @param delegate cache to load profiles from and write profiles to
+   * @param maximumSize maximum amount of profiles to keep in memory
+   * @param negativeTtl duration to remember missing profiles for, 0 to not remember them
+   * @param unit unit of {@code negativeTtl}
+   */
+  public TieredProfileCache(@Nonnull AbstractProfileCache delegate, long maximumSize,
+                            long negativeTtl, @Nonnull TimeUnit unit) {
+    this(delegate, maximumSize, negativeTtl, unit, Ticker.systemTicker());
+  }
+
+  TieredProfileCache(AbstractProfileCache delegate, long maximumSize, long negativeTtl,
+                     TimeUnit unit, Ticker ticker) {
+    checkNotNull(delegate, "delegate cannot be null.");
+    checkArgument(maximumSize > 0, "maximumSize must be positive.");
+    checkArgument(negativeTtl >= 0, "negativeTtl cannot be negative.");
+    checkNotNull(unit, "unit cannot be null.");
+    this.delegate = delegate;
+    // Plain LRU, approximated per segment of the cache. Lookups are dominated by recently seen
+    // players, and bulk lookups already go through the delegate, so no scan-resistant policy
+    // (segmented LRU, TinyLFU) is needed on top.
+    this.profiles = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    this.absent = CacheBuilder.newBuilder().maximumSize(maximumSize)
+        .expireAfterWrite(negativeTtl, unit).ticker(ticker).build();
+  }
+
+  @Override
+  public void putAll(Iterable<Profile> iterable) {
+    this.delegate.putAll(iterable);
+    for (Profile profile : iterable) {
+      this.profiles.put(profile.getUniqueId(), profile);
+      this.absent.invalidate(profile.getUniqueId());
+    }
+  }
+
+  @Override
+  public ImmutableMap<UUID, Profile> getAllPresent(Iterable<UUID> iterable) {
+    Map<UUID, Profile> result = new HashMap<>();
+    List<UUID> toLoad = new ArrayList<>();
+    Map<UUID, CompletableFuture<Profile>> owned = new HashMap<>();
+    Map<UUID, CompletableFuture<Profile>> waiting = new HashMap<>();
+    for (UUID uuid : iterable) {
+      if (uuid == null || result.containsKey(uuid) || owned.containsKey(uuid)
+          || waiting.containsKey(uuid)) {
+        continue;
+      }
+      Profile profile = this.profiles.getIfPresent(uuid);
+      if (profile != null) {
+        this.hits.increment();
+        result.put(uuid, profile);
+        continue;
+      }
+      if (this.absent.getIfPresent(uuid) != null) {
+        this.negativeHits.increment();
+        continue;
+      }
+      this.misses.increment();
+      CompletableFuture<Profile> future = new CompletableFuture<>();
+      CompletableFuture<Profile> existing = this.loading.putIfAbsent(uuid, future);
+      if (existing == null) {
+        toLoad.add(uuid);
+        owned.put(uuid, future);
+      } else {
+        waiting.put(uuid, existing);
+      }
+    }
+
+    if (!toLoad.isEmpty()) {
+      load(toLoad, owned, result);
+    }
+    for (Entry<UUID, CompletableFuture<Profile>> entry : waiting.entrySet()) {
+      Profile profile = entry.getValue().join();
+      if (profile != null) {
+        result.put(entry.getKey(), profile);
+      }
+    }
+    return ImmutableMap.copyOf(result);
+  }
+
+  private void load(List<UUID> uuids, Map<UUID, CompletableFuture<Profile>> futures,
+                    Map<UUID, Profile> result) {
+    ImmutableMap<UUID, Profile> loaded;
+    boolean answered = true;
+    long start = System.nanoTime();
+    try {
+      if (this.delegate instanceof CheckedProfileCache) {
+        loaded = ((CheckedProfileCache) this.delegate).getAllPresentOrThrow(uuids);
+      } else {
+        loaded = this.delegate.getAllPresent(uuids);
+      }
+    } catch (SQLException e) {
+      CMain.getLogger().log(Level.WARNING, "Failed to load " + uuids.size() + " profiles", e);
+      loaded = ImmutableMap.of();
+      answered = false;
+    } catch (RuntimeException e) {
+      // Release the waiting threads, without remembering anything.
+      for (UUID uuid : uuids) {
+        this.loading.remove(uuid, futures.get(uuid));
+        futures.get(uuid).completeExceptionally(e);
+      }
+      throw e;
+    } finally {
+      this.loads.increment();
+      this.totalLoadTime.add(System.nanoTime() - start);
+    }
+
+    for (UUID uuid : uuids) {
+      Profile profile = loaded.get(uuid);
+      if (profile != null) {
+        // A concurrent put is newer than what we loaded, keep it.
+        Profile existing = this.profiles.asMap().putIfAbsent(uuid, profile);
+        profile = existing != null ? existing : profile;
+      } else {
+        profile = this.profiles.getIfPresent(uuid);
+        // Only remember the profile as missing if the delegate actually answered.
+        if (profile == null && answered) {
+          this.absent.put(uuid, Boolean.TRUE);
+        }
+      }
+      if (profile != null) {
+        result.put(uuid, profile);
+      }
+      CompletableFuture<Profile> future = futures.get(uuid);
+      this.loading.remove(uuid, future);
+      future.complete(profile);
+    }
+  }
+
+  /**
+   * Discards the in-memory profile of the given id, if any, and forgets that it was missing.
+   *
+   * @param uuid id of the profile
+   */
+  public void invalidate(@Nonnull UUID uuid) {
+    checkNotNull(uuid, "uuid cannot be null.");
+    this.profiles.invalidate(uuid);
+    this.absent.invalidate(uuid);
+  }
+
+  /**
+   * Discards every in-memory profile, and forgets every missing profile.
+   */
+  public void invalidateAll() {
+    this.profiles.invalidateAll();
+    this.absent.invalidateAll();
+  }
+
+  @Nonnull
+  public AbstractProfileCache getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Returns the amount of profiles kept in memory.
+   *
+   * @return amount of profiles
+   */
+  public long size() {
+    return this.profiles.size();
+  }
+
+  /**
+   * Returns the amount of lookups answered by an in-memory profile.
+   *
+   * @return amount of hits
+   */
+  public long getHitCount() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the amount of lookups answered by a remembered missing profile.
+   *
+   * @return amount of negative hits
+   */
+  public long getNegativeHitCount() {
+    return this.negativeHits.sum();
+  }
+
+  /**
+   * Returns the amount of lookups that had to be answered by the delegate, including lookups
+   * that waited for another thread's query.
+   *
+   * @return amount of misses
+   */
+  public long getMissCount() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the ratio of lookups answered from memory, positive or negative, to all lookups.
+   *
+   * @return hit rate, 1 if there have been no lookups
+   */
+  public double getHitRate() {
+    long hits = getHitCount() + getNegativeHitCount();
+    long total = hits + getMissCount();
+    return total == 0 ? 1 : (double) hits / total;
+  }
+
+  /**
+   * Returns the amount of queries made to the delegate. Each query may look up many profiles.
+   *
+   * @return amount of loads
+   */
+  public long getLoadCount() {
+    return this.loads.sum();
+  }
+
+  /**
+   * Returns the average time spent querying the delegate, in nanoseconds.
+   *
+   * @return average load time, 0 if there have been no loads
+   */
+  public double getAverageLoadPenalty() {
+    long loads = getLoadCount();
+    return loads == 0 ? 0 : (double) this.totalLoadTime.sum() / loads;
+  }
+}
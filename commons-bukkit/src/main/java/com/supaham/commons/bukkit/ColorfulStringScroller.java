@@ -10,14 +10,16 @@ import java.util.Set;
 import javax.annotation.Nonnull;
 
 /**
- * Represents an extension of {@link StringScroller} that supports minecraft colors.
+ * Represents an extension of {@link StringScroller} that supports minecraft colors. Unless
+ * subclassed, the color state is only tracked while computing the shared
+ * {@link com.supaham.commons.ScrollerFrames}.
  *
  * @see StringScroller
  * @since 0.1
  */
 public class ColorfulStringScroller extends StringScroller {
 
-  private final Set<ChatColor> lastColors = new HashSet<>(6);
+  private Set<ChatColor> lastColors = new HashSet<>(6);
 
   public ColorfulStringScroller(@Nonnull String string, int displayLength) {
     super(string, displayLength);
@@ -28,6 +30,22 @@ public class ColorfulStringScroller extends StringScroller {
     super(string, displayLength, instantlyRepeat);
   }
 
+  @Override
+  public ColorfulStringScroller clone() {
+    ColorfulStringScroller clone = (ColorfulStringScroller) super.clone();
+    clone.lastColors = new HashSet<>(6); // don't share color state with the original.
+    return clone;
+  }
+
+  /**
+   * {@inheritDoc} The color state only depends on the string, so this is true for
+   * {@link ColorfulStringScroller} itself.
+   */
+  @Override
+  protected boolean isShareable() {
+    return getClass() == ColorfulStringScroller.class;
+  }
+
   @Override
   protected void afterResetRun() {
     if (this.position > 0
@@ -24,7 +24,7 @@ import org.bukkit.ChatColor;
 import org.bukkit.DyeColor;
 
 import java.awt.Color;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class FuzzyColorMatchers {
@@ -46,35 +46,27 @@ public class FuzzyColorMatchers {
       .put(new Color(255, 85, 255), ChatColor.LIGHT_PURPLE)
       .put(new Color(255, 255, 85), ChatColor.YELLOW)
       .put(new Color(255, 255, 255), ChatColor.WHITE).build();
+  private static final ChatColor[] CHAT_COLORS = CHAT_COLORS_MAP.values().toArray(new ChatColor[0]);
   private static final FuzzyColorMatcher CHAT_COLOR_FUZZY_MATCHER = new FuzzyColorMatcher(
       CHAT_COLORS_MAP.keySet().toArray(new Color[0]));
   private static final FuzzyColorMatcher DYE_COLOR_FUZZY_MATCHER;
-  private static final Map<Color, DyeColor> DYE_COLORS_MAP;
+  private static final DyeColor[] DYE_COLORS;
 
   static {
-    Map<Color, DyeColor> builder = new HashMap<>();
+    Map<Color, DyeColor> builder = new LinkedHashMap<>();
     for (DyeColor dyeColor : DyeColor.values()) {
       builder.put(new Color(dyeColor.getColor().asRGB()), dyeColor);
     }
-    DYE_COLORS_MAP = ImmutableMap.copyOf(builder);
-    DYE_COLOR_FUZZY_MATCHER = new FuzzyColorMatcher(DYE_COLORS_MAP.keySet().toArray(new Color[0]));
-
+    DYE_COLORS = builder.values().toArray(new DyeColor[0]);
+    DYE_COLOR_FUZZY_MATCHER = new FuzzyColorMatcher(builder.keySet().toArray(new Color[0]));
   }
 
   public static ChatColor matchChatColor(org.bukkit.Color color) {
-    if (CHAT_COLORS_MAP.containsKey(color)) {
-      return CHAT_COLORS_MAP.get(color);
-    } else {
-      return CHAT_COLORS_MAP.get(CHAT_COLOR_FUZZY_MATCHER.findMatch(new Color(color.asRGB())));
-    }
+    return CHAT_COLORS[CHAT_COLOR_FUZZY_MATCHER.findMatchIndex(color.asRGB())];
   }
 
   public static DyeColor matchDyeColor(org.bukkit.Color color) {
-    if (DYE_COLORS_MAP.containsKey(color)) {
-      return DYE_COLORS_MAP.get(color);
-    } else {
-      return DYE_COLORS_MAP.get(DYE_COLOR_FUZZY_MATCHER.findMatch(new Color(color.asRGB())));
-    }
+    return DYE_COLORS[DYE_COLOR_FUZZY_MATCHER.findMatchIndex(color.asRGB())];
   }
 
   private FuzzyColorMatchers() {
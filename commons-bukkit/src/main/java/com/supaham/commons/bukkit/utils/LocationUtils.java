@@ -9,6 +9,7 @@ import static java.lang.Double.parseDouble;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 
+import com.supaham.commons.utils.RandomSource;
 import com.supaham.commons.utils.RandomUtils;
 
 import org.bukkit.Bukkit;
@@ -152,8 +153,8 @@ public class LocationUtils {
   /**
    * Returns a new random {@link Location} that is within two given Locations. This is equivalent
    * to
-   * calling #getRandomLocationWithin(Random, Location, Location, boolean) using {@link
-   * RandomUtils#getRandom()} and the boolean as false.
+   * calling #getRandomLocationWithin(RandomSource, Location, Location, boolean) using {@link
+   * RandomUtils#getSource()}.
    *
    * @param min minimum location of a cuboid region
    * @param max maximum location of a cuboid region
@@ -162,11 +163,11 @@ public class LocationUtils {
    *
    * @return a pseudorandom location
    *
-   * @see #getRandomLocationWithin(Random, Location, Location, boolean)
+   * @see #getRandomLocationWithin(RandomSource, Location, Location, boolean)
    */
   public static Location getRandomLocationWithin(@Nonnull Location min, @Nonnull Location max,
                                                  boolean highestBlock) {
-    return getRandomLocationWithin(RandomUtils.getRandom(), min, max, highestBlock);
+    return getRandomLocationWithin(RandomUtils.getSource(), min, max, highestBlock);
   }
 
   /**
@@ -202,14 +203,50 @@ public class LocationUtils {
   public static Location getRandomLocationWithin(@Nonnull Random random, @Nonnull Location min,
                                                  @Nonnull Location max, boolean highestBlock) {
     checkNotNull(random, "random cannot be null.");
+    return getRandomLocationWithin(RandomSource.of(random), min, max, highestBlock);
+  }
+
+  /**
+   * Returns a new random {@link Location} that is within two given Locations. This is equivalent
+   * to calling #getRandomLocationWithin(RandomSource, Location, Location, boolean) with the
+   * boolean as false.
+   *
+   * @param source random source to use
+   * @param min minimum location of a cuboid region
+   * @param max maximum location of a cuboid region
+   *
+   * @return a pseudorandom location
+   *
+   * @see #getRandomLocationWithin(RandomSource, Location, Location, boolean)
+   */
+  public static Location getRandomLocationWithin(@Nonnull RandomSource source,
+                                                 @Nonnull Location min, @Nonnull Location max) {
+    return getRandomLocationWithin(source, min, max, false);
+  }
+
+  /**
+   * Returns a new random {@link Location} that is within two given Locations.
+   *
+   * @param source random source to use
+   * @param min minimum location of a cuboid region
+   * @param max maximum location of a cuboid region
+   * @param highestBlock whether to immediately call {@link World#getHighestBlockAt(Location)} to
+   * attach the pseudorandom location to ground
+   *
+   * @return a pseudorandom location
+   */
+  public static Location getRandomLocationWithin(@Nonnull RandomSource source,
+                                                 @Nonnull Location min, @Nonnull Location max,
+                                                 boolean highestBlock) {
+    checkNotNull(source, "source cannot be null.");
     checkNotNull(min, "min cannot be null.");
     checkNotNull(max, "max cannot be null.");
 
     checkArgument(min.getWorld().equals(max.getWorld()), "min and max worlds don't match.");
     Location loc = new Location(min.getWorld(),
-                                RandomUtils.nextInt(min.getBlockX(), max.getBlockX()),
-                                RandomUtils.nextInt(min.getBlockY(), max.getBlockY()),
-                                RandomUtils.nextInt(min.getBlockZ(), max.getBlockZ()));
+                                RandomUtils.nextInt(source, min.getBlockX(), max.getBlockX()),
+                                RandomUtils.nextInt(source, min.getBlockY(), max.getBlockY()),
+                                RandomUtils.nextInt(source, min.getBlockZ(), max.getBlockZ()));
     return !highestBlock ? loc : loc.getWorld().getHighestBlockAt(loc).getLocation();
   }
 
@@ -22,6 +22,8 @@ import com.supaham.commons.bukkit.serializers.RelativeVectorSerializer;
 
 import org.bukkit.util.Vector;
 
+import java.util.Arrays;
+
 import javax.annotation.Nonnull;
 
 import pluginbase.config.annotation.SerializeWith;
@@ -143,6 +145,110 @@ public class RelativeVector extends ImmutableVector {
     return new ImmutableVector(x, y, z);
   }
 
+  /**
+   * Applies this relative vector to the given {@link Vector} in place, setting each component as {@link #with(Vector)}
+   * would, without allocating a new vector.
+   *
+   * @param vector vector to combine with this and store the result in
+   *
+   * @return {@code vector}
+   *
+   * @since 0.9.3
+   */
+  public Vector applyTo(@Nonnull Vector vector) {
+    Preconditions.checkNotNull(vector, "vector cannot be null.");
+    return vector.setX(applyX(vector.getX())).setY(applyY(vector.getY())).setZ(applyZ(vector.getZ()));
+  }
+
+  /**
+   * Applies this relative vector to the given coordinates, stored as a structure of arrays, storing the results in
+   * the same arrays. Equivalent to calling {@link #with(Vector)} for each index, without allocating vectors.
+   *
+   * @param x x components
+   * @param y y components
+   * @param z z components
+   *
+   * @since 0.9.3
+   */
+  public void applyTo(@Nonnull double[] x, @Nonnull double[] y, @Nonnull double[] z) {
+    applyTo(x, y, z, x, y, z);
+  }
+
+  /**
+   * Applies this relative vector to the given coordinates, stored as a structure of arrays, storing the results in
+   * the {@code out} arrays at the same indices. Equivalent to calling {@link #with(Vector)} for each index, without
+   * allocating vectors. Input and output arrays may be the same arrays.
+   *
+   * @param xIn x components
+   * @param yIn y components
+   * @param zIn z components
+   * @param xOut array to store resulting x components in
+   * @param yOut array to store resulting y components in
+   * @param zOut array to store resulting z components in
+   *
+   * @since 0.9.3
+   */
+  public void applyTo(@Nonnull double[] xIn, @Nonnull double[] yIn, @Nonnull double[] zIn,
+                      @Nonnull double[] xOut, @Nonnull double[] yOut, @Nonnull double[] zOut) {
+    int length = xIn.length;
+    Preconditions.checkArgument(yIn.length == length && zIn.length == length, "input lengths differ.");
+    Preconditions.checkArgument(xOut.length >= length && yOut.length >= length && zOut.length >= length,
+                                "output cannot be shorter than input.");
+    applyTo(xIn, xOut, length, getX(), isXRelative());
+    applyTo(yIn, yOut, length, getY(), isYRelative());
+    applyTo(zIn, zOut, length, getZ(), isZRelative());
+  }
+
+  // One component at a time, keeping the loops branch free.
+  private static void applyTo(double[] in, double[] out, int length, double value, boolean relative) {
+    if (!relative) {
+      Arrays.fill(out, 0, length, value);
+      return;
+    }
+    for (int i = 0; i < length; i++) {
+      out[i] = in[i] + value;
+    }
+  }
+
+  /**
+   * Applies the x component of this relative vector to the given x component.
+   *
+   * @param x x component to combine with this
+   *
+   * @return resulting x component
+   *
+   * @since 0.9.3
+   */
+  public double applyX(double x) {
+    return isXRelative() ? x + getX() : getX();
+  }
+
+  /**
+   * Applies the y component of this relative vector to the given y component.
+   *
+   * @param y y component to combine with this
+   *
+   * @return resulting y component
+   *
+   * @since 0.9.3
+   */
+  public double applyY(double y) {
+    return isYRelative() ? y + getY() : getY();
+  }
+
+  /**
+   * Applies the z component of this relative vector to the given z component.
+   *
+   * @param z z component to combine with this
+   *
+   * @return resulting z component
+   *
+   * @since 0.9.3
+   */
+  public double applyZ(double z) {
+    return isZRelative() ? z + getZ() : getZ();
+  }
+
   public boolean isRelative() {
     return isXRelative() || isYRelative() || isZRelative();
   }
@@ -6,6 +6,7 @@ import static com.supaham.commons.utils.StringUtils.checkNotNullOrEmpty;
 import static java.lang.Double.parseDouble;
 
 import com.google.common.base.Preconditions;
+import com.google.common.primitives.Doubles;
 
 import com.supaham.commons.utils.RandomUtils;
 import com.supaham.commons.utils.StringUtils;
@@ -198,7 +199,44 @@ public class VectorUtils {
     double z = parseDouble(StringUtils.defaultIfEmpty(split[2].substring(zRel ? 1 : 0), "0"));
     return new RelativeVector(x, y, z, xRel, yRel, zRel);
   }
-  
+
+  /**
+   * Deserializes a {@link String} to represent a {@link RelativeVector}, like {@link #deserializeRelative(String)},
+   * without throwing exceptions on invalid input.
+   *
+   * @param string string representing to deserialize
+   *
+   * @return the deserialized {@link RelativeVector}, or null if {@code string} is in an invalid format
+   *
+   * @see #deserializeRelative(String)
+   * @since 0.9.3
+   */
+  @Nullable
+  public static RelativeVector tryDeserializeRelative(@Nullable String string) {
+    if (string == null || string.isEmpty()) {
+      return null;
+    }
+    String[] split = DESERIALIZE.split(string, 4);
+    if (split.length != 3) {
+      return null;
+    }
+
+    boolean xRel = split[0].startsWith("~");
+    boolean yRel = split[1].startsWith("~");
+    boolean zRel = split[2].startsWith("~");
+    Double x = tryParseComponent(split[0], xRel);
+    Double y = tryParseComponent(split[1], yRel);
+    Double z = tryParseComponent(split[2], zRel);
+    if (x == null || y == null || z == null) {
+      return null;
+    }
+    return new RelativeVector(x, y, z, xRel, yRel, zRel);
+  }
+
+  private static Double tryParseComponent(String component, boolean relative) {
+    // Trimmed, as parseDouble does in deserializeRelative.
+    return Doubles.tryParse(StringUtils.defaultIfEmpty(component.substring(relative ? 1 : 0), "0").trim());
+  }
 
   /**
    * Serializes a {@link RelativeVector} in the form of '~x,~y,~z'. The x, y, and z
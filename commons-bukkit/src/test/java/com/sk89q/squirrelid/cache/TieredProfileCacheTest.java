@@ -0,0 +1,228 @@
+package com.sk89q.squirrelid.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import com.sk89q.squirrelid.Profile;
+import com.supaham.commons.CMain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+public class TieredProfileCacheTest {
+
+  private static final UUID ID = UUID.randomUUID();
+  private static final List<UUID> IDS = Collections.singletonList(ID);
+
+  private FakeTicker ticker;
+  private FakeCache delegate;
+  private TieredProfileCache cache;
+
+  @Before
+  public void setUp() {
+    if (CMain.get() == null) {
+      CMain.main(Logger.getLogger("test"));
+    }
+    this.ticker = new FakeTicker();
+    this.delegate = new FakeCache();
+    this.cache = new TieredProfileCache(this.delegate, 100, 30, TimeUnit.SECONDS, this.ticker);
+  }
+
+  @Test
+  public void testHits() {
+    Profile profile = new Profile(ID, "Notch");
+    this.delegate.profiles.put(ID, profile);
+
+    assertSame(profile, this.cache.getAllPresent(IDS).get(ID));
+    assertSame(profile, this.cache.getAllPresent(IDS).get(ID));
+    assertEquals(1, this.delegate.lookups.get());
+    assertEquals(1, this.cache.getMissCount());
+    assertEquals(1, this.cache.getHitCount());
+    assertEquals(0.5, this.cache.getHitRate(), 0);
+  }
+
+  @Test
+  public void testNegativeHitExpires() {
+    assertTrue(this.cache.getAllPresent(IDS).isEmpty());
+    assertTrue(this.cache.getAllPresent(IDS).isEmpty());
+    assertEquals(1, this.delegate.lookups.get());
+    assertEquals(1, this.cache.getNegativeHitCount());
+
+    this.ticker.advance(31, TimeUnit.SECONDS);
+    assertTrue(this.cache.getAllPresent(IDS).isEmpty());
+    assertEquals(2, this.delegate.lookups.get());
+
+    // Putting the profile forgets that it was missing.
+    Profile profile = new Profile(ID, "Notch");
+    this.cache.putAll(ImmutableList.of(profile));
+    assertSame(profile, this.cache.getAllPresent(IDS).get(ID));
+    assertSame(profile, this.delegate.profiles.get(ID));
+    assertEquals(2, this.delegate.lookups.get());
+  }
+
+  @Test
+  public void testSingleFlight() throws Exception {
+    Profile profile = new Profile(ID, "Notch");
+    this.delegate.profiles.put(ID, profile);
+    this.delegate.block();
+
+    CompletableFuture<ImmutableMap<UUID, Profile>> first =
+        CompletableFuture.supplyAsync(() -> this.cache.getAllPresent(IDS));
+    this.delegate.awaitEntered();
+    CompletableFuture<ImmutableMap<UUID, Profile>> second =
+        CompletableFuture.supplyAsync(() -> this.cache.getAllPresent(IDS));
+    awaitMisses(2);
+    this.delegate.release();
+
+    assertSame(profile, first.get(10, TimeUnit.SECONDS).get(ID));
+    assertSame(profile, second.get(10, TimeUnit.SECONDS).get(ID));
+    assertEquals(1, this.delegate.lookups.get());
+    assertEquals(1, this.cache.getLoadCount());
+  }
+
+  @Test
+  public void testPutRacingLoad() throws Exception {
+    this.delegate.profiles.put(ID, new Profile(ID, "Old"));
+    this.delegate.block();
+
+    CompletableFuture<ImmutableMap<UUID, Profile>> lookup =
+        CompletableFuture.supplyAsync(() -> this.cache.getAllPresent(IDS));
+    this.delegate.awaitEntered(); // The delegate already read the old profile.
+    Profile profile = new Profile(ID, "New");
+    this.cache.putAll(ImmutableList.of(profile));
+    this.delegate.release();
+
+    assertSame(profile, lookup.get(10, TimeUnit.SECONDS).get(ID));
+    assertSame(profile, this.cache.getAllPresent(IDS).get(ID));
+    assertEquals(1, this.delegate.lookups.get());
+  }
+
+  @Test
+  public void testPutRacingMissingLoad() throws Exception {
+    this.delegate.block();
+
+    CompletableFuture<ImmutableMap<UUID, Profile>> lookup =
+        CompletableFuture.supplyAsync(() -> this.cache.getAllPresent(IDS));
+    this.delegate.awaitEntered();
+    Profile profile = new Profile(ID, "New");
+    this.cache.putAll(ImmutableList.of(profile));
+    this.delegate.release();
+
+    assertSame(profile, lookup.get(10, TimeUnit.SECONDS).get(ID));
+    assertSame(profile, this.cache.getAllPresent(IDS).get(ID));
+    assertEquals(0, this.cache.getNegativeHitCount());
+  }
+
+  @Test
+  public void testFailedLookupIsNotRemembered() {
+    Profile profile = new Profile(ID, "Notch");
+    this.delegate.profiles.put(ID, profile);
+    this.delegate.failing = true;
+    assertTrue(this.cache.getAllPresent(IDS).isEmpty());
+
+    this.delegate.failing = false;
+    assertSame(profile, this.cache.getAllPresent(IDS).get(ID));
+    assertEquals(2, this.delegate.lookups.get());
+    assertEquals(0, this.cache.getNegativeHitCount());
+  }
+
+  private void awaitMisses(long misses) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (this.cache.getMissCount() < misses) {
+      assertTrue("Timed out waiting for misses.", System.nanoTime() < deadline);
+      Thread.sleep(1);
+    }
+  }
+
+  private static final class FakeTicker extends Ticker {
+
+    private long nanos = 1000;
+
+    @Override public long read() {
+      return nanos;
+    }
+
+    void advance(long duration, TimeUnit unit) {
+      nanos += unit.toNanos(duration);
+    }
+  }
+
+  private static final class FakeCache extends AbstractProfileCache implements CheckedProfileCache {
+
+    private final Map<UUID, Profile> profiles = new ConcurrentHashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private volatile boolean failing;
+    private volatile CountDownLatch entered;
+    private volatile CountDownLatch release;
+
+    void block() {
+      this.entered = new CountDownLatch(1);
+      this.release = new CountDownLatch(1);
+    }
+
+    void awaitEntered() {
+      assertTrue("Timed out waiting for lookup.",
+                 Uninterruptibles.awaitUninterruptibly(this.entered, 10, TimeUnit.SECONDS));
+    }
+
+    void release() {
+      this.release.countDown();
+    }
+
+    @Override
+    public void putAll(Iterable<Profile> iterable) {
+      for (Profile profile : iterable) {
+        this.profiles.put(profile.getUniqueId(), profile);
+      }
+    }
+
+    @Override
+    public ImmutableMap<UUID, Profile> getAllPresent(Iterable<UUID> iterable) {
+      try {
+        return getAllPresentOrThrow(iterable);
+      } catch (SQLException e) {
+        return ImmutableMap.of();
+      }
+    }
+
+    @Override
+    public ImmutableMap<UUID, Profile> getAllPresentOrThrow(Iterable<UUID> uuids)
+        throws SQLException {
+      this.lookups.incrementAndGet();
+      Map<UUID, Profile> result = new HashMap<>();
+      for (UUID uuid : uuids) {
+        Profile profile = this.profiles.get(uuid);
+        if (profile != null) {
+          result.put(uuid, profile);
+        }
+      }
+      if (this.entered != null) {
+        this.entered.countDown();
+        Uninterruptibles.awaitUninterruptibly(this.release);
+      }
+      if (this.failing) {
+        throw new SQLException("Database is unreachable.");
+      }
+      return ImmutableMap.copyOf(result);
+    }
+  }
+}
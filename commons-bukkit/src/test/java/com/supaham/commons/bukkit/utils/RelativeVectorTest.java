@@ -0,0 +1,80 @@
+package com.supaham.commons.bukkit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.bukkit.util.Vector;
+import org.junit.Test;
+
+public class RelativeVectorTest {
+
+  private static final double[] X = {0, 1.5, -3, 100};
+  private static final double[] Y = {64, -2, 0.25, 7};
+  private static final double[] Z = {-8, 0, 12, -0.5};
+
+  // Every mix of relative and absolute components.
+  private static RelativeVector[] vectors() {
+    RelativeVector[] vectors = new RelativeVector[8];
+    for (int i = 0; i < vectors.length; i++) {
+      vectors[i] = new RelativeVector(1, -2, 3.5, (i & 1) != 0, (i & 2) != 0, (i & 4) != 0);
+    }
+    return vectors;
+  }
+
+  private static void assertVector(ImmutableVector expected, double x, double y, double z) {
+    assertEquals(expected.getX(), x, 0);
+    assertEquals(expected.getY(), y, 0);
+    assertEquals(expected.getZ(), z, 0);
+  }
+
+  @Test
+  public void testApplyComponents() throws Exception {
+    for (RelativeVector relative : vectors()) {
+      for (int i = 0; i < X.length; i++) {
+        ImmutableVector expected = relative.with(new Vector(X[i], Y[i], Z[i]));
+        assertVector(expected, relative.applyX(X[i]), relative.applyY(Y[i]), relative.applyZ(Z[i]));
+      }
+    }
+  }
+
+  @Test
+  public void testApplyToVector() throws Exception {
+    for (RelativeVector relative : vectors()) {
+      for (int i = 0; i < X.length; i++) {
+        ImmutableVector expected = relative.with(new Vector(X[i], Y[i], Z[i]));
+        Vector vector = new Vector(X[i], Y[i], Z[i]);
+        assertSame(vector, relative.applyTo(vector));
+        assertVector(expected, vector.getX(), vector.getY(), vector.getZ());
+      }
+    }
+  }
+
+  @Test
+  public void testApplyToArrays() throws Exception {
+    for (RelativeVector relative : vectors()) {
+      double[] xOut = new double[X.length + 1];
+      double[] yOut = new double[Y.length + 1];
+      double[] zOut = new double[Z.length + 1];
+      relative.applyTo(X.clone(), Y.clone(), Z.clone(), xOut, yOut, zOut);
+
+      // In place.
+      double[] x = X.clone();
+      double[] y = Y.clone();
+      double[] z = Z.clone();
+      relative.applyTo(x, y, z);
+
+      for (int i = 0; i < X.length; i++) {
+        ImmutableVector expected = relative.with(new Vector(X[i], Y[i], Z[i]));
+        assertVector(expected, xOut[i], yOut[i], zOut[i]);
+        assertVector(expected, x[i], y[i], z[i]);
+      }
+      // Output beyond the input length is left untouched.
+      assertVector(new ImmutableVector(0, 0, 0), xOut[X.length], yOut[Y.length], zOut[Z.length]);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testApplyToShortOutput() throws Exception {
+    vectors()[7].applyTo(X, Y, Z, new double[X.length], new double[Y.length - 1], new double[Z.length]);
+  }
+}
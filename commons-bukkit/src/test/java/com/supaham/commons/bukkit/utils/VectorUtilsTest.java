@@ -1,8 +1,10 @@
 package com.supaham.commons.bukkit.utils;
 
 import static com.supaham.commons.bukkit.utils.VectorUtils.deserializeRelative;
+import static com.supaham.commons.bukkit.utils.VectorUtils.tryDeserializeRelative;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 
 import org.bukkit.util.Vector;
 import org.junit.Test;
@@ -35,4 +37,15 @@ public class VectorUtilsTest {
         .with(new ImmutableVector(1, 2, 3))); // original vector is 1,2,3; subtract 1,1,1, should equal 0,1,2.
 
   }
+
+  @Test
+  public void testTryDeserializeRelative() throws Exception {
+    assertEquals(deserializeRelative("~1,2,~3"), tryDeserializeRelative("~1,2,~3"));
+    assertEquals(deserializeRelative(" 1,2,3 "), tryDeserializeRelative(" 1,2,3 "));
+    assertEquals(new RelativeVector(0, 2, 0, true, false, true), tryDeserializeRelative("~, 2 ,~"));
+    assertNull(tryDeserializeRelative("1,2"));
+    assertNull(tryDeserializeRelative("1,a,3"));
+    assertNull(tryDeserializeRelative(""));
+    assertNull(tryDeserializeRelative(null));
+  }
 }
@@ -1,17 +1,23 @@
 package com.supaham.commons;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
-import com.supaham.commons.utils.CollectionUtils;
+import com.supaham.commons.utils.RandomSource;
+import com.supaham.commons.utils.RandomUtils;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.stream.Collector;
+import java.util.stream.Collector.Characteristics;
 import java.util.stream.Stream;
 
+import javax.annotation.Nonnull;
+
 public class CommonCollectors {
 
   /**
@@ -33,19 +39,93 @@ public class CommonCollectors {
   }
 
   /**
-   * Creates a {@link Collector} random element from a {@link Stream}. This method collects the stream and calls
-   * {@link CollectionUtils#getRandomElement(Collection)} which supplies the final result.
+   * Creates a {@link Collector} random element from a {@link Stream}. Elements are picked using
+   * reservoir sampling, so the stream is never buffered. This collector may be used with parallel
+   * streams.
    *
    * @param <T> type of object to return
    *
    * @return random element
+   *
+   * @see #sample(int)
    */
-  public static <T> Collector<T, List<T>, Optional<T>> singleRandom() {
-    // TODO make this more efficient by not having to create a list and add.
-    return Collector.of(ArrayList::new, List::add, (l, r) -> {
-      l.addAll(r);
-      return l;
-    }, l -> l.isEmpty() ? Optional.empty() : Optional.ofNullable(CollectionUtils.getRandomElement(l)));
+  public static <T> Collector<T, ?, Optional<T>> singleRandom() {
+    return Collector.of(() -> new Reservoir<T>(1, RandomUtils.getSource()), Reservoir::add,
+                        Reservoir::combine,
+                        r -> r.items.isEmpty() ? Optional.empty()
+                                               : Optional.ofNullable(r.items.get(0)),
+                        Characteristics.UNORDERED);
+  }
+
+  /**
+   * Creates a {@link Collector} of a uniformly random sample of at most {@code k} elements from a
+   * {@link Stream}. This is equivalent to calling {@link #sample(int, RandomSource)} with
+   * {@link RandomUtils#getSource()}.
+   *
+   * @param k maximum amount of elements to sample
+   * @param <T> type of object to return
+   *
+   * @return list collector
+   */
+  public static <T> Collector<T, ?, List<T>> sample(int k) {
+    return sample(k, RandomUtils.getSource());
+  }
+
+  /**
+   * Creates a {@link Collector} of a uniformly random sample of at most {@code k} elements from a
+   * {@link Stream}, in no particular order. Only {@code k} elements are held at a time, using
+   * reservoir sampling. Partial samples of parallel streams are merged without bias.
+   * <p />
+   * When used with parallel streams, the given {@link RandomSource} must be thread safe, such as
+   * {@link RandomSource#threadLocal()}.
+   *
+   * @param k maximum amount of elements to sample
+   * @param source random source to use
+   * @param <T> type of object to return
+   *
+   * @return list collector
+   */
+  public static <T> Collector<T, ?, List<T>> sample(int k, @Nonnull RandomSource source) {
+    Preconditions.checkArgument(k >= 0, "k cannot be negative.");
+    Preconditions.checkNotNull(source, "source cannot be null.");
+    return Collector.of(() -> new Reservoir<T>(k, source), Reservoir::add, Reservoir::combine,
+                        r -> r.items, Characteristics.UNORDERED);
+  }
+
+  /**
+   * Returns a collector for a {@link List} of the {@code k} greatest elements according to the
+   * given comparator, greatest first. Only {@code k} elements are held at a time, in a bounded
+   * heap. This collector may be used with parallel streams.
+   *
+   * @param k maximum amount of elements to return
+   * @param comp comparator to order elements by
+   * @param <T> type of object to compare
+   *
+   * @return list collector
+   *
+   * @see #bottomK(int, Comparator)
+   */
+  public static <T> Collector<T, ?, List<T>> topK(int k, @Nonnull Comparator<? super T> comp) {
+    Preconditions.checkArgument(k >= 0, "k cannot be negative.");
+    Preconditions.checkNotNull(comp, "comparator cannot be null.");
+    return Collector.of(() -> new BoundedHeap<T>(k, comp), BoundedHeap::add, BoundedHeap::combine,
+                        BoundedHeap::toList, Characteristics.UNORDERED);
+  }
+
+  /**
+   * Returns a collector for a {@link List} of the {@code k} least elements according to the given
+   * comparator, least first. This is equivalent to calling {@link #topK(int, Comparator)} with the
+   * comparator reversed.
+   *
+   * @param k maximum amount of elements to return
+   * @param comp comparator to order elements by
+   * @param <T> type of object to compare
+   *
+   * @return list collector
+   */
+  public static <T> Collector<T, ?, List<T>> bottomK(int k, @Nonnull Comparator<? super T> comp) {
+    Preconditions.checkNotNull(comp, "comparator cannot be null.");
+    return topK(k, Collections.reverseOrder(comp));
   }
 
   // http://stackoverflow.com/a/29339106/2355760
@@ -134,6 +214,112 @@ public class CommonCollectors {
         });
   }
 
+  /*
+   * Algorithm R reservoir. count is the amount of elements seen, of which items is a uniform
+   * sample of min(k, count).
+   */
+  private static final class Reservoir<T> {
+
+    private final int k;
+    private final RandomSource source;
+    private final List<T> items;
+    private long count;
+
+    public Reservoir(int k, RandomSource source) {
+      this.k = k;
+      this.source = source;
+      this.items = new ArrayList<>(Math.min(k, 16));
+    }
+
+    public void add(T t) {
+      long seen = ++this.count;
+      if (this.items.size() < this.k) {
+        this.items.add(t);
+      } else if (this.k > 0) {
+        long j = this.source.nextLong(seen);
+        if (j < this.k) {
+          this.items.set((int) j, t);
+        }
+      }
+    }
+
+    /*
+     * Each slot of the merged sample comes from either side with probability proportional to the
+     * amount of elements that side has seen but not yet contributed, which is exactly how a single
+     * reservoir over both inputs would have been distributed.
+     */
+    public Reservoir<T> combine(Reservoir<T> other) {
+      if (other.count == 0) {
+        return this;
+      }
+      if (this.count == 0) {
+        return other;
+      }
+      Reservoir<T> merged = new Reservoir<>(this.k, this.source);
+      merged.count = this.count + other.count;
+      long left = this.count;
+      long right = other.count;
+      int leftSize = this.items.size();
+      int rightSize = other.items.size();
+      int size = (int) Math.min(this.k, merged.count);
+      for (int i = 0; i < size; i++) {
+        if (this.source.nextLong(left + right) < left) {
+          merged.items.add(take(this.items, leftSize--));
+          left--;
+        } else {
+          merged.items.add(take(other.items, rightSize--));
+          right--;
+        }
+      }
+      return merged;
+    }
+
+    // Removes a random element among the first size elements by swapping it past them.
+    private T take(List<T> list, int size) {
+      int index = this.source.nextInt(size);
+      T t = list.get(index);
+      list.set(index, list.get(size - 1));
+      list.set(size - 1, t);
+      return t;
+    }
+  }
+
+  // A min-heap of at most k elements, whose head is the least of the greatest k seen.
+  private static final class BoundedHeap<T> {
+
+    private final int k;
+    private final Comparator<? super T> comp;
+    private final PriorityQueue<T> heap;
+
+    public BoundedHeap(int k, Comparator<? super T> comp) {
+      this.k = k;
+      this.comp = comp;
+      this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 16)), comp);
+    }
+
+    public void add(T t) {
+      if (this.heap.size() < this.k) {
+        this.heap.add(t);
+      } else if (this.k > 0 && this.comp.compare(t, this.heap.peek()) > 0) {
+        this.heap.poll();
+        this.heap.add(t);
+      }
+    }
+
+    public BoundedHeap<T> combine(BoundedHeap<T> other) {
+      BoundedHeap<T> larger = this.heap.size() >= other.heap.size() ? this : other;
+      BoundedHeap<T> smaller = larger == this ? other : this;
+      smaller.heap.forEach(larger::add);
+      return larger;
+    }
+
+    public List<T> toList() {
+      List<T> list = new ArrayList<>(this.heap);
+      list.sort(Collections.reverseOrder(this.comp));
+      return list;
+    }
+  }
+
   private CommonCollectors() {
     throw new AssertionError("nop");
   }
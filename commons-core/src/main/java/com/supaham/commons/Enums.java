@@ -2,17 +2,31 @@ package com.supaham.commons;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
  * Created by Ali on 11/01/2015.
  */
 public final class Enums {
+
+  private static final ClassValue<Index> INDEXES = new ClassValue<Index>() {
+    @Override protected Index computeValue(Class<?> type) {
+      return new Index(type.getEnumConstants());
+    }
+  };
+
   private Enums() {
   }
 
   /**
-   * Search the given enum for a value that is equal to the one of the given values, searching in 
+   * Search the given enum for a value that is equal to the one of the given values, searching in
    * an ascending manner.
    *
    * @param enumType the enum type
@@ -24,16 +38,18 @@ public final class Enums {
   public static <T extends Enum<T>> T findByValue(Class<T> enumType, String... values) {
     checkNotNull(enumType);
     checkNotNull(values);
+    Index index = INDEXES.get(enumType);
     for (String val : values) {
-      try {
-        return Enum.valueOf(enumType, val);
-      } catch (IllegalArgumentException ignored) {}
+      Enum<?> value = index.exact.get(val);
+      if (value != null) {
+        return enumType.cast(value);
+      }
     }
     return null;
   }
 
   /**
-   * Search the given enum for a value that is equal to the one of the given values, searching in 
+   * Search the given enum for a value that is equal to the one of the given values, searching in
    * an ascending manner.
    *
    * <p>Some fuzzy matching of the provided values may be performed.</p>
@@ -47,14 +63,102 @@ public final class Enums {
   public static <T extends Enum<T>> T findFuzzyByValue(Class<T> enumType, String... values) {
     checkNotNull(enumType);
     checkNotNull(values);
+    Index index = INDEXES.get(enumType);
     for (String test : values) {
-      test = test.replace("_", "");
-      for (T value : enumType.getEnumConstants()) {
-        if (value.name().replace("_", "").equalsIgnoreCase(test)) {
-          return value;
-        }
+      Enum<?> value = index.fuzzy.get(normalize(test));
+      if (value != null) {
+        return enumType.cast(value);
       }
     }
     return null;
   }
+
+  /**
+   * Returns the values of the given enum whose names start with the given prefix, in declaration
+   * order. The prefix is matched the same way {@link #findFuzzyByValue(Class, String...)} matches
+   * values, making this method suitable for tab completion.
+   *
+   * @param enumType the enum type
+   * @param prefix the prefix to look for
+   * @param <T> the type of enum
+   * @return an immutable list of the found values
+   *
+   * @since 0.9.3
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  public static <T extends Enum<T>> List<T> findByPrefix(Class<T> enumType, String prefix) {
+    checkNotNull(enumType);
+    checkNotNull(prefix);
+    Node node = INDEXES.get(enumType).root;
+    String normalized = normalize(prefix);
+    for (int i = 0; i < normalized.length() && node != null; i++) {
+      node = node.children.get(normalized.charAt(i));
+    }
+    return node == null ? Collections.emptyList() : (List<T>) node.values;
+  }
+
+  /*
+   * Mirrors the comparison done by the original fuzzy lookup: underscores are ignored and
+   * characters are compared by String#equalsIgnoreCase rules.
+   */
+  private static String normalize(String value) {
+    StringBuilder sb = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c != '_') {
+        sb.append(Character.toLowerCase(Character.toUpperCase(c)));
+      }
+    }
+    return sb.toString();
+  }
+
+  /*
+   * Lookup tables of a single enum class, built once per class. Constants are added in declaration
+   * order so that the first declared constant wins when normalized names collide.
+   */
+  private static final class Index {
+
+    private final Map<String, Enum<?>> exact = new HashMap<>();
+    private final Map<String, Enum<?>> fuzzy = new HashMap<>();
+    private final Node root = new Node();
+
+    public Index(@Nullable Object[] constants) {
+      if (constants == null) { // Not an enum.
+        root.seal();
+        return;
+      }
+      for (Object constant : constants) {
+        Enum<?> value = (Enum<?>) constant;
+        exact.put(value.name(), value);
+        String normalized = normalize(value.name());
+        fuzzy.putIfAbsent(normalized, value);
+
+        Node node = root;
+        node.values.add(value);
+        for (int i = 0; i < normalized.length(); i++) {
+          node = node.children.computeIfAbsent(normalized.charAt(i), c -> new Node());
+          node.values.add(value);
+        }
+      }
+      root.seal();
+    }
+  }
+
+  /*
+   * Prefix trie node, holding every constant whose normalized name passes through it.
+   */
+  private static final class Node {
+
+    private Map<Character, Node> children = new HashMap<>();
+    private List<Enum<?>> values = new ArrayList<>();
+
+    private void seal() {
+      values = Collections.unmodifiableList(new ArrayList<>(values));
+      children = children.isEmpty() ? Collections.emptyMap() : children;
+      for (Node child : children.values()) {
+        child.seal();
+      }
+    }
+  }
 }
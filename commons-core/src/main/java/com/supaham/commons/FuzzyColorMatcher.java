@@ -20,6 +20,8 @@ import com.google.common.base.Preconditions;
 
 import java.awt.*;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
 
 import javax.annotation.Nonnull;
 
@@ -30,17 +32,35 @@ import javax.annotation.Nonnull;
  * 
  * See: <a href="http://www.compuphase.com/cmetric.htm">http://www.compuphase.com/cmetric.htm</a> <p />
  *
+ * Matches are found with a k-d tree over the palette. Palettes of up to 256 colors additionally cache every match in
+ * a 24-bit lookup table, filled lazily in blocks of 4096 colors as they are queried, making repeated lookups, such as
+ * the pixels of an image, a single array access. Note that the first lookup in a block searches all of its 4096
+ * colors, so one-off lookups, such as a single chat color match, cost more than a plain search. A fully filled table
+ * takes 16 MB. Ties are resolved in favour of the color given first. <p />
+ *
  * Credit goes to Bukkit: https://github.com/Bukkit/Bukkit/blob/master/src/main/java/org/bukkit/map/MapPalette.java
  */
 public class FuzzyColorMatcher {
 
+  private static final int LUT_MAX_COLORS = 256;
+  private static final int BLOCK_SHIFT = 12;
+  private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+  private static final int LINEAR_SCAN_MAX_COLORS = 16;
+  private static final int PARALLEL_THRESHOLD = 1 << 14;
+  // Least weight each channel can have in getDistance, used to bound distances across k-d tree splits.
+  private static final double[] MIN_WEIGHTS = {2, 4, 2};
+
   private final Color[] colors;
+  private final int[][] components; // [index][channel]
+  private final int[] tree; // palette indices arranged as an implicit, balanced k-d tree
+  private final byte[] axes;
+  private final AtomicReferenceArray<byte[]> lut;
 
-  private static double getDistance(Color c1, Color c2) {
-    double rmean = (c1.getRed() + c2.getRed()) / 2.0;
-    double r = c1.getRed() - c2.getRed();
-    double g = c1.getGreen() - c2.getGreen();
-    int b = c1.getBlue() - c2.getBlue();
+  private static double getDistance(int r1, int g1, int b1, int r2, int g2, int b2) {
+    double rmean = (r1 + r2) / 2.0;
+    double r = r1 - r2;
+    double g = g1 - g2;
+    int b = b1 - b2;
     double weightR = 2 + rmean / 256.0;
     double weightG = 4.0;
     double weightB = 2 + (255 - rmean) / 256.0;
@@ -51,6 +71,18 @@ public class FuzzyColorMatcher {
     Preconditions.checkNotNull(colors, "colors cannot be null.");
     Preconditions.checkArgument(colors.length > 0, "colors array cannot be empty.");
     this.colors = Arrays.copyOf(colors, colors.length);
+    this.components = new int[colors.length][];
+    for (int i = 0; i < colors.length; i++) {
+      Color color = this.colors[i];
+      this.components[i] = new int[]{color.getRed(), color.getGreen(), color.getBlue()};
+    }
+    this.tree = new int[colors.length];
+    this.axes = new byte[colors.length];
+    for (int i = 0; i < this.tree.length; i++) {
+      this.tree[i] = i;
+    }
+    build(0, this.tree.length);
+    this.lut = colors.length <= LUT_MAX_COLORS ? new AtomicReferenceArray<>(1 << (24 - BLOCK_SHIFT)) : null;
   }
 
   /**
@@ -67,7 +99,7 @@ public class FuzzyColorMatcher {
     Preconditions.checkArgument(r >= 0 && r <= 255, "red must be within 0-255.");
     Preconditions.checkArgument(g >= 0 && g <= 255, "green must be within 0-255.");
     Preconditions.checkArgument(b >= 0 && b <= 255, "blue must be within 0-255.");
-    return findMatch(new Color(r, g, b));
+    return this.colors[findMatchIndex(r << 16 | g << 8 | b)];
   }
 
   /**
@@ -82,16 +114,193 @@ public class FuzzyColorMatcher {
   public Color findMatch(@Nonnull Color color) {
     Preconditions.checkNotNull(color, "color1 cannot be null.");
     Preconditions.checkArgument(color.getAlpha() == 255, "Only fully opaque colours allowed.");
-    Color bestColor = color;
-    double bestDistance = Double.MAX_VALUE;
-    for (Color color2 : this.colors) {
-      double distance = getDistance(color, color2);
-      if (distance < bestDistance) {
-        bestColor = color2;
-        bestDistance = distance;
+    return this.colors[findMatchIndex(color.getRGB())];
+  }
+
+  /**
+   * Finds a color match from a given RGB color based on the colors this matcher was created with. The alpha
+   * component, if any, is ignored.
+   *
+   * @param rgb color to find match for, packed as 0xRRGGBB
+   *
+   * @return match for color, packed as 0xRRGGBB
+   *
+   * @since 0.9.3
+   */
+  public int findMatchRgb(int rgb) {
+    return this.colors[findMatchIndex(rgb)].getRGB() & 0xFFFFFF;
+  }
+
+  /**
+   * Finds the index of a color match, in the array this matcher was created with, from a given RGB color. The alpha
+   * component, if any, is ignored.
+   *
+   * @param rgb color to find match for, packed as 0xRRGGBB
+   *
+   * @return index of the match
+   *
+   * @since 0.9.3
+   */
+  public int findMatchIndex(int rgb) {
+    rgb &= 0xFFFFFF;
+    if (this.lut == null) {
+      return nearest(rgb);
+    }
+    int blockIndex = rgb >>> BLOCK_SHIFT;
+    byte[] block = this.lut.get(blockIndex);
+    if (block == null) {
+      // Racing threads may both fill the same block, which is harmless.
+      block = new byte[1 << BLOCK_SHIFT];
+      int base = blockIndex << BLOCK_SHIFT;
+      for (int i = 0; i < block.length; i++) {
+        block[i] = (byte) nearest(base | i);
+      }
+      this.lut.set(blockIndex, block);
+    }
+    return block[rgb & BLOCK_MASK] & 0xFF;
+  }
+
+  /**
+   * Finds the index of a color match for each of the given colors. Large arrays are processed in parallel. The alpha
+   * component, if any, is ignored.
+   *
+   * @param argb colors to find matches for
+   * @param outIndices array to store match indices in, must be at least as long as {@code argb}
+   *
+   * @return {@code outIndices} for chaining
+   *
+   * @see #findMatchIndex(int)
+   * @since 0.9.3
+   */
+  public int[] quantize(@Nonnull int[] argb, @Nonnull int[] outIndices) {
+    Preconditions.checkNotNull(argb, "argb cannot be null.");
+    Preconditions.checkNotNull(outIndices, "outIndices cannot be null.");
+    Preconditions.checkArgument(outIndices.length >= argb.length, "outIndices is smaller than argb.");
+    if (argb.length >= PARALLEL_THRESHOLD) {
+      IntStream.range(0, argb.length).parallel()
+          .forEach(i -> outIndices[i] = findMatchIndex(argb[i]));
+    } else {
+      for (int i = 0; i < argb.length; i++) {
+        outIndices[i] = findMatchIndex(argb[i]);
       }
+    }
+    return outIndices;
+  }
+
+  /**
+   * Returns the color at the given index of the array this matcher was created with.
+   *
+   * @param index index of the color
+   *
+   * @return color
+   *
+   * @since 0.9.3
+   */
+  @Nonnull
+  public Color getColor(int index) {
+    return this.colors[index];
+  }
+
+  /**
+   * Returns the amount of colors this matcher was created with.
+   *
+   * @return amount of colors
+   *
+   * @since 0.9.3
+   */
+  public int size() {
+    return this.colors.length;
+  }
+
+  private int nearest(int rgb) {
+    int r = (rgb >> 16) & 0xFF;
+    int g = (rgb >> 8) & 0xFF;
+    int b = rgb & 0xFF;
+    if (this.colors.length <= LINEAR_SCAN_MAX_COLORS) {
+      int best = 0;
+      double bestDistance = Double.MAX_VALUE;
+      for (int i = 0; i < this.components.length; i++) {
+        int[] c = this.components[i];
+        double distance = getDistance(r, g, b, c[0], c[1], c[2]);
+        if (distance < bestDistance) {
+          best = i;
+          bestDistance = distance;
+        }
+      }
+      return best;
+    }
+    Search search = new Search(new int[]{r, g, b});
+    search(search, 0, this.tree.length);
+    return search.best;
+  }
+
+  private void search(Search search, int from, int to) {
+    if (from >= to) {
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    int index = this.tree[mid];
+    int[] c = this.components[index];
+    int[] q = search.query;
+    double distance = getDistance(q[0], q[1], q[2], c[0], c[1], c[2]);
+    // Prefer the lowest index on ties, just like a linear scan would.
+    if (distance < search.bestDistance || (distance == search.bestDistance && index < search.best)) {
+      search.best = index;
+      search.bestDistance = distance;
+    }
+    int axis = this.axes[mid];
+    int diff = q[axis] - c[axis];
+    boolean left = diff < 0;
+    search(search, left ? from : mid + 1, left ? mid : to);
+    // Ties must be explored too, hence <= rather than <.
+    if (MIN_WEIGHTS[axis] * diff * diff <= search.bestDistance) {
+      search(search, left ? mid + 1 : from, left ? to : mid);
+    }
+  }
+
+  // Arranges tree[from, to) so that its middle element splits the rest along the axis of widest spread.
+  private void build(int from, int to) {
+    if (to - from <= 1) {
+      return;
+    }
+    int axis = 0;
+    int widest = -1;
+    for (int a = 0; a < 3; a++) {
+      int min = 255;
+      int max = 0;
+      for (int i = from; i < to; i++) {
+        int value = this.components[this.tree[i]][a];
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+      }
+      if (max - min > widest) {
+        widest = max - min;
+        axis = a;
+      }
+    }
+    final int sortAxis = axis;
+    Integer[] boxed = new Integer[to - from];
+    for (int i = from; i < to; i++) {
+      boxed[i - from] = this.tree[i];
+    }
+    Arrays.sort(boxed, (i1, i2) -> Integer.compare(this.components[i1][sortAxis], this.components[i2][sortAxis]));
+    for (int i = from; i < to; i++) {
+      this.tree[i] = boxed[i - from];
+    }
+    int mid = (from + to) >>> 1;
+    this.axes[mid] = (byte) axis;
+    build(from, mid);
+    build(mid + 1, to);
+  }
+
+  private static final class Search {
+
+    private final int[] query;
+    private int best = Integer.MAX_VALUE;
+    private double bestDistance = Double.MAX_VALUE;
 
+    private Search(int[] query) {
+      this.query = query;
     }
-    return bestColor;
   }
 }
@@ -1,19 +1,41 @@
 package com.supaham.commons;
 
 import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Iterators;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntFunction;
 
 import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+/**
+ * An object which joins pieces of text with a separator, like Guava's
+ * {@link com.google.common.base.Joiner}, with optional transformation of elements through a
+ * {@link FunctionJoiner}, and optional output limits.
+ * <p />
+ * Output may be limited in elements ({@link #limit(int)}) and in characters
+ * ({@link #maxLength(int)}). Once a limit is reached, the remaining elements are skipped without
+ * being converted to strings, and an {@link #overflow(String) overflow suffix}, such as
+ * {@code " ... and 312 more"}, may be appended. The character limit includes separators and the
+ * suffix; an element that doesn't fit is never cut in half, and a suffix that doesn't fit is
+ * left out.
+ */
 public class Joiner {
 
-  private com.google.common.base.Joiner joiner;
+  private final String separator;
+  private String nullText;
+  private boolean skipNulls;
+  private int maxElements = -1;
+  private int maxLength = -1;
+  private IntFunction<String> overflow;
 
   /**
    * Returns a joiner which automatically places {@code separator} between consecutive elements.
@@ -30,20 +52,22 @@ public class Joiner {
   }
 
   private Joiner(String separator) {
-    this.joiner = com.google.common.base.Joiner.on(separator);
+    this.separator = Preconditions.checkNotNull(separator, "separator cannot be null.");
   }
 
   private Joiner(Joiner prototype) {
-    this.joiner = prototype.joiner;
-  }
-
-  private Joiner(com.google.common.base.Joiner prototype) {
-    this.joiner = prototype;
+    this.separator = prototype.separator;
+    this.nullText = prototype.nullText;
+    this.skipNulls = prototype.skipNulls;
+    this.maxElements = prototype.maxElements;
+    this.maxLength = prototype.maxLength;
+    this.overflow = prototype.overflow;
   }
 
   /**
    * Returns a {@link FunctionJoiner} with the same behaviour as this Joiner, and the given
-   * function. The function is used to transform input when calling {@code join} methods.
+   * function. The function is used to transform input when calling {@code join} methods. The
+   * function is only called for elements that are actually joined.
    *
    * @param function function
    * @param <T> type of input to transform
@@ -53,11 +77,190 @@ public class Joiner {
   public <T> FunctionJoiner<T> function(Function<T, String> function) {
     return new FunctionJoiner<>(this, function);
   }
-  
-  // TODO add functionality for limiting join output.
+
+  /**
+   * Returns a joiner with the same behaviour as this one, except that at most {@code maxElements}
+   * elements are joined.
+   *
+   * @param maxElements maximum amount of elements to join
+   *
+   * @return new joiner
+   *
+   * @since 0.9.3
+   */
+  @CheckReturnValue public Joiner limit(int maxElements) {
+    Preconditions.checkArgument(maxElements >= 0, "maxElements cannot be negative.");
+    Joiner joiner = copy();
+    joiner.maxElements = maxElements;
+    return joiner;
+  }
+
+  /**
+   * Returns a joiner with the same behaviour as this one, except that at most {@code maxLength}
+   * characters are appended by each join, including separators and the overflow suffix.
+   *
+   * @param maxLength maximum amount of characters to append
+   *
+   * @return new joiner
+   *
+   * @since 0.9.3
+   */
+  @CheckReturnValue public Joiner maxLength(int maxLength) {
+    Preconditions.checkArgument(maxLength >= 0, "maxLength cannot be negative.");
+    Joiner joiner = copy();
+    joiner.maxLength = maxLength;
+    return joiner;
+  }
+
+  /**
+   * Returns a joiner with the same behaviour as this one, except that when a limit is reached, the
+   * given format is appended, formatted with the amount of skipped elements. E.g.
+   * {@code " ... and %d more"}.
+   *
+   * @param format suffix format
+   *
+   * @return new joiner
+   *
+   * @see String#format(String, Object...)
+   * @since 0.9.3
+   */
+  @CheckReturnValue public Joiner overflow(@Nonnull String format) {
+    Preconditions.checkNotNull(format, "format cannot be null.");
+    return overflow(skipped -> String.format(format, skipped));
+  }
+
+  /**
+   * Returns a joiner with the same behaviour as this one, except that when a limit is reached, the
+   * result of the given function is appended. The function is given the amount of skipped elements
+   * and is expected to return longer strings for larger amounts, if any.
+   *
+   * @param overflow suffix function
+   *
+   * @return new joiner
+   *
+   * @since 0.9.3
+   */
+  @CheckReturnValue public Joiner overflow(@Nonnull IntFunction<String> overflow) {
+    Preconditions.checkNotNull(overflow, "overflow cannot be null.");
+    Joiner joiner = copy();
+    joiner.overflow = overflow;
+    return joiner;
+  }
+
+  /**
+   * Returns whether this joiner has an element or character limit.
+   *
+   * @return whether this joiner is limited
+   *
+   * @since 0.9.3
+   */
+  public boolean isLimited() {
+    return this.maxElements >= 0 || this.maxLength >= 0;
+  }
+
+  Joiner copy() {
+    return new Joiner(this);
+  }
+
+  /**
+   * Returns the text to append for the given part, or null if the part should be skipped.
+   */
+  @Nullable
+  CharSequence toString(@Nullable Object part) {
+    if (part == null) {
+      if (this.skipNulls) {
+        return null;
+      }
+      return Preconditions.checkNotNull(this.nullText);
+    }
+    return part instanceof CharSequence ? (CharSequence) part : part.toString();
+  }
+
+  /*
+   * The single join loop. total is the amount of parts, or -1 if unknown, in which case this
+   * joiner must not be limited.
+   */
+  private <A extends Appendable> A join(A appendable, Iterator<?> parts, int total)
+      throws IOException {
+    Preconditions.checkNotNull(appendable, "appendable cannot be null.");
+    int length = 0;
+    int count = 0;
+    // Upper bound of the suffix length, as suffixes don't get shorter for larger amounts.
+    int maxReserved = -1;
+    for (int i = 0; parts.hasNext(); i++) {
+      if (count == this.maxElements) {
+        appendOverflow(appendable, total - i, length);
+        break;
+      }
+      CharSequence string = toString(parts.next());
+      if (string == null) {
+        continue;
+      }
+      int added = (count > 0 ? this.separator.length() : 0) + string.length();
+      if (this.maxLength >= 0) {
+        int remaining = total - i - 1;
+        // Always leave room for the suffix, it is too late to make room once we overflow.
+        int reserved = 0;
+        if (remaining > 0 && this.overflow != null) {
+          if (maxReserved < 0) {
+            maxReserved = this.overflow.apply(total).length();
+          }
+          // Only format the exact suffix once we get near the limit.
+          if (length + added + maxReserved > this.maxLength) {
+            reserved = this.overflow.apply(remaining).length();
+            if (reserved > this.maxLength) {
+              reserved = 0; // It never fits and is dropped, don't hold elements back for it.
+            }
+          }
+        }
+        if (length + added + reserved > this.maxLength) {
+          appendOverflow(appendable, total - i, length);
+          break;
+        }
+      }
+      if (count > 0) {
+        appendable.append(this.separator);
+      }
+      appendable.append(string);
+      length += added;
+      count++;
+    }
+    return appendable;
+  }
+
+  /*
+   * Appends the overflow suffix, unless it would exceed the character limit.
+   */
+  private void appendOverflow(Appendable appendable, int skipped, int length) throws IOException {
+    if (this.overflow != null) {
+      String suffix = this.overflow.apply(skipped);
+      if (this.maxLength < 0 || length + suffix.length() <= this.maxLength) {
+        appendable.append(suffix);
+      }
+    }
+  }
+
+  private <A extends Appendable> A join(A appendable, Collection<?> parts) throws IOException {
+    return join(appendable, parts.iterator(), parts.size());
+  }
+
+  private <A extends Appendable> A joinIterator(A appendable, Iterator<?> parts)
+      throws IOException {
+    if (!isLimited()) {
+      return join(appendable, parts, -1);
+    }
+    // The amount of skipped elements must be known; collect the parts without converting them.
+    List<Object> list = new ArrayList<>();
+    parts.forEachRemaining(list::add);
+    return join(appendable, list);
+  }
+
+  private static StringBuilder unchecked(IOException e) {
+    throw new AssertionError(e); // StringBuilder never throws.
+  }
 
   /* ================================
-   * >> DELEGATE METHODS
+   * >> JOIN METHODS
    * ================================ */
 
   /**
@@ -65,7 +268,10 @@ public class Joiner {
    * separator between each, to {@code appendable}.
    */
   public <A extends Appendable> A appendTo(A appendable, Iterable<?> parts) throws IOException {
-    return joiner.appendTo(appendable, parts);
+    if (parts instanceof Collection) {
+      return join(appendable, (Collection<?>) parts);
+    }
+    return appendTo(appendable, parts.iterator());
   }
 
   /**
@@ -73,7 +279,7 @@ public class Joiner {
    * separator between each, to {@code appendable}.
    */
   public <A extends Appendable> A appendTo(A appendable, Iterator<?> parts) throws IOException {
-    return joiner.appendTo(appendable, parts);
+    return joinIterator(appendable, parts);
   }
 
   /**
@@ -81,7 +287,7 @@ public class Joiner {
    * separator between each, to {@code appendable}.
    */
   public final <A extends Appendable> A appendTo(A appendable, Object[] parts) throws IOException {
-    return joiner.appendTo(appendable, Arrays.asList(parts));
+    return join(appendable, Arrays.asList(parts));
   }
 
   /**
@@ -91,7 +297,7 @@ public class Joiner {
                                                  @Nullable Object first,
                                                  @Nullable Object second,
                                                  Object... rest) throws IOException {
-    return joiner.appendTo(appendable, first, second, rest);
+    return join(appendable, Lists.asList(first, second, rest));
   }
 
   /**
@@ -100,7 +306,12 @@ public class Joiner {
    * Iterable)}, except that it does not throw {@link IOException}.
    */
   public StringBuilder appendTo(StringBuilder builder, Iterable<?> parts) {
-    return joiner.appendTo(builder, parts);
+    try {
+      appendTo((Appendable) builder, parts);
+      return builder;
+    } catch (IOException e) {
+      return unchecked(e);
+    }
   }
 
   /**
@@ -109,7 +320,12 @@ public class Joiner {
    * Iterable)}, except that it does not throw {@link IOException}.
    */
   public StringBuilder appendTo(StringBuilder builder, Iterator<?> parts) {
-    return joiner.appendTo(builder, parts);
+    try {
+      appendTo((Appendable) builder, parts);
+      return builder;
+    } catch (IOException e) {
+      return unchecked(e);
+    }
   }
 
   /**
@@ -118,7 +334,12 @@ public class Joiner {
    * Iterable)}, except that it does not throw {@link IOException}.
    */
   public StringBuilder appendTo(StringBuilder builder, Object[] parts) {
-    return joiner.appendTo(builder, parts);
+    try {
+      appendTo((Appendable) builder, parts);
+      return builder;
+    } catch (IOException e) {
+      return unchecked(e);
+    }
   }
 
   /**
@@ -128,7 +349,12 @@ public class Joiner {
    */
   public StringBuilder appendTo(StringBuilder builder, @Nullable Object first,
                                 @Nullable Object second, Object... rest) {
-    return joiner.appendTo(builder, first, second, rest);
+    try {
+      appendTo((Appendable) builder, first, second, rest);
+      return builder;
+    } catch (IOException e) {
+      return unchecked(e);
+    }
   }
 
   /**
@@ -136,7 +362,7 @@ public class Joiner {
    * previously configured separator between each.
    */
   public String join(Iterable<?> parts) {
-    return joiner.join(parts);
+    return appendTo(new StringBuilder(), parts).toString();
   }
 
   /**
@@ -144,7 +370,7 @@ public class Joiner {
    * previously configured separator between each.
    */
   public String join(Iterator<?> parts) {
-    return joiner.join(parts);
+    return appendTo(new StringBuilder(), parts).toString();
   }
 
   /**
@@ -152,7 +378,7 @@ public class Joiner {
    * previously configured separator between each.
    */
   public String join(Object[] parts) {
-    return joiner.join(parts);
+    return appendTo(new StringBuilder(), parts).toString();
   }
 
   /**
@@ -160,7 +386,7 @@ public class Joiner {
    * configured separator between each.
    */
   public String join(@Nullable Object first, @Nullable Object second, Object... rest) {
-    return joiner.join(first, second, rest);
+    return appendTo(new StringBuilder(), first, second, rest).toString();
   }
 
   /**
@@ -168,7 +394,13 @@ public class Joiner {
    * nullText} for any provided null elements.
    */
   @CheckReturnValue public Joiner useForNull(String nullText) {
-    return new Joiner(joiner.useForNull(nullText));
+    Preconditions.checkNotNull(nullText, "nullText cannot be null.");
+    if (this.nullText != null || this.skipNulls) {
+      throw new UnsupportedOperationException("already specified useForNull or skipNulls");
+    }
+    Joiner joiner = copy();
+    joiner.nullText = nullText;
+    return joiner;
   }
 
   /**
@@ -176,44 +408,63 @@ public class Joiner {
    * provided null elements.
    */
   @CheckReturnValue public Joiner skipNulls() {
-    return new Joiner(joiner.skipNulls());
+    if (this.nullText != null || this.skipNulls) {
+      throw new UnsupportedOperationException("already specified useForNull or skipNulls");
+    }
+    Joiner joiner = copy();
+    joiner.skipNulls = true;
+    return joiner;
   }
-  
+
   /* ================================
-   * >> /DELEGATE METHODS
+   * >> /JOIN METHODS
    * ================================ */
 
-  public final class FunctionJoiner<T> extends Joiner {
+  /**
+   * A {@link Joiner} that transforms each element with a function before joining it. Nulls
+   * returned by the function are handled according to {@link #useForNull(String)} and
+   * {@link #skipNulls()}.
+   */
+  public static final class FunctionJoiner<T> extends Joiner {
 
     private final Function<T, String> function;
 
     private FunctionJoiner(Joiner joiner, Function<T, String> function) {
       super(joiner);
-      this.function = function;
+      this.function = Preconditions.checkNotNull(function, "function cannot be null.");
     }
 
-    @Override public String join(Iterable<?> parts) {
-      return joiner.join(Iterables.transform((Iterable<T>) parts, this.function));
+    @Override FunctionJoiner<T> copy() {
+      return new FunctionJoiner<>(this, this.function);
     }
 
-    @Override public String join(Iterator<?> parts) {
-      return joiner.join(Iterators.transform((Iterator<T>) parts, this.function));
+    @SuppressWarnings("unchecked")
+    @Override CharSequence toString(@Nullable Object part) {
+      return super.toString(this.function.apply((T) part));
     }
 
-    @Override public String join(Object[] parts) {
-      return join(Arrays.asList(parts));
+    @Override public FunctionJoiner<T> useForNull(String nullText) {
+      return (FunctionJoiner<T>) super.useForNull(nullText);
     }
 
-    @Override public String join(@Nullable Object first, @Nullable Object second, Object... rest) {
-      return join(Arrays.asList(first, second, rest));
+    @Override public FunctionJoiner<T> skipNulls() {
+      return (FunctionJoiner<T>) super.skipNulls();
     }
 
-    @Override public FunctionJoiner<T> useForNull(String nullText) {
-      return new FunctionJoiner<>(super.useForNull(nullText), this.function);
+    @Override public FunctionJoiner<T> limit(int maxElements) {
+      return (FunctionJoiner<T>) super.limit(maxElements);
     }
 
-    @Override public FunctionJoiner<T> skipNulls() {
-      return new FunctionJoiner<>(super.skipNulls(), this.function);
+    @Override public FunctionJoiner<T> maxLength(int maxLength) {
+      return (FunctionJoiner<T>) super.maxLength(maxLength);
+    }
+
+    @Override public FunctionJoiner<T> overflow(@Nonnull String format) {
+      return (FunctionJoiner<T>) super.overflow(format);
+    }
+
+    @Override public FunctionJoiner<T> overflow(@Nonnull IntFunction<String> overflow) {
+      return (FunctionJoiner<T>) super.overflow(overflow);
     }
   }
 }
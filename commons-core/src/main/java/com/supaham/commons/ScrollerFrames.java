@@ -0,0 +1,212 @@
+package com.supaham.commons;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents every frame of a {@link StringScroller}, computed once and shared by all scrollers of
+ * the same type, string, display length and repeat mode. A scroller then only has to keep track of
+ * its current frame index, see {@link #next(int)}.
+ * <p />
+ * The frames hold the first two scroll cycles: the first cycle starts from a fresh scroller, and
+ * the second cycle, starting at {@link #getLoopStart()}, repeats forever after. This allows
+ * stateful scrollers, such as colorful ones, to settle into their steady state.
+ * <p />
+ * Frames are produced by {@link StringScroller#afterResetRun()} and
+ * {@link StringScroller#postRun(String)}, so these methods must only depend on the scroller's type,
+ * string, display length and repeat mode. Scrollers only use shared frames when
+ * {@link StringScroller#isShareable()}.
+ *
+ * @see #of(String, int, boolean)
+ * @see StringScroller#getFrames()
+ * @since 0.9.3
+ */
+public final class ScrollerFrames {
+
+  // Values are weak, frames are only kept while a scroller uses them.
+  private static final Cache<Key, ScrollerFrames> CACHE = CacheBuilder.newBuilder()
+      .weakValues().build();
+
+  private final String[] strings;
+  private final int[] positions;
+  private final boolean[] resets;
+  private final int loopStart;
+
+  /**
+   * Returns the frames of a plain {@link StringScroller}. The result is cached, see
+   * {@link StringScroller#StringScroller(String, int, boolean)} for the meaning of the arguments.
+   *
+   * @param string string to scroll over
+   * @param displayLength the length of characters displayed per frame
+   * @param instantlyRepeat whether to instantly repeat the string
+   *
+   * @return frames
+   */
+  @Nonnull
+  public static ScrollerFrames of(@Nonnull String string, int displayLength,
+                                  boolean instantlyRepeat) {
+    return new StringScroller(string, displayLength, instantlyRepeat).getFrames();
+  }
+
+  static ScrollerFrames of(@Nonnull StringScroller scroller) {
+    checkNotNull(scroller, "scroller cannot be null.");
+    Key key = new Key(scroller.getClass(), scroller.getFinalString(), scroller.getDisplayLength(),
+                      scroller.isInstantlyRepeating());
+    try {
+      return CACHE.get(key, () -> compute(scroller.newFrameGenerator()));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static ScrollerFrames compute(StringScroller generator) {
+    List<String> strings = new ArrayList<>();
+    List<Integer> positions = new ArrayList<>();
+    List<Boolean> resets = new ArrayList<>();
+    // A cycle has at most one frame per position, plus the wrapped frame.
+    int limit = 2 * (generator.getFinalString().length() + 1);
+    int loopStart = -1;
+    while (true) {
+      generator.nextFrame(false);
+      if (generator.isReset()) {
+        if (loopStart >= 0) {
+          break; // Third cycle, identical to the second.
+        }
+        loopStart = strings.size();
+      }
+      checkState(strings.size() < limit, "scroller did not repeat after %s frames.", limit);
+      strings.add(generator.getCurrentString());
+      positions.add(generator.getPosition());
+      resets.add(generator.isReset());
+    }
+    return new ScrollerFrames(strings, positions, resets, loopStart);
+  }
+
+  private ScrollerFrames(List<String> strings, List<Integer> positions, List<Boolean> resets,
+                         int loopStart) {
+    this.strings = strings.toArray(new String[strings.size()]);
+    this.positions = new int[positions.size()];
+    this.resets = new boolean[resets.size()];
+    for (int i = 0; i < this.positions.length; i++) {
+      this.positions[i] = positions.get(i);
+      this.resets[i] = resets.get(i);
+    }
+    this.loopStart = loopStart;
+  }
+
+  /**
+   * Returns the index of the frame following the given frame.
+   *
+   * @param frame current frame, or -1 if no frame has been displayed yet
+   *
+   * @return next frame
+   */
+  public int next(int frame) {
+    return frame + 1 < this.strings.length ? frame + 1 : this.loopStart;
+  }
+
+  /**
+   * Returns the string displayed by the given frame.
+   *
+   * @param frame frame index
+   *
+   * @return displayed string
+   */
+  public String getString(int frame) {
+    checkElementIndex(frame, this.strings.length, "frame");
+    return this.strings[frame];
+  }
+
+  /**
+   * Returns the position in the scrolled string of the given frame.
+   *
+   * @param frame frame index
+   *
+   * @return position
+   *
+   * @see StringScroller#getPosition()
+   */
+  public int getPosition(int frame) {
+    checkElementIndex(frame, this.positions.length, "frame");
+    return this.positions[frame];
+  }
+
+  /**
+   * Returns whether the given frame starts a new cycle.
+   *
+   * @param frame frame index
+   *
+   * @return whether the frame resets the scroller
+   *
+   * @see StringScroller#isReset()
+   */
+  public boolean isReset(int frame) {
+    checkElementIndex(frame, this.resets.length, "frame");
+    return this.resets[frame];
+  }
+
+  /**
+   * Returns the index of the first frame of the repeating cycle.
+   *
+   * @return loop start frame
+   */
+  public int getLoopStart() {
+    return loopStart;
+  }
+
+  /**
+   * Returns the amount of frames.
+   *
+   * @return amount of frames
+   */
+  public int size() {
+    return strings.length;
+  }
+
+  private static final class Key {
+
+    private final Class<?> type;
+    private final String string;
+    private final int displayLength;
+    private final boolean instantlyRepeat;
+
+    public Key(Class<?> type, String string, int displayLength, boolean instantlyRepeat) {
+      this.type = type;
+      this.string = string;
+      this.displayLength = displayLength;
+      this.instantlyRepeat = instantlyRepeat;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return type == key.type && displayLength == key.displayLength
+             && instantlyRepeat == key.instantlyRepeat && string.equals(key.string);
+    }
+
+    @Override public int hashCode() {
+      int result = type.hashCode();
+      result = 31 * result + string.hashCode();
+      result = 31 * result + displayLength;
+      return 31 * result + (instantlyRepeat ? 1 : 0);
+    }
+  }
+}
@@ -34,6 +34,11 @@ import javax.annotation.Nonnull;
  *     sc.run()
  *     sc.getCurrentString() == "ABCD"
  * </pre>
+ * <p />
+ * Frames are computed once per type, string, display length and repeat mode, and shared through
+ * {@link ScrollerFrames}. Each scroller, such as one {@link #clone()} per viewer, only keeps track
+ * of its current frame. Subclasses whose hooks may keep per instance state are not shared, see
+ * {@link #isShareable()}.
  *
  * @see #StringScroller(String, int)
  * @see #StringScroller(String, int, boolean)
@@ -47,6 +52,8 @@ public class StringScroller implements Runnable, Cloneable {
   protected int position = -1;
   private boolean reset;
   private String currentString;
+  private ScrollerFrames frames;
+  private int frame = -1;
 
   /**
    * Constructs a new {@link StringScroller} with a String and a display length, and {@code
@@ -88,13 +95,80 @@ public class StringScroller implements Runnable, Cloneable {
     if (!preRun()) {
       return;
     }
+    if (!isShareable()) {
+      nextFrame(true);
+      return;
+    }
+    ScrollerFrames frames = getFrames();
+    this.frame = frames.next(this.frame);
+    this.reset = frames.isReset(this.frame);
+    if (this.reset) {
+      onReset();
+    }
+    this.position = frames.getPosition(this.frame);
+    this.currentString = frames.getString(this.frame);
+  }
+
+  /**
+   * Returns the shared frames of this scroller, computing them on first use.
+   *
+   * @return frames
+   *
+   * @since 0.9.3
+   */
+  public ScrollerFrames getFrames() {
+    ScrollerFrames frames = this.frames;
+    if (frames == null) {
+      this.frames = frames = ScrollerFrames.of(this);
+    }
+    return frames;
+  }
+
+  /*
+   * Returns a fresh copy of this scroller to compute frames with.
+   */
+  StringScroller newFrameGenerator() {
+    StringScroller generator = clone();
+    generator.position = -1;
+    generator.reset = false;
+    generator.currentString = null;
+    generator.frames = null;
+    generator.frame = -1;
+    return generator;
+  }
+
+  /**
+   * Returns whether this scroller's frames may be computed once and shared with every scroller of
+   * the same type, see {@link ScrollerFrames}. This is only the case for {@link StringScroller}
+   * itself, as subclasses may keep state in {@link #afterResetRun()}, {@link #postRun(String)} or
+   * {@link #onReset()}. Subclasses whose hooks only depend on the string, display length and repeat
+   * mode may override this to share their frames.
+   * <p />
+   * Scrollers that are not shareable compute every frame on each {@link #run()}, calling all hooks
+   * on the instance itself.
+   *
+   * @return whether frames are shared
+   *
+   * @since 0.9.3
+   */
+  protected boolean isShareable() {
+    return getClass() == StringScroller.class;
+  }
+
+  /*
+   * Computes the frame following the current one. ScrollerFrames doesn't notify onReset(), shared
+   * frames are notified when they are displayed instead.
+   */
+  void nextFrame(boolean notifyReset) {
     if (!this.instantlyRepeat) {
       this.reset = this.position >= this.string.length();
     } else {
       this.reset = this.position >= this.string.length() - this.displayLength;
     }
     if (this.reset) {
-      onReset();
+      if (notifyReset) {
+        onReset();
+      }
       this.position = -1;
     }
     this.position++;
@@ -150,7 +224,8 @@ public class StringScroller implements Runnable, Cloneable {
   // TODO HELP I NEED A BETTER NAME BEFORE RELEASE!
 
   /**
-   * This method is called after a possible reset in the {@link #run()}.
+   * This method is called after a possible reset in the {@link #run()}. If this scroller is
+   * {@link #isShareable() shareable}, this is only called while computing {@link #getFrames()}.
    */
   protected void afterResetRun() {
   }
@@ -159,7 +234,8 @@ public class StringScroller implements Runnable, Cloneable {
    * This method is called after the next string has been generated, which is passed to this
    * method.
    * Use this method to modify the final string. By default, the string that is passed is returned
-   * directly, causing absolutely no change.
+   * directly, causing absolutely no change. If this scroller is {@link #isShareable() shareable},
+   * this is only called while computing {@link #getFrames()}.
    *
    * @param string new generated string
    *
@@ -0,0 +1,252 @@
+package com.supaham.commons.collections;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.supaham.commons.utils.RandomSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents a {@link WeightedRandom} whose elements and weights may change at any time. Weights
+ * are kept in a Fenwick tree (binary indexed tree), so that {@link #set(Object, double)},
+ * {@link #remove(Object)} and {@link #next(RandomSource)} all run in logarithmic time.
+ * <p />
+ * This class is not thread safe.
+ *
+ * @param <T> type of elements
+ *
+ * @see WeightedRandom#builder()
+ * @since 0.9.3
+ */
+public class MutableWeightedRandom<T> extends WeightedRandom<T> {
+
+  private final Map<T, Integer> indices;
+  private Object[] elements;
+  private double[] weights;
+  private double[] tree; // 1-based, tree.length == elements.length + 1
+  private int size;
+  private int positive; // amount of elements whose weight is greater than 0
+  private double total;
+  private int updates;
+
+  public MutableWeightedRandom() {
+    this(16);
+  }
+
+  /**
+   * @param initialCapacity amount of elements to allocate space for
+   */
+  public MutableWeightedRandom(int initialCapacity) {
+    checkArgument(initialCapacity >= 0, "initial capacity cannot be negative.");
+    int capacity = Math.max(initialCapacity, 1);
+    this.indices = new HashMap<>(capacity);
+    this.elements = new Object[capacity];
+    this.weights = new double[capacity];
+    this.tree = new double[capacity + 1];
+  }
+
+  /**
+   * Sets the weight of an element, adding the element if it is not already present.
+   *
+   * @param element element to set
+   * @param weight weight of the element
+   *
+   * @return the previous weight of the element, or 0 if it was not present
+   */
+  public double set(@Nonnull T element, double weight) {
+    checkNotNull(element, "element cannot be null.");
+    checkWeight(weight);
+    Integer index = this.indices.get(element);
+    if (index == null) {
+      if (this.size == this.elements.length) {
+        grow();
+      }
+      index = this.size++;
+      this.indices.put(element, index);
+      this.elements[index] = element;
+    }
+    double previous = this.weights[index];
+    this.weights[index] = weight;
+    this.positive += (weight > 0 ? 1 : 0) - (previous > 0 ? 1 : 0);
+    update(index, weight - previous);
+    return previous;
+  }
+
+  /**
+   * Adds to the weight of an element, adding the element if it is not already present.
+   *
+   * @param element element to add weight to
+   * @param weight weight to add, may be negative as long as the result isn't
+   *
+   * @return the new weight of the element
+   */
+  public double add(@Nonnull T element, double weight) {
+    double result = getWeight(element) + weight;
+    set(element, result);
+    return result;
+  }
+
+  /**
+   * Removes an element.
+   *
+   * @param element element to remove
+   *
+   * @return the weight of the removed element, or 0 if it was not present
+   */
+  public double remove(Object element) {
+    Integer index = this.indices.remove(element);
+    if (index == null) {
+      return 0;
+    }
+    double weight = this.weights[index];
+    if (weight > 0) {
+      this.positive--;
+    }
+    int last = --this.size;
+    if (index != last) {
+      // Move the last element into the vacated slot to keep elements contiguous.
+      @SuppressWarnings("unchecked")
+      T moved = (T) this.elements[last];
+      double movedWeight = this.weights[last];
+      this.elements[index] = moved;
+      this.weights[index] = movedWeight;
+      this.indices.put(moved, index);
+      this.elements[last] = null;
+      this.weights[last] = 0;
+      update(index, movedWeight - weight);
+      update(last, -movedWeight);
+    } else {
+      this.elements[last] = null;
+      this.weights[last] = 0;
+      update(index, -weight);
+    }
+    return weight;
+  }
+
+  /**
+   * Returns whether the given element is in this instance.
+   *
+   * @param element element to check
+   *
+   * @return true if the element is present
+   */
+  public boolean contains(Object element) {
+    return this.indices.containsKey(element);
+  }
+
+  /**
+   * Removes all elements.
+   */
+  public void clear() {
+    this.indices.clear();
+    Arrays.fill(this.elements, 0, this.size, null);
+    Arrays.fill(this.weights, 0, this.size, 0);
+    Arrays.fill(this.tree, 0);
+    this.size = 0;
+    this.positive = 0;
+    this.total = 0;
+    this.updates = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public T next(@Nonnull RandomSource source) {
+    checkNotNull(source, "source cannot be null.");
+    checkState(this.positive > 0, "total weight must be greater than 0.");
+    double remaining = source.nextDouble() * this.total;
+    int capacity = this.elements.length;
+    // Descend the implicit tree to find the first index whose prefix sum exceeds remaining.
+    int index = 0;
+    for (int step = Integer.highestOneBit(capacity); step > 0; step >>= 1) {
+      int next = index + step;
+      if (next <= capacity && this.tree[next] <= remaining) {
+        index = next;
+        remaining -= this.tree[next];
+      }
+    }
+    // Floating point error may push us past the end or onto a zero weight element.
+    if (index >= this.size) {
+      index = this.size - 1;
+    }
+    while (index > 0 && this.weights[index] == 0) {
+      index--;
+    }
+    while (this.weights[index] == 0) {
+      index++; // There is a positive weight, we landed below the first one.
+    }
+    return (T) this.elements[index];
+  }
+
+  @Override public double getWeight(Object element) {
+    Integer index = this.indices.get(element);
+    return index == null ? 0 : this.weights[index];
+  }
+
+  @Override public double getTotalWeight() {
+    return this.total;
+  }
+
+  @Override public int size() {
+    return this.size;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public Map<T, Double> getWeights() {
+    Map<T, Double> map = new LinkedHashMap<>();
+    for (int i = 0; i < this.size; i++) {
+      map.put((T) this.elements[i], this.weights[i]);
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+  private void update(int index, double delta) {
+    if (this.positive == 0) {
+      // Every weight is 0, don't leave rounding errors of the removed weights behind.
+      if (delta != 0 || this.total != 0) {
+        Arrays.fill(this.tree, 0);
+        this.total = 0;
+        this.updates = 0;
+      }
+      return;
+    }
+    this.total += delta;
+    for (int i = index + 1; i < this.tree.length; i += i & -i) {
+      this.tree[i] += delta;
+    }
+    // Rebuild every so often so that rounding errors in the sums don't accumulate.
+    if (++this.updates > Math.max(1024, this.elements.length)) {
+      rebuild();
+    }
+  }
+
+  private void grow() {
+    int capacity = this.elements.length * 2;
+    this.elements = Arrays.copyOf(this.elements, capacity);
+    this.weights = Arrays.copyOf(this.weights, capacity);
+    this.tree = new double[capacity + 1];
+    rebuild();
+  }
+
+  private void rebuild() {
+    Arrays.fill(this.tree, 0);
+    double total = 0;
+    for (int i = 1; i < this.tree.length; i++) {
+      double weight = this.weights[i - 1];
+      total += weight;
+      this.tree[i] += weight;
+      int parent = i + (i & -i);
+      if (parent < this.tree.length) {
+        this.tree[parent] += this.tree[i];
+      }
+    }
+    this.total = total;
+    this.updates = 0;
+  }
+}
@@ -0,0 +1,302 @@
+package com.supaham.commons.collections;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.supaham.commons.utils.RandomSource;
+import com.supaham.commons.utils.RandomUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents a collection of elements that may be picked at random, proportionally to their
+ * weights. For example, an element with the weight 3 is picked three times as often as an element
+ * with the weight 1.
+ * <p />
+ * Instances returned by {@link #of(Map)} and {@link Builder#build()} are immutable and pick
+ * elements in constant time using Vose's alias method, making them suitable for loot tables and
+ * other weights that rarely change. Weights that change frequently should use a
+ * {@link MutableWeightedRandom} instead, which updates and picks in logarithmic time.
+ *
+ * @param <T> type of elements
+ *
+ * @see MutableWeightedRandom
+ * @see RandomUtils#nextWeighted(Map)
+ * @since 0.9.3
+ */
+public abstract class WeightedRandom<T> {
+
+  /**
+   * Returns a new immutable {@link WeightedRandom} of the given elements and their weights.
+   *
+   * @param weights map of elements to their weights
+   * @param <T> type of elements
+   *
+   * @return new weighted random
+   */
+  public static <T> WeightedRandom<T> of(@Nonnull Map<? extends T, ? extends Number> weights) {
+    return WeightedRandom.<T>builder().addAll(weights).build();
+  }
+
+  /**
+   * Returns a new {@link Builder}.
+   *
+   * @param <T> type of elements
+   *
+   * @return new builder
+   */
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  static double checkWeight(double weight) {
+    checkArgument(weight >= 0 && !Double.isInfinite(weight) && !Double.isNaN(weight),
+                  "weight must be a finite, non-negative number.");
+    return weight;
+  }
+
+  WeightedRandom() {}
+
+  /**
+   * Picks a random element using the given {@link RandomSource}.
+   *
+   * @param source random source to use
+   *
+   * @return the picked element
+   *
+   * @throws IllegalStateException thrown if the total weight of this instance is 0
+   */
+  public abstract T next(@Nonnull RandomSource source) throws IllegalStateException;
+
+  /**
+   * Returns the weight of the given element.
+   *
+   * @param element element to get weight for
+   *
+   * @return weight, or 0 if the element is not in this instance
+   */
+  public abstract double getWeight(Object element);
+
+  /**
+   * Returns the sum of all the weights in this instance.
+   *
+   * @return total weight
+   */
+  public abstract double getTotalWeight();
+
+  /**
+   * Returns the amount of elements in this instance.
+   *
+   * @return amount of elements
+   */
+  public abstract int size();
+
+  /**
+   * Returns an immutable snapshot of the elements in this instance mapped to their weights.
+   *
+   * @return map of elements to weights
+   */
+  public abstract Map<T, Double> getWeights();
+
+  /**
+   * Picks a random element using {@link RandomUtils#getSource()}.
+   *
+   * @return the picked element
+   *
+   * @throws IllegalStateException thrown if the total weight of this instance is 0
+   */
+  public T next() throws IllegalStateException {
+    return next(RandomUtils.getSource());
+  }
+
+  /**
+   * Picks a random element using the given {@link Random}.
+   *
+   * @param random random instance to use
+   *
+   * @return the picked element
+   *
+   * @throws IllegalStateException thrown if the total weight of this instance is 0
+   */
+  public T next(@Nonnull Random random) throws IllegalStateException {
+    return next(RandomSource.of(random));
+  }
+
+  /**
+   * Returns the probability of the given element being picked.
+   *
+   * @param element element to get probability for
+   *
+   * @return probability between 0 and 1
+   */
+  public double getProbability(Object element) {
+    double total = getTotalWeight();
+    return total == 0 ? 0 : getWeight(element) / total;
+  }
+
+  /**
+   * Returns whether this instance has no elements.
+   *
+   * @return true if there are no elements
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override public String toString() {
+    return getClass().getSimpleName() + getWeights();
+  }
+
+  /**
+   * Represents a {@link WeightedRandom} builder. Adding the same element more than once sums its
+   * weights.
+   *
+   * @param <T> type of elements
+   */
+  public static final class Builder<T> {
+
+    private final Map<T, Double> weights = new LinkedHashMap<>();
+
+    private Builder() {}
+
+    public Builder<T> add(@Nonnull T element, double weight) {
+      checkNotNull(element, "element cannot be null.");
+      this.weights.merge(element, checkWeight(weight), Double::sum);
+      return this;
+    }
+
+    public Builder<T> addAll(@Nonnull Map<? extends T, ? extends Number> weights) {
+      checkNotNull(weights, "weights cannot be null.");
+      for (Entry<? extends T, ? extends Number> entry : weights.entrySet()) {
+        checkNotNull(entry.getValue(), "weight cannot be null.");
+        add(entry.getKey(), entry.getValue().doubleValue());
+      }
+      return this;
+    }
+
+    /**
+     * Builds an immutable {@link WeightedRandom} using alias tables.
+     *
+     * @return new weighted random
+     */
+    public WeightedRandom<T> build() {
+      return new Alias<>(this.weights);
+    }
+
+    /**
+     * Builds a {@link MutableWeightedRandom} containing the elements of this builder.
+     *
+     * @return new mutable weighted random
+     */
+    public MutableWeightedRandom<T> buildMutable() {
+      MutableWeightedRandom<T> random = new MutableWeightedRandom<>(this.weights.size());
+      this.weights.forEach(random::set);
+      return random;
+    }
+  }
+
+  /*
+   * Vose's alias method. Each of the n columns holds its own element with probability
+   * probabilities[i] and its alias otherwise, so one uniform draw picks a column and the fraction
+   * left over decides between the two.
+   */
+  private static final class Alias<T> extends WeightedRandom<T> {
+
+    private final Object[] elements;
+    private final double[] probabilities;
+    private final int[] aliases;
+    private final double total;
+    private final Map<T, Double> weightsMap;
+
+    public Alias(Map<T, Double> map) {
+      int n = map.size();
+      this.elements = map.keySet().toArray();
+      this.probabilities = new double[n];
+      this.aliases = new int[n];
+      this.weightsMap = Collections.unmodifiableMap(new LinkedHashMap<>(map));
+
+      double[] weights = new double[n];
+      double total = 0;
+      int i = 0;
+      for (Double weight : map.values()) {
+        total += (weights[i++] = weight);
+      }
+      this.total = total;
+      if (total == 0) {
+        return;
+      }
+
+      // Scaled probabilities, split into a stack of small (< 1) and large (>= 1) columns.
+      double[] scaled = new double[n];
+      int[] small = new int[n];
+      int[] large = new int[n];
+      int smallSize = 0;
+      int largeSize = 0;
+      for (i = 0; i < n; i++) {
+        scaled[i] = weights[i] * n / total;
+        if (scaled[i] < 1) {
+          small[smallSize++] = i;
+        } else {
+          large[largeSize++] = i;
+        }
+      }
+      while (smallSize > 0 && largeSize > 0) {
+        int less = small[--smallSize];
+        int more = large[--largeSize];
+        this.probabilities[less] = scaled[less];
+        this.aliases[less] = more;
+        scaled[more] = (scaled[more] + scaled[less]) - 1;
+        if (scaled[more] < 1) {
+          small[smallSize++] = more;
+        } else {
+          large[largeSize++] = more;
+        }
+      }
+      // Whatever remains is 1 give or take floating point error.
+      while (largeSize > 0) {
+        int index = large[--largeSize];
+        this.probabilities[index] = 1;
+        this.aliases[index] = index;
+      }
+      while (smallSize > 0) {
+        int index = small[--smallSize];
+        this.probabilities[index] = 1;
+        this.aliases[index] = index;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public T next(@Nonnull RandomSource source) {
+      checkNotNull(source, "source cannot be null.");
+      checkState(this.total > 0, "total weight must be greater than 0.");
+      double u = source.nextDouble() * this.elements.length;
+      int column = (int) u;
+      return (T) this.elements[u - column < this.probabilities[column] ? column
+                                                                      : this.aliases[column]];
+    }
+
+    @Override public double getWeight(Object element) {
+      Double weight = this.weightsMap.get(element);
+      return weight == null ? 0 : weight;
+    }
+
+    @Override public double getTotalWeight() {
+      return this.total;
+    }
+
+    @Override public int size() {
+      return this.elements.length;
+    }
+
+    @Override public Map<T, Double> getWeights() {
+      return this.weightsMap;
+    }
+  }
+}
@@ -0,0 +1,368 @@
+package com.supaham.commons.events;
+
+import com.google.common.base.Preconditions;
+
+import com.supaham.commons.utils.ReflectionUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents a platform independent event bus. Any object may be posted as an event, and is
+ * passed to every handler of its type or supertypes, ordered by {@link EventPriority}, then by
+ * registration order.
+ * <p />
+ * Handlers are collected into an array per posted event type, which is rebuilt only after
+ * handlers are registered or unregistered. {@link Subscribe} methods are invoked through classes
+ * generated by {@link LambdaMetafactory}, falling back to {@link MethodHandle}s for methods that
+ * aren't publicly accessible. Posting never uses reflection.
+ * <p />
+ * Exceptions thrown by handlers are passed to the exception handler, and don't stop the event
+ * from reaching other handlers.
+ *
+ * @see Subscribe
+ * @since 0.9.3
+ */
+public class EventBus {
+
+  private static final Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+  private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class,
+                                                                       Object.class);
+  private static final Handler[] NO_HANDLERS = new Handler[0];
+  private static final Comparator<Handler> ORDER = Comparator
+      .<Handler>comparingInt(h -> h.priority.ordinal()).thenComparingLong(h -> h.sequence);
+
+  private final Executor executor;
+  private final BiConsumer<Throwable, Object> exceptionHandler;
+
+  private final Object lock = new Object();
+  // Guarded by lock.
+  private final Map<Class<?>, List<Handler>> handlers = new HashMap<>();
+  private long sequence;
+  // Written under lock, read without.
+  private final ConcurrentMap<Class<?>, Handler[]> baked = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a new {@link EventBus} that posts asynchronous events to the
+   * {@link ForkJoinPool#commonPool()} and logs handler exceptions.
+   */
+  public EventBus() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a new {@link EventBus} that posts asynchronous events to the given executor and
+   * logs handler exceptions.
+   *
+   * @param executor executor of {@link #postAsync(Object)}
+   */
+  public EventBus(@Nonnull Executor executor) {
+    this(executor, (t, event) -> LOGGER.log(Level.SEVERE, "Could not pass " + event, t));
+  }
+
+  /**
+   * Constructs a new {@link EventBus}.
+   *
+   * @param executor executor of {@link #postAsync(Object)}
+   * @param exceptionHandler handler of exceptions thrown by event handlers, given the exception
+   * and the event
+   */
+  public EventBus(@Nonnull Executor executor,
+                  @Nonnull BiConsumer<Throwable, Object> exceptionHandler) {
+    this.executor = Preconditions.checkNotNull(executor, "executor cannot be null.");
+    this.exceptionHandler = Preconditions.checkNotNull(exceptionHandler,
+                                                       "exceptionHandler cannot be null.");
+  }
+
+  /**
+   * Registers every {@link Subscribe} method of the given listener.
+   *
+   * @param listener listener to register
+   *
+   * @throws IllegalArgumentException thrown if a {@link Subscribe} method is static or doesn't
+   * take exactly one parameter
+   */
+  public void register(@Nonnull Object listener) {
+    Preconditions.checkNotNull(listener, "listener cannot be null.");
+    List<Handler> found = new ArrayList<>();
+    for (Method method : ReflectionUtils.getUniqueDeclaredMethods(
+        listener.getClass(), Collections.singleton(Object.class))) {
+      Subscribe subscribe = method.getAnnotation(Subscribe.class);
+      if (subscribe == null) {
+        continue;
+      }
+      Preconditions.checkArgument(!Modifier.isStatic(method.getModifiers()),
+                                  "%s cannot be static.", method);
+      Preconditions.checkArgument(method.getParameterCount() == 1,
+                                  "%s must have exactly one parameter.", method);
+      found.add(new Handler(method.getParameterTypes()[0], listener, createInvoker(method),
+                            subscribe.priority(), subscribe.ignoreCancelled()));
+    }
+    add(found);
+  }
+
+  /**
+   * Registers a handler of the given event type with {@link EventPriority#NORMAL} priority.
+   *
+   * @param eventType type of event to handle, subtypes are handled too
+   * @param handler handler of events, also used to {@link #unregister(Object)}
+   * @param <E> type of event
+   *
+   * @return {@code handler}
+   */
+  @Nonnull
+  public <E> Consumer<? super E> subscribe(@Nonnull Class<E> eventType,
+                                           @Nonnull Consumer<? super E> handler) {
+    return subscribe(eventType, handler, EventPriority.NORMAL, false);
+  }
+
+  /**
+   * Registers a handler of the given event type.
+   *
+   * @param eventType type of event to handle, subtypes are handled too
+   * @param handler handler of events, also used to {@link #unregister(Object)}
+   * @param priority priority of the handler
+   * @param ignoreCancelled whether the handler should not be called for cancelled events
+   * @param <E> type of event
+   *
+   * @return {@code handler}
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  public <E> Consumer<? super E> subscribe(@Nonnull Class<E> eventType,
+                                           @Nonnull Consumer<? super E> handler,
+                                           @Nonnull EventPriority priority,
+                                           boolean ignoreCancelled) {
+    Preconditions.checkNotNull(eventType, "eventType cannot be null.");
+    Preconditions.checkNotNull(handler, "handler cannot be null.");
+    Preconditions.checkNotNull(priority, "priority cannot be null.");
+    Invoker invoker = (listener, event) -> ((Consumer<Object>) listener).accept(event);
+    add(Collections.singletonList(new Handler(eventType, handler, invoker, priority,
+                                              ignoreCancelled)));
+    return handler;
+  }
+
+  /**
+   * Unregisters every handler of the given listener, or the given handler passed to
+   * {@link #subscribe(Class, Consumer)}.
+   *
+   * @param listener listener to unregister
+   *
+   * @return whether any handlers were unregistered
+   */
+  public boolean unregister(@Nonnull Object listener) {
+    Preconditions.checkNotNull(listener, "listener cannot be null.");
+    boolean removed = false;
+    synchronized (this.lock) {
+      for (Iterator<List<Handler>> it = this.handlers.values().iterator(); it.hasNext(); ) {
+        List<Handler> list = it.next();
+        removed |= list.removeIf(handler -> handler.listener == listener);
+        if (list.isEmpty()) {
+          it.remove();
+        }
+      }
+      if (removed) {
+        this.baked.clear();
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Posts an event to its handlers in the current thread.
+   *
+   * @param event event to post
+   * @param <E> type of event
+   *
+   * @return {@code event}
+   */
+  @Nonnull
+  public <E> E post(@Nonnull E event) {
+    Preconditions.checkNotNull(event, "event cannot be null.");
+    Handler[] handlers = getHandlers(event.getClass());
+    Cancellable cancellable = event instanceof Cancellable ? (Cancellable) event : null;
+    for (Handler handler : handlers) {
+      if (handler.ignoreCancelled && cancellable != null && cancellable.isCancelled()) {
+        continue;
+      }
+      try {
+        handler.invoker.invoke(handler.listener, event);
+      } catch (Throwable t) {
+        this.exceptionHandler.accept(t, event);
+      }
+    }
+    return event;
+  }
+
+  /**
+   * Posts an event to its handlers using this bus's executor.
+   *
+   * @param event event to post
+   * @param <E> type of event
+   *
+   * @return future of {@code event}, completed once every handler has been called
+   */
+  @Nonnull
+  public <E> CompletableFuture<E> postAsync(@Nonnull E event) {
+    return postAsync(event, this.executor);
+  }
+
+  /**
+   * Posts an event to its handlers using the given executor.
+   *
+   * @param event event to post
+   * @param executor executor to call handlers in
+   * @param <E> type of event
+   *
+   * @return future of {@code event}, completed once every handler has been called
+   */
+  @Nonnull
+  public <E> CompletableFuture<E> postAsync(@Nonnull E event, @Nonnull Executor executor) {
+    Preconditions.checkNotNull(event, "event cannot be null.");
+    Preconditions.checkNotNull(executor, "executor cannot be null.");
+    return CompletableFuture.supplyAsync(() -> post(event), executor);
+  }
+
+  /**
+   * Returns whether any handler would receive an event of the given type. Useful to avoid
+   * creating events nobody listens to.
+   *
+   * @param eventType type of event
+   *
+   * @return whether the event type has handlers
+   */
+  public boolean hasHandlers(@Nonnull Class<?> eventType) {
+    Preconditions.checkNotNull(eventType, "eventType cannot be null.");
+    return getHandlers(eventType).length > 0;
+  }
+
+  private void add(List<Handler> added) {
+    if (added.isEmpty()) {
+      return;
+    }
+    synchronized (this.lock) {
+      for (Handler handler : added) {
+        handler.sequence = this.sequence++;
+        this.handlers.computeIfAbsent(handler.eventType, t -> new ArrayList<>()).add(handler);
+      }
+      this.baked.clear();
+    }
+  }
+
+  private Handler[] getHandlers(Class<?> eventType) {
+    Handler[] handlers = this.baked.get(eventType);
+    if (handlers != null) {
+      return handlers;
+    }
+    // Bake under the lock, so that a concurrent (un)registration can't be overwritten.
+    synchronized (this.lock) {
+      List<Handler> list = new ArrayList<>();
+      for (Map.Entry<Class<?>, List<Handler>> entry : this.handlers.entrySet()) {
+        if (entry.getKey().isAssignableFrom(eventType)) {
+          list.addAll(entry.getValue());
+        }
+      }
+      handlers = list.isEmpty() ? NO_HANDLERS : list.toArray(new Handler[list.size()]);
+      Arrays.sort(handlers, ORDER);
+      this.baked.put(eventType, handlers);
+      return handlers;
+    }
+  }
+
+  private static Invoker createInvoker(Method method) {
+    Class<?> declaringClass = method.getDeclaringClass();
+    Class<?> eventType = method.getParameterTypes()[0];
+    try {
+      if (isAccessible(declaringClass) && isAccessible(eventType)
+          && Modifier.isPublic(method.getModifiers())) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        CallSite site = LambdaMetafactory.metafactory(
+            lookup, "invoke", MethodType.methodType(Invoker.class), INVOKER_TYPE,
+            lookup.unreflect(method), MethodType.methodType(void.class, declaringClass, eventType));
+        return (Invoker) site.getTarget().invoke();
+      }
+    } catch (Throwable ignored) {
+      // Fall back to a method handle below.
+    }
+    try {
+      method.setAccessible(true);
+      MethodHandle handle = MethodHandles.lookup().unreflect(method).asType(INVOKER_TYPE);
+      return (listener, event) -> {
+        handle.invokeExact(listener, event); // Statement, so the call site is typed as void.
+      };
+    } catch (IllegalAccessException | RuntimeException e) {
+      throw new IllegalArgumentException("Cannot access " + method, e);
+    }
+  }
+
+  /*
+   * Generated invokers are defined alongside EventBus, so the class must be public and visible
+   * from our class loader, which isn't the case for classes of plugins that shade commons.
+   */
+  private static boolean isAccessible(Class<?> clazz) {
+    if (clazz.isPrimitive() || !Modifier.isPublic(clazz.getModifiers())) {
+      return false;
+    }
+    for (Class<?> c = clazz.getEnclosingClass(); c != null; c = c.getEnclosingClass()) {
+      if (!Modifier.isPublic(c.getModifiers())) {
+        return false;
+      }
+    }
+    try {
+      return Class.forName(clazz.getName(), false, EventBus.class.getClassLoader()) == clazz;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  /*
+   * Implemented by generated classes, hence not private.
+   */
+  interface Invoker {
+
+    void invoke(Object listener, Object event) throws Throwable;
+  }
+
+  private static final class Handler {
+
+    private final Class<?> eventType;
+    private final Object listener;
+    private final Invoker invoker;
+    private final EventPriority priority;
+    private final boolean ignoreCancelled;
+    private long sequence;
+
+    public Handler(Class<?> eventType, Object listener, Invoker invoker, EventPriority priority,
+                   boolean ignoreCancelled) {
+      this.eventType = eventType;
+      this.listener = listener;
+      this.invoker = invoker;
+      this.priority = priority;
+      this.ignoreCancelled = ignoreCancelled;
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.supaham.commons.events;
+
+/**
+ * Represents the priority of a {@link Subscribe} handler. Handlers are called from
+ * {@link #LOWEST} to {@link #MONITOR}, so the handler with the highest priority has the final say.
+ *
+ * @see Subscribe#priority()
+ * @since 0.9.3
+ */
+public enum EventPriority {
+  /**
+   * Called first, the handler's decisions are likely to be overridden.
+   */
+  LOWEST,
+  LOW,
+  NORMAL,
+  HIGH,
+  /**
+   * Called last before {@link #MONITOR}, the handler has the final say.
+   */
+  HIGHEST,
+  /**
+   * Called last, for observing the outcome of an event. Handlers of this priority should not
+   * modify the event.
+   */
+  MONITOR
+}
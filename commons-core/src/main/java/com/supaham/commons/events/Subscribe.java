@@ -0,0 +1,36 @@
+package com.supaham.commons.events;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method as an event handler of an {@link EventBus}. The method must not be static and
+ * must take exactly one parameter, the type of event to handle. Subtypes of that type are handled
+ * too.
+ *
+ * @see EventBus#register(Object)
+ * @since 0.9.3
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Subscribe {
+
+  /**
+   * Returns the priority of this handler.
+   *
+   * @return priority
+   */
+  EventPriority priority() default EventPriority.NORMAL;
+
+  /**
+   * Returns whether this handler should not be called for {@link Cancellable} events that have
+   * been cancelled.
+   *
+   * @return whether to ignore cancelled events
+   */
+  boolean ignoreCancelled() default false;
+}
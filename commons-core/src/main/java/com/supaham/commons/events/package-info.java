@@ -1,4 +1,4 @@
 /**
- * <b>This package is currently unused and may be removed in the future.</b>
+ * Platform independent events, dispatched by an {@link com.supaham.commons.events.EventBus}.
  */
 package com.supaham.commons.events;
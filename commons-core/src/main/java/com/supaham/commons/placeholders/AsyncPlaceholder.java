@@ -0,0 +1,161 @@
+package com.supaham.commons.placeholders;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Represents a {@link SimplePlaceholder} whose value is computed asynchronously, such as one backed
+ * by a database or another server. Implementations provide {@link #applyAsync(PlaceholderData)}
+ * instead of {@link #apply(PlaceholderData)}.
+ * <p />
+ * When rendered through {@link PlaceholderSet#applyAsync(PlaceholderData)}, all asynchronous
+ * placeholders of a template are started at once and awaited together. Each placeholder has its
+ * own timeout, after which its fallback is used instead, so one slow source can't stall the whole
+ * template. When rendered synchronously, {@link #apply(PlaceholderData)} blocks for at most the
+ * timeout.
+ *
+ * @since 0.9.3
+ */
+public abstract class AsyncPlaceholder extends SimplePlaceholder {
+
+  private final long timeout;
+  private final TimeUnit unit;
+  private final String fallback;
+
+  /**
+   * @param timeout duration to wait for a result before using the {@code fallback}
+   * @param unit unit of {@code timeout}
+   * @param fallback string to use when the result is late or has failed
+   * @param placeholders placeholders this placeholder handles
+   */
+  public AsyncPlaceholder(long timeout, @Nonnull TimeUnit unit, @Nonnull String fallback,
+                          @Nonnull String... placeholders) {
+    super(placeholders);
+    checkNotNull(unit, "unit cannot be null.");
+    checkNotNull(fallback, "fallback cannot be null.");
+    checkArgument(timeout > 0, "timeout must be positive: %s %s", timeout, unit);
+    this.timeout = timeout;
+    this.unit = unit;
+    this.fallback = new String(fallback); // Own instance, see isFallback(String).
+  }
+
+  /**
+   * Starts computing the string to replace the current {@link PlaceholderData#getPlaceholder()}
+   * with. Since the same {@link PlaceholderData} is reused for every placeholder in a template,
+   * implementations must read anything they need from {@code input} before returning.
+   *
+   * @param input placeholder data
+   *
+   * @return future of the replacement string, or null if this placeholder does not handle the
+   * input
+   */
+  @Nullable
+  public abstract CompletableFuture<String> applyAsync(@Nonnull PlaceholderData input);
+
+  /**
+   * {@inheritDoc} This blocks the calling thread until the result of
+   * {@link #applyAsync(PlaceholderData)} is available, or the timeout has passed.
+   */
+  @Nullable
+  @Override
+  public String apply(PlaceholderData input) {
+    CompletableFuture<String> future = applyAsync(input);
+    if (future == null) {
+      return null;
+    }
+    try {
+      return future.get(this.timeout, this.unit);
+    } catch (TimeoutException | ExecutionException | CancellationException e) {
+      return this.fallback;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return this.fallback;
+    }
+  }
+
+  /**
+   * Calls {@link #applyAsync(PlaceholderData)} and bounds the returned future by this
+   * placeholder's timeout. The returned future never completes exceptionally; failures and late
+   * results complete it with the fallback instead.
+   *
+   * @param input placeholder data
+   *
+   * @return future of the replacement string, or null if this placeholder does not handle the
+   * input
+   */
+  @Nullable
+  public CompletableFuture<String> resolve(@Nonnull PlaceholderData input) {
+    CompletableFuture<String> future;
+    try {
+      future = applyAsync(input);
+    } catch (RuntimeException e) {
+      return CompletableFuture.completedFuture(this.fallback);
+    }
+    if (future == null) {
+      return null;
+    }
+    final CompletableFuture<String> result = new CompletableFuture<>();
+    final ScheduledFuture<?> timeoutTask = Timeouts.SCHEDULER.schedule(new Runnable() {
+      @Override public void run() {
+        result.complete(fallback);
+      }
+    }, this.timeout, this.unit);
+    future.whenComplete((string, throwable) -> {
+      timeoutTask.cancel(false);
+      result.complete(throwable != null ? this.fallback : string);
+    });
+    return result;
+  }
+
+  /**
+   * Gets the duration to wait for a result before using the fallback.
+   *
+   * @param unit unit to return the timeout in
+   *
+   * @return timeout
+   */
+  public long getTimeout(@Nonnull TimeUnit unit) {
+    return unit.convert(this.timeout, this.unit);
+  }
+
+  /**
+   * Gets the string used when a result is late or has failed.
+   *
+   * @return fallback string
+   */
+  @Nonnull
+  public String getFallback() {
+    return fallback;
+  }
+
+  /*
+   * Returns whether the given result is this placeholder's fallback, as opposed to a computed
+   * result that happens to equal it.
+   */
+  boolean isFallback(@Nullable String result) {
+    return result == this.fallback;
+  }
+
+  // Lazily started, only when an AsyncPlaceholder is actually resolved.
+  private static final class Timeouts {
+
+    private static final ScheduledExecutorService SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("AsyncPlaceholder-timeouts").setDaemon(true)
+                .build());
+  }
+}
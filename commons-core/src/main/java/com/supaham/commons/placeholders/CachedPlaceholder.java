@@ -0,0 +1,314 @@
+package com.supaham.commons.placeholders;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Represents a {@link Placeholder} that memoizes the results of another {@link Placeholder} for a
+ * fixed amount of time. This is useful for expensive placeholders such as database backed
+ * statistics, whose values rarely change between two messages.
+ * <p />
+ * Results are cached per placeholder string and, optionally, per scope. A scope is an object taken
+ * from the {@link PlaceholderData} locals, such as a player's {@link java.util.UUID}, allowing
+ * viewer specific placeholders to be cached per viewer. Without a scope, results are shared
+ * globally. Null results are never cached.
+ * <p />
+ * Example usage:
+ * <pre>
+ * Placeholder kills = CachedPlaceholder.builder(new KillsPlaceholder())
+ *     .ttl(30, TimeUnit.SECONDS)
+ *     .scope(UUID.class)
+ *     .build();
+ * </pre>
+ *
+ * @since 0.9.3
+ */
+public class CachedPlaceholder implements Placeholder {
+
+  private final Placeholder delegate;
+  private final Function<PlaceholderData, Object> scope;
+  private final Cache<Entry<String, Object>, String> cache;
+
+  /**
+   * Creates a new {@link Builder} for constructing a {@link CachedPlaceholder} of the given
+   * {@link Placeholder}.
+   *
+   * @param delegate placeholder to cache the results of
+   *
+   * @return {@link Builder} instance
+   */
+  public static Builder builder(@Nonnull Placeholder delegate) {
+    return new Builder(delegate);
+  }
+
+  /**
+   * Constructs a globally scoped {@link CachedPlaceholder}.
+   *
+   * @param delegate placeholder to cache the results of
+   * @param ttl duration to keep results for
+   * @param unit unit of {@code ttl}
+   */
+  public CachedPlaceholder(@Nonnull Placeholder delegate, long ttl, @Nonnull TimeUnit unit) {
+    this(delegate, ttl, unit, null, Builder.DEFAULT_MAXIMUM_SIZE);
+  }
+
+  private CachedPlaceholder(@Nonnull Placeholder delegate, long ttl, @Nonnull TimeUnit unit,
+                            @Nullable Function<PlaceholderData, Object> scope, long maximumSize) {
+    checkNotNull(delegate, "delegate cannot be null.");
+    checkNotNull(unit, "unit cannot be null.");
+    checkArgument(ttl > 0, "ttl must be positive: %s %s", ttl, unit);
+    this.delegate = delegate;
+    this.scope = scope;
+    this.cache = CacheBuilder.newBuilder()
+        .expireAfterWrite(ttl, unit)
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * {@inheritDoc} The result is taken from the cache if present, otherwise it is computed by the
+   * delegate placeholder and cached. The fallback of an {@link AsyncPlaceholder} delegate is not
+   * cached, so the next lookup tries again.
+   */
+  @Nullable
+  @Override
+  public String apply(PlaceholderData input) {
+    final Entry<String, Object> key = cacheKey(input);
+    if (key == null) {
+      return this.delegate.apply(input);
+    }
+    String result = this.cache.getIfPresent(key);
+    if (result == null) {
+      result = this.delegate.apply(input);
+      if (result != null && !isFallback(result)) {
+        this.cache.put(key, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Resolves the input like {@link AsyncPlaceholder#resolve(PlaceholderData)} when the delegate is
+   * asynchronous, serving the result from the cache if present and caching it otherwise.
+   *
+   * @param input placeholder data
+   *
+   * @return future of the replacement string, or null if the delegate does not handle the input
+   */
+  @Nullable
+  CompletableFuture<String> resolve(@Nonnull PlaceholderData input) {
+    final Entry<String, Object> key = cacheKey(input);
+    if (key != null) {
+      String result = this.cache.getIfPresent(key);
+      if (result != null) {
+        return CompletableFuture.completedFuture(result);
+      }
+    }
+    CompletableFuture<String> future = this.delegate instanceof CachedPlaceholder
+                                       ? ((CachedPlaceholder) this.delegate).resolve(input)
+                                       : ((AsyncPlaceholder) this.delegate).resolve(input);
+    if (future == null || key == null) {
+      return future;
+    }
+    return future.thenApply(result -> {
+      if (result != null && !isFallback(result)) {
+        this.cache.put(key, result);
+      }
+      return result;
+    });
+  }
+
+  /*
+   * Returns whether the given result is the fallback of an AsyncPlaceholder delegate.
+   */
+  boolean isFallback(@Nullable String result) {
+    if (this.delegate instanceof CachedPlaceholder) {
+      return ((CachedPlaceholder) this.delegate).isFallback(result);
+    }
+    return this.delegate instanceof AsyncPlaceholder
+           && ((AsyncPlaceholder) this.delegate).isFallback(result);
+  }
+
+  @Nullable
+  private Entry<String, Object> cacheKey(@Nonnull PlaceholderData input) {
+    Object scopeKey = null;
+    if (this.scope != null) {
+      scopeKey = this.scope.apply(input);
+      if (scopeKey == null) { // Nothing to scope by, don't cache.
+        return null;
+      }
+    }
+    return Maps.immutableEntry(input.getPlaceholder(), scopeKey);
+  }
+
+  @Override
+  public void onComplete(String string) {
+    this.delegate.onComplete(string);
+  }
+
+  @Override
+  public boolean isPlaceholder(@Nullable String string) {
+    return this.delegate.isPlaceholder(string);
+  }
+
+  @Nonnull
+  @Override
+  public List<String> getPlaceholders() {
+    return this.delegate.getPlaceholders();
+  }
+
+  /**
+   * {@inheritDoc} A globally scoped cache shares its results with everyone, so this only depends
+   * on locals when scoped.
+   */
+  @Override
+  public boolean dependsOnLocals() {
+    return this.scope != null && this.delegate.dependsOnLocals();
+  }
+
+  /**
+   * Gets the {@link Placeholder} whose results this placeholder caches.
+   *
+   * @return delegate placeholder
+   */
+  @Nonnull
+  public Placeholder getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Gets the statistics of this placeholder's cache, such as hit and miss counts. These are useful
+   * for tuning the time to live.
+   *
+   * @return cache statistics
+   */
+  @Nonnull
+  public CacheStats getStats() {
+    return this.cache.stats();
+  }
+
+  /**
+   * Gets the amount of cached results.
+   *
+   * @return amount of cached results
+   */
+  public long size() {
+    return this.cache.size();
+  }
+
+  /**
+   * Discards all cached results.
+   */
+  public void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * Discards the cached results of a scope, e.g. when a player quits.
+   *
+   * @param scopeKey scope key to discard, null for the global scope
+   */
+  public void invalidate(@Nullable Object scopeKey) {
+    for (Entry<String, Object> key : this.cache.asMap().keySet()) {
+      if (scopeKey == null ? key.getValue() == null : scopeKey.equals(key.getValue())) {
+        this.cache.invalidate(key);
+      }
+    }
+  }
+
+  public static final class Builder {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private final Placeholder delegate;
+    private long ttl = 1;
+    private TimeUnit unit = TimeUnit.SECONDS;
+    private Function<PlaceholderData, Object> scope;
+    private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    private Builder(@Nonnull Placeholder delegate) {
+      checkNotNull(delegate, "delegate cannot be null.");
+      this.delegate = delegate;
+    }
+
+    /**
+     * Sets how long results are kept for after being computed. Defaults to one second.
+     *
+     * @param ttl duration to keep results for
+     * @param unit unit of {@code ttl}
+     *
+     * @return this builder
+     */
+    public Builder ttl(long ttl, @Nonnull TimeUnit unit) {
+      checkNotNull(unit, "unit cannot be null.");
+      checkArgument(ttl > 0, "ttl must be positive: %s %s", ttl, unit);
+      this.ttl = ttl;
+      this.unit = unit;
+      return this;
+    }
+
+    /**
+     * Scopes results by the local value of the given key, see {@link PlaceholderData#get(Object)}.
+     * If the data has no such local, the result is not cached.
+     *
+     * @param localKey key of the local to scope by
+     *
+     * @return this builder
+     */
+    public Builder scope(@Nonnull final Object localKey) {
+      checkNotNull(localKey, "local key cannot be null.");
+      return scope(new Function<PlaceholderData, Object>() {
+        @Override public Object apply(PlaceholderData input) {
+          return input.get(localKey);
+        }
+      });
+    }
+
+    /**
+     * Scopes results by the object returned by the given function. If the function returns null,
+     * the result is not cached.
+     *
+     * @param scope function returning the scope key of a {@link PlaceholderData}
+     *
+     * @return this builder
+     */
+    public Builder scope(@Nonnull Function<PlaceholderData, Object> scope) {
+      checkNotNull(scope, "scope cannot be null.");
+      this.scope = scope;
+      return this;
+    }
+
+    /**
+     * Sets the maximum amount of results to cache. Defaults to 10,000.
+     *
+     * @param maximumSize maximum amount of results
+     *
+     * @return this builder
+     */
+    public Builder maximumSize(long maximumSize) {
+      checkArgument(maximumSize > 0, "maximum size must be positive.");
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    public CachedPlaceholder build() {
+      return new CachedPlaceholder(this.delegate, this.ttl, this.unit, this.scope,
+                                   this.maximumSize);
+    }
+  }
+}
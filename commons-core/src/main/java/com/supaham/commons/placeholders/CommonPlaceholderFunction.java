@@ -3,11 +3,14 @@ package com.supaham.commons.placeholders;
 import java.util.Collection;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Represents a simple extension of {@link PlaceholderFunction} that provides 
  * {@link CommonPlaceholderFunction#CommonPlaceholderFunction(Collection)} and implements the 
- * {@link PlaceholderFunction#getPlaceholders()} method.
+ * {@link PlaceholderFunction#getPlaceholders()} method. If the collection is a
+ * {@link PlaceholderSet}, placeholders are resolved through {@link
+ * PlaceholderSet#replace(PlaceholderData)}.
  *
  * @since 0.1
  */
@@ -23,4 +26,13 @@ public class CommonPlaceholderFunction extends PlaceholderFunction {
   public Collection<? extends Placeholder> getPlaceholders() {
     return this.collection;
   }
+
+  @Nullable
+  @Override
+  public String replace(@Nonnull PlaceholderData data) {
+    if (this.collection instanceof PlaceholderSet) {
+      return ((PlaceholderSet<?>) this.collection).replace(data);
+    }
+    return super.replace(data);
+  }
 }
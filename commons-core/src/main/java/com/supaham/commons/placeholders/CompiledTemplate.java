@@ -0,0 +1,213 @@
+package com.supaham.commons.placeholders;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Represents a placeholder template that has been parsed once into literal and placeholder
+ * segments. Rendering a compiled template does not touch the {@link PlaceholderFunction#PH_PATTERN}
+ * regex again, making it suitable for templates that are rendered over and over, such as
+ * scoreboards and item lores.
+ * <p />
+ * Instances are obtained through {@link #compile(String)}, which caches templates by their source
+ * string.
+ *
+ * @since 0.9.3
+ */
+public final class CompiledTemplate {
+
+  /**
+   * Maximum amount of compiled templates kept by {@link #compile(String)}.
+   */
+  public static final int CACHE_SIZE = 1024;
+
+  private static final LoadingCache<String, CompiledTemplate> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_SIZE)
+      .build(new CacheLoader<String, CompiledTemplate>() {
+        @Override public CompiledTemplate load(@Nonnull String source) {
+          return new CompiledTemplate(source);
+        }
+      });
+
+  private final String source;
+  // literals.length == placeholders.length + 1, literals surround each placeholder.
+  private final String[] literals;
+  private final String[] placeholders;
+  private final String[] rawPlaceholders;
+  private final int literalsLength;
+
+  /**
+   * Returns a {@link CompiledTemplate} of the given {@link String}. The result is cached, so
+   * subsequent calls with an equal {@code source} return the same instance.
+   *
+   * @param source template source to compile
+   *
+   * @return compiled template
+   */
+  @Nonnull
+  public static CompiledTemplate compile(@Nonnull String source) {
+    checkNotNull(source, "source cannot be null.");
+    return CACHE.getUnchecked(source);
+  }
+
+  /**
+   * Discards all cached templates created through {@link #compile(String)}.
+   */
+  public static void invalidateCache() {
+    CACHE.invalidateAll();
+  }
+
+  private CompiledTemplate(@Nonnull String source) {
+    this.source = source;
+    List<String> literals = new ArrayList<>();
+    List<String> placeholders = new ArrayList<>();
+    List<String> rawPlaceholders = new ArrayList<>();
+
+    int index = 0;
+    Matcher matcher = PlaceholderFunction.PH_PATTERN.matcher(source);
+    while (matcher.find()) {
+      String raw = matcher.group();
+      literals.add(source.substring(index, matcher.start()));
+      // Remove the braces.
+      placeholders.add(raw.substring(1, raw.length() - 1));
+      rawPlaceholders.add(raw);
+      index = matcher.end();
+    }
+    literals.add(source.substring(index));
+
+    this.literals = literals.toArray(new String[literals.size()]);
+    this.placeholders = placeholders.toArray(new String[placeholders.size()]);
+    this.rawPlaceholders = rawPlaceholders.toArray(new String[rawPlaceholders.size()]);
+    int length = 0;
+    for (String literal : this.literals) {
+      length += literal.length();
+    }
+    this.literalsLength = length;
+  }
+
+  /**
+   * Gets the source {@link String} this template was compiled from.
+   *
+   * @return template source
+   */
+  @Nonnull
+  public String getSource() {
+    return source;
+  }
+
+  /**
+   * Returns whether this template contains any placeholders at all.
+   *
+   * @return true if this template contains placeholders
+   */
+  public boolean hasPlaceholders() {
+    return placeholders.length > 0;
+  }
+
+  /**
+   * Gets the placeholders of this template in order of appearance, without their braces.
+   *
+   * @return unmodifiable list of placeholders
+   */
+  @Nonnull
+  public List<String> getPlaceholders() {
+    return Collections.unmodifiableList(Arrays.asList(placeholders));
+  }
+
+  /**
+   * Gets the combined length of all the literal segments in this template. This is useful as an
+   * estimate for sizing output buffers.
+   *
+   * @return length of the literal segments
+   */
+  public int getLiteralsLength() {
+    return literalsLength;
+  }
+
+  /**
+   * Renders this template into a {@link StringBuilder}. Each placeholder is resolved through
+   * {@link PlaceholderFunction#replace(PlaceholderData)}, placeholders that are not handled are
+   * appended as they were in the source. Once a placeholder is handled, its replacement is set as
+   * the data's {@link PlaceholderData#getPlaceholder()}.
+   * <p />
+   * Unlike {@link PlaceholderFunction#apply(PlaceholderData)}, this method does not call
+   * {@link Placeholder#onComplete(String)}.
+   *
+   * @param data placeholder data to pass to the placeholders
+   * @param function function to resolve placeholders with
+   * @param out builder to append the rendered template to
+   *
+   * @return the given {@code out}
+   */
+  @Nonnull
+  public StringBuilder render(@Nonnull PlaceholderData data, @Nonnull PlaceholderFunction function,
+                              @Nonnull StringBuilder out) {
+    try {
+      render(data, function, (Appendable) out);
+    } catch (IOException e) {
+      throw new AssertionError(e); // StringBuilder never throws IOException.
+    }
+    return out;
+  }
+
+  /**
+   * Renders this template into an {@link Appendable}.
+   *
+   * @param data placeholder data to pass to the placeholders
+   * @param function function to resolve placeholders with
+   * @param out appendable to append the rendered template to
+   *
+   * @throws IOException thrown by {@code out}
+   * @see #render(PlaceholderData, PlaceholderFunction, StringBuilder)
+   */
+  public <A extends Appendable> A render(@Nonnull PlaceholderData data,
+                                         @Nonnull PlaceholderFunction function, @Nonnull A out)
+      throws IOException {
+    checkNotNull(data, "data cannot be null.");
+    checkNotNull(function, "function cannot be null.");
+    checkNotNull(out, "out cannot be null.");
+    for (int i = 0; i < placeholders.length; i++) {
+      data.setPlaceholder(placeholders[i]);
+      String match = function.replace(data);
+      // Match is null when no placeholder has applied anything to it.
+      if (match == null) {
+        match = rawPlaceholders[i];
+      } else if (!match.isEmpty()) {
+        data.setPlaceholder(match);
+      }
+      // Append the literal only now, placeholders see the output up to the previous placeholder.
+      out.append(literals[i]).append(match);
+    }
+    out.append(literals[placeholders.length]);
+    return out;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    return this == o
+           || (o instanceof CompiledTemplate && source.equals(((CompiledTemplate) o).source));
+  }
+
+  @Override
+  public int hashCode() {
+    return source.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledTemplate{" + source + "}";
+  }
+}
@@ -51,4 +51,16 @@ public interface Placeholder extends Function<PlaceholderData, String> {
    */
   @Nonnull
   List<String> getPlaceholders();
+
+  /**
+   * Returns whether the result of this {@link Placeholder} depends on the locals of the given
+   * {@link PlaceholderData}, e.g. the viewing player. Placeholders that do not are evaluated only
+   * once when rendering for many recipients through {@link PlaceholderSet#apply(String,
+   * java.util.Collection, boolean)}. Defaults to true.
+   *
+   * @return true if the result depends on the placeholder data locals
+   */
+  default boolean dependsOnLocals() {
+    return true;
+  }
 }
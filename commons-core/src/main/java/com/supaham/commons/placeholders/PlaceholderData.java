@@ -20,6 +20,7 @@ import javax.annotation.Nonnull;
 public class PlaceholderData {
 
   private final String original;
+  private final StringBuilder builder = new StringBuilder();
   private String string = "";
   private String placeholder;
   private final Map<Object, Object> locals;
@@ -47,6 +48,14 @@ public class PlaceholderData {
     return new Builder();
   }
 
+  /**
+   * Creates a new {@link PlaceholderData} backed directly by the given locals map, without copying
+   * or validating it.
+   */
+  static PlaceholderData wrap(@Nonnull String input, @Nonnull Map<Object, Object> locals) {
+    return new PlaceholderData(input, locals);
+  }
+
   private PlaceholderData(@Nonnull String string) {
     this(string, new HashMap<>());
   }
@@ -72,17 +81,49 @@ public class PlaceholderData {
    * @return full string
    */
   public String getString() {
+    if (string == null) {
+      string = builder.toString();
+    }
     return string;
   }
 
   protected final void setString(@Nonnull String string) {
     checkNotNullOrEmpty(string);
+    this.builder.setLength(0);
+    this.builder.append(string);
     this.string = string;
   }
 
   protected final void append(@Nonnull String string) {
     checkNotNullOrEmpty(string);
-    this.string += string;
+    this.builder.append(string);
+    this.string = null; // Built lazily by getString()
+  }
+
+  /**
+   * Returns an {@link Appendable} that appends to this data's string like {@link #append(String)},
+   * without rejecting empty strings.
+   */
+  Appendable appender() {
+    return new Appendable() {
+      @Override public Appendable append(CharSequence csq) {
+        return append(csq, 0, csq.length());
+      }
+
+      @Override public Appendable append(CharSequence csq, int start, int end) {
+        if (start < end) {
+          builder.append(csq, start, end);
+          string = null; // Built lazily by getString()
+        }
+        return this;
+      }
+
+      @Override public Appendable append(char c) {
+        builder.append(c);
+        string = null;
+        return this;
+      }
+    };
   }
 
   /**
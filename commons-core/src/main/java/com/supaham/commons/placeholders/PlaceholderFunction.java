@@ -4,11 +4,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.Function;
 
+import java.io.IOException;
 import java.util.Collection;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Represents a {@link Function} implementation for placeholder strings replacement task.
@@ -40,6 +41,9 @@ public abstract class PlaceholderFunction implements Function<PlaceholderData, S
    * passing the matched placeholders to them. This method uses the {@link #PH_PATTERN} for matching
    * placeholders. Please keep in mind that {@link Placeholder#apply(PlaceholderData)} will not 
    * receive the braces, e.g. <em>{abc}</em> is given as <em>abc</em>
+   * <p />
+   * The input is compiled once into a {@link CompiledTemplate} and cached, so repeatedly applying
+   * the same input does not match the pattern again.
    *
    * @param data data to apply this function to
    *
@@ -49,44 +53,37 @@ public abstract class PlaceholderFunction implements Function<PlaceholderData, S
   @Override
   public String apply(PlaceholderData data) {
     checkNotNull(data, "data cannot be null.");
-    Collection<? extends Placeholder> placeholders = getPlaceholders();
-    int index = 0;
-    String input = data.getOriginal();
-    
-    Matcher matcher = PH_PATTERN.matcher(input);
-    // Every matched placeholder
-    while (matcher.find()) {
-      String origPhStr = matcher.group();
-      // Remove the braces.
-      data.setPlaceholder(origPhStr.substring(1, origPhStr.length() - 1));
-
-      boolean found = false;
-      // Ask each Placeholder to handle the matched placeholder string until one Placeholder has.
-      for (Placeholder placeholder : placeholders) {
-        String match = placeholder.apply(data);
-        // Match is null when the placeholder has not applied anything to it.
-        if (match != null) {
-          data.setPlaceholder(match);
-          found = true;
-          break;
-        }
-      }
-      // Append since the last index till the current matched starting index, then append the
-      // placeholder string. Finally, update the index to the end of the matched placeholder string.
-      data.append(input.substring(index, matcher.start())
-                  + (found ? data.getPlaceholder() : origPhStr));
-      index = matcher.end();
-    }
-
-    // If there's still input after the last matched, append it all to result.
-    if (index < input.length()) {
-      data.append(input.substring(index, input.length()));
+    try {
+      // Render straight into the data so placeholders see the progressive output.
+      CompiledTemplate.compile(data.getOriginal()).render(data, this, data.appender());
+    } catch (IOException e) {
+      throw new AssertionError(e); // PlaceholderData never throws IOException.
     }
 
     // Let's notify the placeholders that we're done
-    for (Placeholder placeholder : placeholders) {
+    for (Placeholder placeholder : getPlaceholders()) {
       placeholder.onComplete(data.getString());
     }
     return data.getString();
   }
+
+  /**
+   * Resolves the current {@link PlaceholderData#getPlaceholder()} of the given data by asking each
+   * {@link Placeholder} in {@link #getPlaceholders()} to handle it until one has.
+   *
+   * @param data data containing the placeholder to resolve
+   *
+   * @return the replacement string, or null if no placeholder has handled it
+   */
+  @Nullable
+  public String replace(@Nonnull PlaceholderData data) {
+    for (Placeholder placeholder : getPlaceholders()) {
+      String match = placeholder.apply(data);
+      // Match is null when the placeholder has not applied anything to it.
+      if (match != null) {
+        return match;
+      }
+    }
+    return null;
+  }
 }
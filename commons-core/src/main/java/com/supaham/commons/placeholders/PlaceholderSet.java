@@ -3,9 +3,18 @@ package com.supaham.commons.placeholders;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -13,18 +22,29 @@ import javax.annotation.Nullable;
 /**
  * Represents a {@link HashSet} of {@link Placeholder}s. This class also provides {@link
  * #apply(String)} which performs the placeholder strings replacing task.
+ * <p />
+ * Plain {@link SimplePlaceholder}s are indexed by the strings in their
+ * {@link Placeholder#getPlaceholders()}, so resolving a placeholder string is a single lookup. The
+ * index is built when a placeholder is added, so their placeholder lists must not change
+ * afterwards. Placeholders that aren't plain {@link SimplePlaceholder}s, or that override
+ * {@link Placeholder#isPlaceholder(String)}, are considered dynamic; they are not indexed and are
+ * asked one by one when the lookup fails.
  *
  * @since 0.1
  */
 public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
 
   private PlaceholderFunction placeholderFunction = new CommonPlaceholderFunction(this);
+  // Not initialized inline, HashSet(Collection) calls add() before field initializers run.
+  private transient Map<String, T> index;
+  private transient List<T> dynamicPlaceholders;
 
   /**
    * {@inheritDoc}
    */
   public PlaceholderSet() {
     super();
+    reindex();
   }
 
   /**
@@ -34,6 +54,7 @@ public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
     super();
     checkNotNull(function);
     this.placeholderFunction = function;
+    reindex();
   }
 
   /**
@@ -53,6 +74,7 @@ public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
     if (function != null) {
       this.placeholderFunction = function;
     }
+    reindex();
   }
 
   /**
@@ -73,6 +95,7 @@ public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
     if (function != null) {
       this.placeholderFunction = function;
     }
+    reindex();
   }
 
   /**
@@ -92,6 +115,60 @@ public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
     if (function != null) {
       this.placeholderFunction = function;
     }
+    reindex();
+  }
+
+  @Override
+  public boolean add(T t) {
+    if (!super.add(t)) {
+      return false;
+    }
+    if (index != null) { // null when called by the HashSet constructor
+      indexPlaceholder(t);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (!super.remove(o)) {
+      return false;
+    }
+    reindex();
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    reindex();
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    final Iterator<T> iterator = super.iterator();
+    return new Iterator<T>() {
+      @Override public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override public T next() {
+        return iterator.next();
+      }
+
+      @Override public void remove() {
+        iterator.remove();
+        reindex();
+      }
+    };
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Object clone() {
+    PlaceholderSet<T> clone = (PlaceholderSet<T>) super.clone();
+    clone.reindex();
+    return clone;
   }
 
   /**
@@ -107,7 +184,10 @@ public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
    */
   public boolean hasPlaceholder(@Nonnull String placeholder) {
     if (placeholder != null && !placeholder.isEmpty()) {
-      for (Placeholder placeholder1 : this) {
+      if (index.containsKey(placeholder)) {
+        return true;
+      }
+      for (Placeholder placeholder1 : dynamicPlaceholders) {
         if (placeholder1.isPlaceholder(placeholder)) {
           return true;
         }
@@ -116,6 +196,35 @@ public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
     return false;
   }
 
+  /**
+   * Resolves the current {@link PlaceholderData#getPlaceholder()} of the given data. The
+   * {@link Placeholder} registered under that placeholder string is asked first, followed by all
+   * dynamic placeholders until one has handled it.
+   *
+   * @param data data containing the placeholder to resolve
+   *
+   * @return the replacement string, or null if no placeholder has handled it
+   *
+   * @see PlaceholderFunction#replace(PlaceholderData)
+   */
+  @Nullable
+  public String replace(@Nonnull PlaceholderData data) {
+    T indexed = index.get(data.getPlaceholder());
+    if (indexed != null) {
+      String match = indexed.apply(data);
+      if (match != null) {
+        return match;
+      }
+    }
+    for (T placeholder : dynamicPlaceholders) {
+      String match = placeholder.apply(data);
+      if (match != null) {
+        return match;
+      }
+    }
+    return null;
+  }
+
   /**
    * Performs a placeholder replacing task using all the {@link Placeholder}s in this {@link
    * PlaceholderSet}.
@@ -149,6 +258,95 @@ public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
     return list;
   }
 
+  /**
+   * Performs a placeholder replacing task on one input for many recipients, such as a broadcast
+   * message. The input is parsed once, and placeholders that do not {@link
+   * Placeholder#dependsOnLocals() depend on locals} are evaluated once and shared by all
+   * recipients.
+   *
+   * @param input input to search for placeholders in
+   * @param locals placeholder data locals of each recipient, these maps are used as they are and
+   * must not be modified during this call
+   *
+   * @return the placeholder replaced strings, in the same order as {@code locals}
+   *
+   * @see #apply(String, Collection, boolean)
+   */
+  @Nonnull
+  public List<String> apply(@Nonnull String input,
+                            @Nonnull Collection<? extends Map<Object, Object>> locals) {
+    return apply(input, locals, false);
+  }
+
+  /**
+   * Performs a placeholder replacing task on one input for many recipients, such as a broadcast
+   * message. The input is parsed once, and placeholders that do not {@link
+   * Placeholder#dependsOnLocals() depend on locals} are evaluated once and shared by all
+   * recipients. {@link Placeholder#onComplete(String)} is still called once per recipient.
+   * <p />
+   * When {@code parallel} is true, recipients are rendered in parallel on the common
+   * {@link java.util.concurrent.ForkJoinPool}, in which case all placeholders involved must be
+   * thread safe.
+   *
+   * @param input input to search for placeholders in
+   * @param locals placeholder data locals of each recipient, these maps are used as they are and
+   * must not be modified during this call
+   * @param parallel whether to render recipients in parallel
+   *
+   * @return the placeholder replaced strings, in the same order as {@code locals}
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  public List<String> apply(@Nonnull String input,
+                            @Nonnull Collection<? extends Map<Object, Object>> locals,
+                            boolean parallel) {
+    checkNotNull(input, "input cannot be null.");
+    checkNotNull(locals, "locals cannot be null.");
+    if (locals.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    // Evaluate the placeholders that are the same for everyone, through the function in use so
+    // the output matches apply(PlaceholderData).
+    final PlaceholderFunction function = this.placeholderFunction;
+    PlaceholderData sharedData = PlaceholderData.build(input);
+    final Map<String, String> shared = new HashMap<>();
+    for (String placeholder : CompiledTemplate.compile(input).getPlaceholders()) {
+      T owner = find(placeholder);
+      if (owner != null && !owner.dependsOnLocals() && !shared.containsKey(placeholder)) {
+        sharedData.setPlaceholder(placeholder);
+        String match = function.replace(sharedData);
+        if (match != null) {
+          shared.put(placeholder, match);
+        }
+      }
+    }
+
+    final PlaceholderFunction bulkFunction = new PlaceholderFunction() {
+      @Override public Collection<? extends Placeholder> getPlaceholders() {
+        return function.getPlaceholders();
+      }
+
+      @Nullable @Override public String replace(@Nonnull PlaceholderData data) {
+        String match = shared.get(data.getPlaceholder());
+        return match != null ? match : function.replace(data);
+      }
+    };
+
+    final Map<Object, Object>[] localsArray = locals.toArray(new Map[locals.size()]);
+    final String[] results = new String[localsArray.length];
+    IntStream range = IntStream.range(0, localsArray.length);
+    if (parallel) {
+      range = range.parallel();
+    }
+    range.forEach(i -> {
+      Map<Object, Object> map = localsArray[i];
+      checkNotNull(map, "locals cannot contain null.");
+      results[i] = bulkFunction.apply(PlaceholderData.wrap(input, map));
+    });
+    return Arrays.asList(results);
+  }
+
   /**
    * Performs a placeholder replacing task using all the {@link Placeholder}s in this {@link
    * PlaceholderSet}.
@@ -164,6 +362,123 @@ public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
     return placeholderFunction.apply(data);
   }
 
+  /**
+   * Performs a placeholder replacing task like {@link #apply(PlaceholderData)}, without blocking on
+   * {@link AsyncPlaceholder}s. Every asynchronous placeholder in the input is started at once, and
+   * once all of them have completed or timed out, the input is rendered on the common
+   * {@link ForkJoinPool}. If the input has no asynchronous placeholders, it is rendered right away
+   * on the calling thread.
+   *
+   * @param data placeholder data to perform the placeholder function with
+   *
+   * @return future of the placeholder replaced string
+   *
+   * @see #applyAsync(PlaceholderData, Executor)
+   */
+  @Nonnull
+  public CompletableFuture<String> applyAsync(@Nonnull PlaceholderData data) {
+    return applyAsync(data, null);
+  }
+
+  /**
+   * Performs a placeholder replacing task like {@link #apply(PlaceholderData)}, without blocking on
+   * {@link AsyncPlaceholder}s. Every asynchronous placeholder in the input is started at once, and
+   * once all of them have completed or timed out, the input is rendered using the given
+   * {@link Executor}. This is useful when the remaining, synchronous, placeholders must run on a
+   * specific thread.
+   *
+   * @param data placeholder data to perform the placeholder function with
+   * @param executor executor to render the input with, null to render on the common
+   * {@link ForkJoinPool}, or on the calling thread if the input has no asynchronous placeholders
+   *
+   * @return future of the placeholder replaced string
+   */
+  @Nonnull
+  public CompletableFuture<String> applyAsync(@Nonnull final PlaceholderData data,
+                                              @Nullable Executor executor) {
+    checkNotNull(data, "data cannot be null.");
+    final Map<String, CompletableFuture<String>> futures = new HashMap<>();
+    for (String placeholder : CompiledTemplate.compile(data.getOriginal()).getPlaceholders()) {
+      if (futures.containsKey(placeholder)) {
+        continue;
+      }
+      Placeholder asyncPlaceholder = findAsyncPlaceholder(placeholder);
+      if (asyncPlaceholder != null) {
+        data.setPlaceholder(placeholder);
+        CompletableFuture<String> future = asyncPlaceholder instanceof CachedPlaceholder
+                                           ? ((CachedPlaceholder) asyncPlaceholder).resolve(data)
+                                           : ((AsyncPlaceholder) asyncPlaceholder).resolve(data);
+        if (future != null) {
+          futures.put(placeholder, future);
+        }
+      }
+    }
+
+    final PlaceholderFunction function = this.placeholderFunction;
+    if (futures.isEmpty()) {
+      return executor == null ? CompletableFuture.completedFuture(function.apply(data))
+                              : CompletableFuture.supplyAsync(() -> function.apply(data), executor);
+    }
+    // Serve the resolved placeholders first, everything else goes through the usual function.
+    final PlaceholderFunction resolved = new PlaceholderFunction() {
+      @Override public Collection<? extends Placeholder> getPlaceholders() {
+        return function.getPlaceholders();
+      }
+
+      @Nullable @Override public String replace(@Nonnull PlaceholderData data) {
+        CompletableFuture<String> future = futures.get(data.getPlaceholder());
+        return future != null ? future.join() : function.replace(data);
+      }
+    };
+    CompletableFuture<Void> all = CompletableFuture.allOf(
+        futures.values().toArray(new CompletableFuture[futures.size()]));
+    // Never render on the thread completing the futures, it may be the shared timeout scheduler.
+    return all.thenApplyAsync(ignored -> resolved.apply(data),
+                              executor != null ? executor : ForkJoinPool.commonPool());
+  }
+
+  /*
+   * Returns the first placeholder that handles the given placeholder string, indexed ones first.
+   */
+  @Nullable
+  private T find(@Nonnull String placeholder) {
+    T indexed = index.get(placeholder);
+    if (indexed != null) {
+      return indexed;
+    }
+    for (T dynamic : dynamicPlaceholders) {
+      if (dynamic.isPlaceholder(placeholder)) {
+        return dynamic;
+      }
+    }
+    return null;
+  }
+
+  /*
+   * Returns the placeholder handling the given placeholder string if it is an AsyncPlaceholder,
+   * possibly wrapped in CachedPlaceholders.
+   */
+  @Nullable
+  private Placeholder findAsyncPlaceholder(@Nonnull String placeholder) {
+    T indexed = index.get(placeholder);
+    if (isAsync(indexed)) {
+      return indexed;
+    }
+    for (T dynamic : dynamicPlaceholders) {
+      if (isAsync(dynamic) && dynamic.isPlaceholder(placeholder)) {
+        return dynamic;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isAsync(@Nullable Placeholder placeholder) {
+    if (placeholder instanceof CachedPlaceholder) {
+      return isAsync(((CachedPlaceholder) placeholder).getDelegate());
+    }
+    return placeholder instanceof AsyncPlaceholder;
+  }
+
   /**
    * Gets the {@link PlaceholderFunction} of this {@link PlaceholderSet}.
    *
@@ -182,4 +497,37 @@ public class PlaceholderSet<T extends Placeholder> extends HashSet<T> {
   public void setPlaceholderFunction(PlaceholderFunction function) {
     this.placeholderFunction = function;
   }
+
+  private void reindex() {
+    this.index = new HashMap<>();
+    this.dynamicPlaceholders = new ArrayList<>();
+    for (T placeholder : this) {
+      indexPlaceholder(placeholder);
+    }
+  }
+
+  private void indexPlaceholder(T placeholder) {
+    if (isDynamic(placeholder)) {
+      this.dynamicPlaceholders.add(placeholder);
+      return;
+    }
+    for (String string : placeholder.getPlaceholders()) {
+      this.index.putIfAbsent(string, placeholder);
+    }
+  }
+
+  private static boolean isDynamic(Placeholder placeholder) {
+    if (placeholder instanceof CachedPlaceholder) {
+      return isDynamic(((CachedPlaceholder) placeholder).getDelegate());
+    }
+    if (!(placeholder instanceof SimplePlaceholder)) {
+      return true;
+    }
+    try {
+      return placeholder.getClass().getMethod("isPlaceholder", String.class).getDeclaringClass()
+             != SimplePlaceholder.class;
+    } catch (NoSuchMethodException e) {
+      return true;
+    }
+  }
 }
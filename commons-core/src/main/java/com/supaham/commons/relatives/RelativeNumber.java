@@ -3,6 +3,8 @@ package com.supaham.commons.relatives;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
 import javax.annotation.Nonnull;
@@ -39,10 +41,16 @@ public final class RelativeNumber implements Function<Number, Double> {
    */
   public static final RelativeNumber ZERO = from(ArithmeticOperator.ADDITION, 0);
 
+  private static final String OPERATORS = "+-*/%^";
+  private static final int INVALID = 0; // scanNumber results
+  private static final int INT = 1;
+  private static final int DOUBLE = 2;
+
   private final ArithmeticOperator operator;
   private final double number;
   private final boolean wholeNumber;
   private final boolean relative;
+  private final DoubleUnaryOperator compiled;
 
   /**
    * Deserialization in the form of {@link #toString()}. The following table shows the valid and invalid serialized
@@ -116,9 +124,29 @@ public final class RelativeNumber implements Function<Number, Double> {
    */
   public static RelativeNumber fromString(@Nonnull String string) {
     Preconditions.checkNotNull(string, "string cannot be null.");
+    return parse(string, true);
+  }
+
+  /**
+   * Deserialization in the form of {@link #toString()}, without throwing exceptions on invalid input. Unlike {@link
+   * #fromString(String)}, numbers are only accepted in plain decimal notation, optionally with an exponent, such as
+   * {@code 1}, {@code -1.5} or {@code 1e3}.
+   *
+   * @param string string to deserialize
+   *
+   * @return deserialized string in the form of {@link RelativeNumber}, or null if {@code string} is invalid
+   *
+   * @see #fromString(String)
+   * @since 0.9.3
+   */
+  @Nullable
+  public static RelativeNumber tryParse(@Nullable String string) {
+    return string == null ? null : parse(string, false);
+  }
+
+  @Nullable
+  private static RelativeNumber parse(String string, boolean strict) {
     boolean relative = false;
-    double number;
-    boolean wholeNumber;
     ArithmeticOperator operator;
 
     string = string.trim();
@@ -132,26 +160,107 @@ public final class RelativeNumber implements Function<Number, Double> {
       string = string.substring(1).trim();
     }
 
-    if (Character.isDigit(string.charAt(0))) {
+    char first = string.charAt(0);
+    if (Character.isDigit(first)) {
       operator = ArithmeticOperator.ADDITION;
     } else {
-      operator = ArithmeticOperator.fromChar(string.charAt(0));
+      if (!strict && OPERATORS.indexOf(first) < 0) {
+        return null;
+      }
+      operator = ArithmeticOperator.fromChar(first);
       string = string.substring(1).trim();
     }
-    try {
-      number = Integer.parseInt(string);
-      wholeNumber = true;
-    } catch (NumberFormatException e) {
-      try {
-        number = Double.parseDouble(string);
-        wholeNumber = false;
-      } catch (NumberFormatException e2) {
-        throw new NumberFormatException(string + " must consists of only numbers and at most one decimal point.");
+
+    switch (scanNumber(string)) {
+      case INT:
+        return new RelativeNumber(operator, Integer.parseInt(string), true, relative);
+      case DOUBLE:
+        return new RelativeNumber(operator, Double.parseDouble(string), false, relative);
+      default:
+        if (!strict) {
+          return null;
+        }
+        // Not plain decimal notation, let Java decide whether it's valid, e.g. "NaN" or "1d".
+        try {
+          return new RelativeNumber(operator, Double.parseDouble(string), false, relative);
+        } catch (NumberFormatException e) {
+          throw new NumberFormatException(string + " must consists of only numbers and at most one decimal point.");
+        }
+    }
+  }
+
+  /*
+   * Returns INT if the string is accepted by Integer.parseInt, DOUBLE if it is a plain decimal accepted by
+   * Double.parseDouble, otherwise INVALID.
+   */
+  private static int scanNumber(String string) {
+    int length = string.length();
+    int i = 0;
+    if (i < length && (string.charAt(i) == '+' || string.charAt(i) == '-')) {
+      i++;
+    }
+    int digitsStart = i;
+    long value = 0;
+    boolean fitsInt = true;
+    while (i < length && Character.digit(string.charAt(i), 10) >= 0) {
+      if (fitsInt) {
+        value = value * 10 + Character.digit(string.charAt(i), 10);
+        fitsInt = value <= (long) Integer.MAX_VALUE + 1;
+      }
+      i++;
+    }
+    int intDigits = i - digitsStart;
+    if (i == length) {
+      if (intDigits == 0) {
+        return INVALID;
+      }
+      boolean negative = string.charAt(0) == '-';
+      if (fitsInt && (negative || value <= Integer.MAX_VALUE)) {
+        return INT;
+      }
+      return isAscii(string, digitsStart, length) ? DOUBLE : INVALID;
+    }
+    if (!isAscii(string, digitsStart, i)) {
+      return INVALID;
+    }
+    int fractionDigits = 0;
+    if (string.charAt(i) == '.') {
+      i++;
+      while (i < length && isAsciiDigit(string.charAt(i))) {
+        i++;
+        fractionDigits++;
       }
     }
+    if (intDigits + fractionDigits == 0) {
+      return INVALID;
+    }
+    if (i < length && (string.charAt(i) == 'e' || string.charAt(i) == 'E')) {
+      i++;
+      if (i < length && (string.charAt(i) == '+' || string.charAt(i) == '-')) {
+        i++;
+      }
+      int exponentStart = i;
+      while (i < length && isAsciiDigit(string.charAt(i))) {
+        i++;
+      }
+      if (i == exponentStart) {
+        return INVALID;
+      }
+    }
+    return i == length ? DOUBLE : INVALID;
+  }
 
-    Preconditions.checkNotNull(operator, "operator cannot be null.");
-    return new RelativeNumber(operator, number, wholeNumber, relative);
+  private static boolean isAscii(String string, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (!isAsciiDigit(string.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isAsciiDigit(char c) {
+    return c >= '0' && c <= '9';
   }
 
   public static RelativeNumber from(@Nonnull ArithmeticOperator operator, byte b) {
@@ -187,6 +296,29 @@ public final class RelativeNumber implements Function<Number, Double> {
     this.number = number.doubleValue();
     this.wholeNumber = wholeNumber;
     this.relative = relative;
+    this.compiled = compile(operator, this.number, relative);
+  }
+
+  private static DoubleUnaryOperator compile(ArithmeticOperator operator, double n, boolean relative) {
+    if (!relative) {
+      return x -> n;
+    }
+    switch (operator) {
+      case ADDITION:
+        return x -> n + x;
+      case SUBTRACTION:
+        return x -> n - x;
+      case MULTIPLICATION:
+        return x -> n * x;
+      case DIVISION:
+        return x -> n / x;
+      case MODULUS:
+        return x -> n % x;
+      case POWER:
+        return x -> Math.pow(n, x);
+      default:
+        return x -> operator.applyToDouble(n, x);
+    }
   }
 
   /**
@@ -202,6 +334,83 @@ public final class RelativeNumber implements Function<Number, Double> {
                                             : this.operator.applyToDouble(this.number, number.doubleValue());
   }
 
+  /**
+   * Returns this {@link RelativeNumber} as a primitive function, equivalent to {@link #apply(Number)} without boxing.
+   * The function is created once per instance.
+   *
+   * @return compiled function
+   *
+   * @since 0.9.3
+   */
+  @Nonnull
+  public DoubleUnaryOperator compile() {
+    return compiled;
+  }
+
+  /**
+   * Applies a double to this {@link RelativeNumber}, equivalent to {@link #apply(Number)} without boxing.
+   *
+   * @param number number to apply to the operator
+   *
+   * @return result of the operation
+   *
+   * @since 0.9.3
+   */
+  public double applyAsDouble(double number) {
+    return compiled.applyAsDouble(number);
+  }
+
+  /**
+   * Applies each number of {@code in} to this {@link RelativeNumber}, storing the results in {@code out} at the same
+   * indices. {@code in} and {@code out} may be the same array.
+   *
+   * @param in numbers to apply to the operator
+   * @param out array to store the results in, at least as long as {@code in}
+   *
+   * @return {@code out}
+   *
+   * @since 0.9.3
+   */
+  @Nonnull
+  public double[] applyTo(@Nonnull double[] in, @Nonnull double[] out) {
+    Preconditions.checkNotNull(in, "in cannot be null.");
+    Preconditions.checkNotNull(out, "out cannot be null.");
+    Preconditions.checkArgument(out.length >= in.length, "out cannot be shorter than in.");
+    double n = this.number;
+    if (!this.relative) {
+      Arrays.fill(out, 0, in.length, n);
+      return out;
+    }
+    // One loop per operator keeps the loop bodies free of dispatch.
+    switch (this.operator) {
+      case ADDITION:
+        for (int i = 0; i < in.length; i++) {
+          out[i] = n + in[i];
+        }
+        break;
+      case SUBTRACTION:
+        for (int i = 0; i < in.length; i++) {
+          out[i] = n - in[i];
+        }
+        break;
+      case MULTIPLICATION:
+        for (int i = 0; i < in.length; i++) {
+          out[i] = n * in[i];
+        }
+        break;
+      case DIVISION:
+        for (int i = 0; i < in.length; i++) {
+          out[i] = n / in[i];
+        }
+        break;
+      default:
+        for (int i = 0; i < in.length; i++) {
+          out[i] = compiled.applyAsDouble(in[i]);
+        }
+    }
+    return out;
+  }
+
   @Override public boolean equals(Object object) {
     if (this == object) {
       return true;
@@ -2,13 +2,15 @@ package com.supaham.commons.serializers;
 
 import com.google.common.collect.Range;
 
+import com.supaham.commons.collections.WeightedRandom;
+
 import java.time.Duration;
 
 import pluginbase.config.serializers.Serializer;
 
 /**
  * Contains {@link Serializer} classes such as {@link ListDurationSerializer}, {@link
- * ListRangeSerializer}, and more.
+ * ListRangeSerializer}, {@link WeightedStringSerializer}, and more.
  *
  * @since 0.1
  */
@@ -35,4 +37,17 @@ public class CSerializers {
       return Range.class;
     }
   }
+
+  /**
+   * A {@link WeightedRandom} {@link Serializer} of {@link String} elements.
+   *
+   * @since 0.9.3
+   */
+  public static class WeightedStringSerializer extends WeightedRandomSerializer<String> {
+
+    @Override
+    public Class<String> getTypeClass() {
+      return String.class;
+    }
+  }
 }
@@ -0,0 +1,118 @@
+package com.supaham.commons.serializers;
+
+import com.supaham.commons.collections.WeightedRandom;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import pluginbase.config.serializers.Serializer;
+import pluginbase.config.serializers.SerializerSet;
+
+/**
+ * Represents an abstract {@link Serializer} of {@link WeightedRandom}s of a specific type. Elements
+ * are serialized using the {@link Serializer} of {@link #getTypeClass()}.
+ * <p />
+ * When elements serialize to strings, a {@link WeightedRandom} is stored as a map of elements to
+ * their weights:
+ * <pre>
+ * diamond: 1
+ * iron: 5
+ * </pre>
+ * Otherwise it is stored as a list of maps, each containing a {@code value} and a {@code weight}.
+ * Both forms are accepted when deserializing. Deserialized instances are immutable.
+ *
+ * @param <T> type of elements
+ *
+ * @since 0.9.3
+ */
+public abstract class WeightedRandomSerializer<T> implements Serializer<WeightedRandom<T>> {
+
+  private static final String VALUE_KEY = "value";
+  private static final String WEIGHT_KEY = "weight";
+
+  /**
+   * Gets the single {@link Serializer} of the given type implementation used by this {@link
+   * WeightedRandomSerializer} to serialize elements.
+   *
+   * @return element class
+   */
+  public abstract Class<T> getTypeClass();
+
+  @Nullable
+  @Override
+  public Object serialize(WeightedRandom<T> random, @Nonnull SerializerSet serializerSet) {
+    if (random == null) {
+      return null;
+    }
+    Serializer<T> ser = serializerSet.getClassSerializer(getTypeClass());
+    Map<Object, Object> map = new LinkedHashMap<>();
+    List<Object> list = new ArrayList<>();
+    boolean strings = true;
+    for (Entry<T, Double> entry : random.getWeights().entrySet()) {
+      Object value = ser.serialize(entry.getKey(), serializerSet);
+      Object weight = getWeight(entry.getValue());
+      strings &= value instanceof String;
+      map.put(value, weight);
+      Map<String, Object> element = new LinkedHashMap<>();
+      element.put(VALUE_KEY, value);
+      element.put(WEIGHT_KEY, weight);
+      list.add(element);
+    }
+    return strings ? map : list;
+  }
+
+  @Nullable
+  @Override
+  public WeightedRandom<T> deserialize(@Nullable Object serialized, @Nonnull Class wantedType,
+                                       @Nonnull SerializerSet serializerSet)
+      throws IllegalArgumentException {
+    if (serialized == null) {
+      return null;
+    }
+    Serializer<T> ser = serializerSet.getClassSerializer(getTypeClass());
+    WeightedRandom.Builder<T> builder = WeightedRandom.builder();
+    if (serialized instanceof Map) {
+      for (Entry<?, ?> entry : ((Map<?, ?>) serialized).entrySet()) {
+        builder.add(ser.deserialize(entry.getKey(), getTypeClass(), serializerSet),
+                    parseWeight(entry.getValue()));
+      }
+    } else if (serialized instanceof List) {
+      for (Object o : ((List<?>) serialized)) {
+        if (!(o instanceof Map)) {
+          throw new IllegalArgumentException("Expected a map of value and weight, got " + o);
+        }
+        Map<?, ?> element = (Map<?, ?>) o;
+        builder.add(ser.deserialize(element.get(VALUE_KEY), getTypeClass(), serializerSet),
+                    parseWeight(element.get(WEIGHT_KEY)));
+      }
+    } else {
+      throw new IllegalArgumentException("Expected a map or list, got " + serialized);
+    }
+    return builder.build();
+  }
+
+  private static double parseWeight(Object weight) {
+    if (weight instanceof Number) {
+      return ((Number) weight).doubleValue();
+    }
+    if (weight == null) {
+      throw new IllegalArgumentException("weight cannot be null.");
+    }
+    try {
+      return Double.parseDouble(weight.toString());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid weight " + weight, e);
+    }
+  }
+
+  // Whole number weights are written as integers to keep configuration files tidy.
+  private static Object getWeight(double weight) {
+    return weight % 1 == 0 && weight <= Long.MAX_VALUE ? (Object) (long) weight : weight;
+  }
+}
@@ -1,5 +1,7 @@
 package com.supaham.commons.utils;
 
+import com.google.common.base.Preconditions;
+
 import java.util.Arrays;
 
 import javax.annotation.Nonnull;
@@ -124,6 +126,19 @@ public final class ArrayUtils extends org.apache.commons.lang.ArrayUtils {
    * @return the random element
    */
   public static <T> T getRandomElement(T[] array) {
-    return array[RandomUtils.nextInt(array.length)];
+    return getRandomElement(RandomUtils.getSource(), array);
+  }
+
+  /**
+   * Gets a random element in an array.
+   *
+   * @param source random source to use
+   * @param array array to use
+   *
+   * @return the random element
+   */
+  public static <T> T getRandomElement(@Nonnull RandomSource source, T[] array) {
+    Preconditions.checkNotNull(source, "source cannot be null.");
+    return array[source.nextInt(array.length)];
   }
 }
@@ -5,13 +5,16 @@ import com.google.common.base.Preconditions;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -27,7 +30,12 @@ import pluginbase.config.serializers.SerializerSet;
  */
 public class BeanUtils {
 
-  private static final Map<Class, PropertyCacheList> CACHE_MAP = new HashMap<>();
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final ClassValue<PropertyCacheList> CACHE = new ClassValue<PropertyCacheList>() {
+    @Override protected PropertyCacheList computeValue(Class<?> type) {
+      return new PropertyCacheList(type);
+    }
+  };
 
   /**
    * Returns a Map of field names and their serialized values for a given {@link Object}. This object is cached after
@@ -56,31 +64,75 @@ public class BeanUtils {
    */
   public static Map<String, Object> getPropertiesList(@Nonnull Object object, @Nullable SerializerSet serializerSet) {
     Preconditions.checkNotNull(object, "object cannot be null.");
-    try {
-      final Class<?> clazz = object.getClass();
-      PropertyCacheList cache = CACHE_MAP.get(clazz);
-      if (cache == null) {
-        CACHE_MAP.put(clazz, cache = new PropertyCacheList(clazz));
-      }
+    PropertyCacheList cache = getCache(object.getClass());
+    if (cache == null) {
+      return null;
+    }
+    Map<String, Object> result = new LinkedHashMap<>();
+    for (PropertyCache propertyCache : cache) {
+      result.put(propertyCache.name, propertyCache.invoke(object, serializerSet));
+    }
+    return result;
+  }
 
-      Map<String, Object> result = new LinkedHashMap<>();
-      for (PropertyCache propertyCache : cache) {
-        result.put(propertyCache.descriptor.getName(), propertyCache.invoke(object, serializerSet));
-      }
-      return result;
-    } catch (IntrospectionException e) {
-      e.printStackTrace();
+  /**
+   * Passes each field name and its value of a given {@link Object} to a {@link BiConsumer}. This is equivalent to
+   * calling {@link #forEachProperty(Object, SerializerSet, BiConsumer)} with a null SerializerSet.
+   *
+   * @param object object to get properties from
+   * @param consumer consumer of field names and field values
+   */
+  public static void forEachProperty(@Nonnull Object object, @Nonnull BiConsumer<String, Object> consumer) {
+    forEachProperty(object, null, consumer);
+  }
+
+  /**
+   * Passes each field name and its serialized value of a given {@link Object} to a {@link BiConsumer}, in the same
+   * order as {@link #getPropertiesList(Object, SerializerSet)}, without building a Map.
+   *
+   * @param object object to get properties from
+   * @param serializerSet serializer set to control serialization, nullable
+   * @param consumer consumer of field names and field values
+   */
+  public static void forEachProperty(@Nonnull Object object, @Nullable SerializerSet serializerSet,
+                                     @Nonnull BiConsumer<String, Object> consumer) {
+    Preconditions.checkNotNull(object, "object cannot be null.");
+    Preconditions.checkNotNull(consumer, "consumer cannot be null.");
+    PropertyCacheList cache = getCache(object.getClass());
+    if (cache == null) {
+      return;
+    }
+    for (PropertyCache propertyCache : cache) {
+      consumer.accept(propertyCache.name, propertyCache.invoke(object, serializerSet));
+    }
+  }
+
+  @Nullable
+  private static PropertyCacheList getCache(Class<?> clazz) {
+    PropertyCacheList cache = CACHE.get(clazz);
+    if (cache.exception != null) {
+      cache.exception.printStackTrace();
       return null;
     }
+    return cache;
   }
 
   /*
-   * ArrayList collection of PropertyCache objects. Each class has one of these lists.
+   * ArrayList collection of PropertyCache objects. Each class has one of these lists, computed once by a ClassValue.
    */
   private static final class PropertyCacheList extends ArrayList<PropertyCache> {
 
-    public PropertyCacheList(Class clazz) throws IntrospectionException {
-      for (PropertyDescriptor descriptor : Introspector.getBeanInfo(clazz).getPropertyDescriptors()) {
+    private IntrospectionException exception;
+
+    public PropertyCacheList(Class clazz) {
+      PropertyDescriptor[] descriptors;
+      try {
+        descriptors = Introspector.getBeanInfo(clazz).getPropertyDescriptors();
+      } catch (IntrospectionException e) {
+        this.exception = e;
+        return;
+      }
+      for (PropertyDescriptor descriptor : descriptors) {
         if (!descriptor.getName().equals("class") // class prints current class (useless to us).
             && descriptor.getReadMethod() != null) {
           Field declaredField;
@@ -96,6 +148,7 @@ public class BeanUtils {
           add(new PropertyCache(declaredField, descriptor));
         }
       }
+      trimToSize();
     }
 
     private Field getField(Class clazz, String name) throws NoSuchFieldException {
@@ -111,17 +164,40 @@ public class BeanUtils {
   }
 
   /*
-   * Serves as a cache for both Field and a descriptor. This class makes use of the optional SerializerSet allowing
-   * for custom serialization.
+   * Serves as a cache for a property's getter, compiled into a MethodHandle, and its serializer. The @SerializeWith
+   * annotation is read once, and the serializer is resolved once per SerializerSet, which in practice is always the
+   * same instance.
    */
   private static final class PropertyCache {
 
-    private Field field;
-    private PropertyDescriptor descriptor;
+    private final String name;
+    private final Class<?> returnType;
+    private final Class<? extends Serializer> serializeWith;
+    private final MethodHandle getter;
+    private volatile ResolvedSerializer resolved;
 
     public PropertyCache(Field field, PropertyDescriptor descriptor) {
-      this.field = field;
-      this.descriptor = descriptor;
+      Method readMethod = descriptor.getReadMethod();
+      this.name = descriptor.getName();
+      this.returnType = readMethod.getReturnType();
+      SerializeWith annotation = field.getDeclaredAnnotation(SerializeWith.class);
+      this.serializeWith = annotation == null ? null : annotation.value();
+      this.getter = unreflect(readMethod);
+    }
+
+    private static MethodHandle unreflect(Method method) {
+      try {
+        method.setAccessible(true);
+      } catch (RuntimeException ignored) {
+        // Not allowed to suppress access checks, unreflect will tell us if the method is accessible.
+      }
+      try {
+        return MethodHandles.lookup().unreflect(method).asType(GETTER_TYPE);
+      } catch (IllegalAccessException e) {
+        // Surface the failure on invocation, as Method.invoke always has.
+        MethodHandle thrower = MethodHandles.throwException(Object.class, IllegalAccessException.class).bindTo(e);
+        return MethodHandles.dropArguments(thrower, 0, Object.class);
+      }
     }
 
     public Object invoke(Object object) {
@@ -129,27 +205,43 @@ public class BeanUtils {
     }
 
     public Object invoke(Object object, SerializerSet serializerSet) {
-      Class<?> returnType = descriptor.getReadMethod().getReturnType();
       Object invoke;
       try {
-        invoke = descriptor.getReadMethod().invoke(object);
-      } catch (IllegalAccessException | InvocationTargetException e) {
-        e.printStackTrace();
+        invoke = (Object) getter.invokeExact(object);
+      } catch (Throwable t) {
+        t.printStackTrace();
         return null;
       }
       if (serializerSet == null) {
         return invoke;
       } else {
+        return getSerializer(serializerSet).serialize(invoke, serializerSet);
+      }
+    }
+
+    private Serializer getSerializer(SerializerSet serializerSet) {
+      ResolvedSerializer resolved = this.resolved;
+      if (resolved == null || resolved.serializerSet != serializerSet) {
         Serializer serializer;
-        SerializeWith annotation = field.getDeclaredAnnotation(SerializeWith.class);
-        if (annotation != null) {
-          serializer = serializerSet.getSerializerInstance(annotation.value());
+        if (serializeWith != null) {
+          serializer = serializerSet.getSerializerInstance(serializeWith);
         } else {
           serializer = serializerSet.getClassSerializer(returnType);
         }
-
-        return serializer.serialize(invoke, serializerSet);
+        this.resolved = resolved = new ResolvedSerializer(serializerSet, serializer);
       }
+      return resolved.serializer;
+    }
+  }
+
+  private static final class ResolvedSerializer {
+
+    private final SerializerSet serializerSet;
+    private final Serializer serializer;
+
+    public ResolvedSerializer(SerializerSet serializerSet, Serializer serializer) {
+      this.serializerSet = serializerSet;
+      this.serializer = serializer;
     }
   }
 }
@@ -1,7 +1,13 @@
 package com.supaham.commons.utils;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+
+import javax.annotation.Nonnull;
 
 /**
  * Utility methods for working with {@link Collection}s. This class contains methods such as {@link
@@ -22,7 +28,20 @@ public final class CollectionUtils {
    * @return the random element
    */
   public static <T> T getRandomElement(List<T> list) {
-    return list.get(RandomUtils.nextInt(list.size()));
+    return getRandomElement(RandomUtils.getSource(), list);
+  }
+
+  /**
+   * Gets a random element in a {@link List}.
+   *
+   * @param source random source to use
+   * @param list list to use
+   *
+   * @return the random element
+   */
+  public static <T> T getRandomElement(@Nonnull RandomSource source, @Nonnull List<T> list) {
+    checkNotNull(source, "source cannot be null.");
+    return list.get(source.nextInt(list.size()));
   }
 
   /**
@@ -33,7 +52,30 @@ public final class CollectionUtils {
    * @return the random element
    */
   public static <T> T getRandomElement(Collection<T> collection) {
-    return ((T) getRandomElement(collection.toArray()));
+    return getRandomElement(RandomUtils.getSource(), collection);
+  }
+
+  /**
+   * Gets a random element in a {@link Collection}. {@link RandomAccess} lists are indexed
+   * directly, other collections are iterated up to the chosen element without being copied.
+   *
+   * @param source random source to use
+   * @param collection collection to use
+   *
+   * @return the random element
+   */
+  public static <T> T getRandomElement(@Nonnull RandomSource source,
+                                       @Nonnull Collection<T> collection) {
+    checkNotNull(source, "source cannot be null.");
+    if (collection instanceof List && collection instanceof RandomAccess) {
+      return getRandomElement(source, (List<T>) collection);
+    }
+    int index = source.nextInt(collection.size());
+    Iterator<T> iterator = collection.iterator();
+    for (int i = 0; i < index; i++) {
+      iterator.next();
+    }
+    return iterator.next();
   }
 
   /**
@@ -43,6 +85,13 @@ public final class CollectionUtils {
     return ArrayUtils.getRandomElement(array);
   }
 
+  /**
+   * @see ArrayUtils#getRandomElement(RandomSource, Object[])
+   */
+  public static <T> T getRandomElement(@Nonnull RandomSource source, T[] array) {
+    return ArrayUtils.getRandomElement(source, array);
+  }
+
   /**
    * Returns whether a case-insensitive String is contained within a {@link Collection}.
    *
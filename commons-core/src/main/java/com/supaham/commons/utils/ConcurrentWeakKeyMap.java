@@ -0,0 +1,304 @@
+package com.supaham.commons.utils;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Represents a thread safe {@link ConcurrentMap} whose keys are weakly referenced, backed by a
+ * {@link ConcurrentHashMap}. Once a key is no longer strongly reachable, its entry disappears from
+ * this map. Cleared entries are expunged from a {@link ReferenceQueue} on every operation.
+ * <p />
+ * Keys are compared using {@link Object#equals(Object)} by default, or by identity when
+ * constructed with {@code identity} set to true. Iterators are weakly consistent, like those of
+ * {@link ConcurrentHashMap}, and never throw {@link java.util.ConcurrentModificationException}.
+ * Null keys and values are not permitted.
+ *
+ * @param <K> type of keys this map contains
+ * @param <V> type of values this map contains
+ *
+ * @see ConcurrentWeakSet
+ * @since 0.9.3
+ */
+public class ConcurrentWeakKeyMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+  private final ConcurrentHashMap<Key<K>, V> map;
+  private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+  private final boolean identity;
+
+  private transient Set<Entry<K, V>> entrySet;
+
+  public ConcurrentWeakKeyMap() {
+    this(false);
+  }
+
+  /**
+   * @param identity whether to compare keys by identity rather than by equality
+   */
+  public ConcurrentWeakKeyMap(boolean identity) {
+    this(16, identity);
+  }
+
+  /**
+   * @param initialCapacity initial capacity of the backing map
+   * @param identity whether to compare keys by identity rather than by equality
+   */
+  public ConcurrentWeakKeyMap(int initialCapacity, boolean identity) {
+    this.map = new ConcurrentHashMap<>(initialCapacity);
+    this.identity = identity;
+  }
+
+  /**
+   * Returns whether this map compares keys by identity rather than by equality.
+   *
+   * @return true if keys are compared by identity
+   */
+  public boolean isIdentity() {
+    return identity;
+  }
+
+  /**
+   * Removes all entries whose keys have been garbage collected. This is done automatically by
+   * every operation on this map.
+   */
+  @SuppressWarnings("unchecked")
+  public void expunge() {
+    Reference<? extends K> reference;
+    while ((reference = queue.poll()) != null) {
+      map.remove((WeakKey<K>) reference);
+    }
+  }
+
+  @Override public int size() {
+    expunge();
+    return map.size();
+  }
+
+  @Override public boolean isEmpty() {
+    expunge();
+    return map.isEmpty();
+  }
+
+  @Override public boolean containsKey(Object key) {
+    expunge();
+    return key != null && map.containsKey(new LookupKey<>(key, identity));
+  }
+
+  @Override public boolean containsValue(Object value) {
+    expunge();
+    return map.containsValue(value);
+  }
+
+  @Override public V get(Object key) {
+    expunge();
+    return key == null ? null : map.get(new LookupKey<>(key, identity));
+  }
+
+  @Override public V put(@Nonnull K key, @Nonnull V value) {
+    Preconditions.checkNotNull(key, "key cannot be null.");
+    expunge();
+    return map.put(new WeakKey<>(key, queue, identity), value);
+  }
+
+  @Override public V putIfAbsent(@Nonnull K key, @Nonnull V value) {
+    Preconditions.checkNotNull(key, "key cannot be null.");
+    expunge();
+    return map.putIfAbsent(new WeakKey<>(key, queue, identity), value);
+  }
+
+  @Override public V remove(Object key) {
+    expunge();
+    return key == null ? null : map.remove(new LookupKey<>(key, identity));
+  }
+
+  @Override public boolean remove(Object key, Object value) {
+    expunge();
+    return key != null && map.remove(new LookupKey<>(key, identity), value);
+  }
+
+  @Override public boolean replace(@Nonnull K key, @Nonnull V oldValue, @Nonnull V newValue) {
+    Preconditions.checkNotNull(key, "key cannot be null.");
+    expunge();
+    return map.replace(new LookupKey<K>(key, identity), oldValue, newValue);
+  }
+
+  @Override public V replace(@Nonnull K key, @Nonnull V value) {
+    Preconditions.checkNotNull(key, "key cannot be null.");
+    expunge();
+    return map.replace(new LookupKey<K>(key, identity), value);
+  }
+
+  @Override public void clear() {
+    map.clear();
+    expunge();
+  }
+
+  @Nonnull @Override public Set<Entry<K, V>> entrySet() {
+    Set<Entry<K, V>> entrySet = this.entrySet;
+    return entrySet == null ? (this.entrySet = new EntrySet()) : entrySet;
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+    @Override public int size() {
+      return ConcurrentWeakKeyMap.this.size();
+    }
+
+    @Override public boolean contains(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      V value = get(entry.getKey());
+      return value != null && value.equals(entry.getValue());
+    }
+
+    @Override public boolean remove(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      return ConcurrentWeakKeyMap.this.remove(entry.getKey(), entry.getValue());
+    }
+
+    @Override public void clear() {
+      ConcurrentWeakKeyMap.this.clear();
+    }
+
+    @Nonnull @Override public Iterator<Entry<K, V>> iterator() {
+      expunge();
+      final Iterator<Entry<Key<K>, V>> iterator = map.entrySet().iterator();
+      return new Iterator<Entry<K, V>>() {
+        private Entry<K, V> next;
+        private K lastKey;
+
+        @Override public boolean hasNext() {
+          // Skip entries whose keys have been cleared, holding on to the next key strongly.
+          while (next == null && iterator.hasNext()) {
+            Entry<Key<K>, V> entry = iterator.next();
+            K key = entry.getKey().get();
+            if (key != null) {
+              next = new WriteThroughEntry(key, entry.getValue());
+            }
+          }
+          return next != null;
+        }
+
+        @Override public Entry<K, V> next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          Entry<K, V> result = next;
+          lastKey = result.getKey();
+          next = null;
+          return result;
+        }
+
+        @Override public void remove() {
+          Preconditions.checkState(lastKey != null, "next() has not been called.");
+          ConcurrentWeakKeyMap.this.remove(lastKey);
+          lastKey = null;
+        }
+      };
+    }
+  }
+
+  private final class WriteThroughEntry extends SimpleEntry<K, V> {
+
+    public WriteThroughEntry(K key, V value) {
+      super(key, value);
+    }
+
+    @Override public V setValue(V value) {
+      Preconditions.checkNotNull(value, "value cannot be null.");
+      put(getKey(), value);
+      return super.setValue(value);
+    }
+  }
+
+  /*
+   * Common view of stored weak keys and short lived lookup keys, so that lookups don't have to
+   * create and enqueue weak references.
+   */
+  private interface Key<K> {
+
+    @Nullable
+    K get();
+  }
+
+  private static boolean keyEquals(Key<?> key, Object o, boolean identity) {
+    if (key == o) {
+      return true;
+    }
+    if (!(o instanceof Key)) {
+      return false;
+    }
+    Object a = key.get();
+    Object b = ((Key<?>) o).get();
+    // Cleared references are only equal to themselves.
+    return a != null && (identity ? a == b : a.equals(b));
+  }
+
+  private static int keyHash(Object key, boolean identity) {
+    return identity ? System.identityHashCode(key) : key.hashCode();
+  }
+
+  private static final class WeakKey<K> extends WeakReference<K> implements Key<K> {
+
+    private final int hash;
+    private final boolean identity;
+
+    public WeakKey(K referent, ReferenceQueue<? super K> queue, boolean identity) {
+      super(referent, queue);
+      this.hash = keyHash(referent, identity);
+      this.identity = identity;
+    }
+
+    @Override public boolean equals(Object o) {
+      return keyEquals(this, o, identity);
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final class LookupKey<K> implements Key<K> {
+
+    private final K referent;
+    private final int hash;
+    private final boolean identity;
+
+    @SuppressWarnings("unchecked")
+    public LookupKey(Object referent, boolean identity) {
+      this.referent = (K) referent;
+      this.hash = keyHash(referent, identity);
+      this.identity = identity;
+    }
+
+    @Override public K get() {
+      return referent;
+    }
+
+    @Override public boolean equals(Object o) {
+      return keyEquals(this, o, identity);
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.supaham.commons.utils;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents a thread safe {@link WeakSet} alternative, backed by a {@link ConcurrentWeakKeyMap}.
+ * Elements are weakly referenced and are expunged as soon as possible once garbage collected.
+ * Iterators are weakly consistent and never throw
+ * {@link java.util.ConcurrentModificationException}. Null elements are not permitted.
+ *
+ * @param <E> Type of set
+ *
+ * @see ConcurrentWeakKeyMap
+ * @since 0.9.3
+ */
+public class ConcurrentWeakSet<E> extends AbstractSet<E> {
+
+  private final ConcurrentWeakKeyMap<E, Boolean> map;
+
+  public ConcurrentWeakSet() {
+    this(false);
+  }
+
+  /**
+   * @param identity whether to compare elements by identity rather than by equality
+   */
+  public ConcurrentWeakSet(boolean identity) {
+    this.map = new ConcurrentWeakKeyMap<>(identity);
+  }
+
+  public ConcurrentWeakSet(Collection<? extends E> c) {
+    this.map = new ConcurrentWeakKeyMap<>(Math.max(16, c.size()), false);
+    addAll(c);
+  }
+
+  @Override public boolean add(E e) {
+    return this.map.putIfAbsent(e, Boolean.TRUE) == null;
+  }
+
+  @Override public boolean remove(Object o) {
+    return this.map.remove(o) != null;
+  }
+
+  @Override public boolean contains(Object o) {
+    return this.map.containsKey(o);
+  }
+
+  @Override public void clear() {
+    this.map.clear();
+  }
+
+  @Nonnull @Override public Iterator<E> iterator() {
+    return map.keySet().iterator();
+  }
+
+  @Override public int size() {
+    return map.size();
+  }
+
+  @Override public boolean isEmpty() {
+    return map.isEmpty();
+  }
+}
@@ -0,0 +1,507 @@
+package com.supaham.commons.utils;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.supaham.commons.utils.ExpiringSet.RemovalListener;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Represents a {@link Map} with expiring entries. Each entry has its own duration, defaulting to
+ * the duration given at construction, and the expiry countdown starts when the entry has been
+ * put in this map.
+ * <p />
+ * Expiry is driven by a hierarchical timing wheel with a resolution of one millisecond, making
+ * both inserting and expiring an entry O(1). The wheel is advanced by every operation on this map
+ * using the {@link Ticker} given at construction, or explicitly through {@link #advance(long)}.
+ * Expired entries that haven't been swept yet are never visible. Removed entries, whether expired
+ * or explicitly removed, are passed to the {@link RemovalListener} in batches, outside of this
+ * map's lock.
+ * <p />
+ * This class is thread safe. Iterators work on a snapshot of this map and never throw
+ * {@link java.util.ConcurrentModificationException}.
+ *
+ * @param <K> type of keys this map contains
+ * @param <V> type of values this map contains
+ *
+ * @since 0.9.3
+ */
+public class ExpiringMap<K, V> extends AbstractMap<K, V> {
+
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final int SHIFT = 6;
+  private static final int BUCKETS = 1 << SHIFT;
+  private static final int MASK = BUCKETS - 1;
+  // 64^7 one millisecond ticks cover well over a hundred years.
+  private static final int LEVELS = 7;
+  // Keeps deadlines far away from overflowing.
+  private static final long MAX_DURATION_NANOS = Long.MAX_VALUE / 4;
+
+  private final Object lock = new Object();
+  private final Map<K, Node<K, V>> map = new HashMap<>();
+  private final Node<K, V>[][] wheel;
+  private final long defaultDurationNanos;
+  private final RemovalListener<Entry<K, V>> removalListener;
+  private final Ticker ticker;
+  private final long origin;
+  private long currentNanos;
+  private long currentTick;
+  // Removed entries waiting to be passed to the removal listener.
+  private List<Entry<K, V>> pendingRemovals = new ArrayList<>();
+
+  private transient Set<Entry<K, V>> entrySet;
+
+  public ExpiringMap(long duration, @Nonnull TimeUnit unit) {
+    this(duration, unit, null);
+  }
+
+  public ExpiringMap(long duration, @Nonnull TimeUnit unit,
+                     @Nullable RemovalListener<Entry<K, V>> removalListener) {
+    this(duration, unit, removalListener, Ticker.systemTicker());
+  }
+
+  /**
+   * @param duration default duration of entries
+   * @param unit unit of {@code duration}
+   * @param removalListener listener to notify of removed entries, nullable
+   * @param ticker ticker providing the current time in nanoseconds
+   */
+  @SuppressWarnings("unchecked")
+  public ExpiringMap(long duration, @Nonnull TimeUnit unit,
+                     @Nullable RemovalListener<Entry<K, V>> removalListener,
+                     @Nonnull Ticker ticker) {
+    Preconditions.checkNotNull(unit, "unit cannot be null.");
+    Preconditions.checkNotNull(ticker, "ticker cannot be null.");
+    Preconditions.checkArgument(duration > 0, "duration must be positive: %s %s", duration, unit);
+    this.defaultDurationNanos = Math.min(unit.toNanos(duration), MAX_DURATION_NANOS);
+    this.removalListener = removalListener;
+    this.ticker = ticker;
+    this.origin = this.currentNanos = ticker.read();
+
+    this.wheel = new Node[LEVELS][BUCKETS];
+    for (Node<K, V>[] buckets : this.wheel) {
+      for (int i = 0; i < buckets.length; i++) {
+        Node<K, V> sentinel = new Node<>(null, null, 0);
+        sentinel.next = sentinel.previous = sentinel;
+        buckets[i] = sentinel;
+      }
+    }
+  }
+
+  @Override public int size() {
+    try {
+      synchronized (lock) {
+        long now = ticker.read();
+        expire(now);
+        sweepDue(now);
+        return map.size();
+      }
+    } finally {
+      notifyRemovals();
+    }
+  }
+
+  @Override public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override public V get(Object key) {
+    try {
+      synchronized (lock) {
+        long now = ticker.read();
+        expire(now);
+        Node<K, V> node = getLive(key, now);
+        return node == null ? null : node.value;
+      }
+    } finally {
+      notifyRemovals();
+    }
+  }
+
+  /**
+   * Puts an entry in this map with the default duration given at construction.
+   *
+   * @see #put(Object, Object, long, TimeUnit)
+   */
+  @Override public V put(K key, V value) {
+    return put(key, value, defaultDurationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Puts an entry in this map that expires after the given duration. If the key is already mapped,
+   * its value is replaced and its expiry countdown restarts.
+   *
+   * @param key key to put
+   * @param value value to put
+   * @param duration duration of the entry
+   * @param unit unit of {@code duration}
+   *
+   * @return the previous value of the key, or null if there was none
+   */
+  public V put(@Nonnull K key, @Nonnull V value, long duration, @Nonnull TimeUnit unit) {
+    Preconditions.checkNotNull(key, "key cannot be null.");
+    Preconditions.checkNotNull(value, "value cannot be null.");
+    Preconditions.checkNotNull(unit, "unit cannot be null.");
+    Preconditions.checkArgument(duration > 0, "duration must be positive: %s %s", duration, unit);
+    try {
+      synchronized (lock) {
+        long now = ticker.read();
+        expire(now);
+        Node<K, V> previous = getLive(key, now);
+        if (previous != null) {
+          previous.unlink();
+        }
+        Node<K, V> node = new Node<>(key, value,
+                                     now + Math.min(unit.toNanos(duration), MAX_DURATION_NANOS));
+        map.put(key, node);
+        schedule(node);
+        return previous == null ? null : previous.value;
+      }
+    } finally {
+      notifyRemovals();
+    }
+  }
+
+  @Override public V remove(Object key) {
+    try {
+      synchronized (lock) {
+        long now = ticker.read();
+        expire(now);
+        Node<K, V> node = getLive(key, now);
+        if (node == null) {
+          return null;
+        }
+        map.remove(key);
+        node.unlink();
+        removed(node);
+        return node.value;
+      }
+    } finally {
+      notifyRemovals();
+    }
+  }
+
+  @Override public void clear() {
+    try {
+      synchronized (lock) {
+        for (Node<K, V> node : map.values()) {
+          node.unlink();
+          removed(node);
+        }
+        map.clear();
+      }
+    } finally {
+      notifyRemovals();
+    }
+  }
+
+  /**
+   * Gets the remaining duration of an entry in this map.
+   *
+   * @param key key of the entry
+   * @param unit unit to return the duration in
+   *
+   * @return remaining duration, or -1 if the key is not mapped
+   */
+  public long getExpiresIn(Object key, @Nonnull TimeUnit unit) {
+    Preconditions.checkNotNull(unit, "unit cannot be null.");
+    synchronized (lock) {
+      long now = ticker.read();
+      Node<K, V> node = map.get(key);
+      if (node == null || node.isExpired(now)) {
+        return -1;
+      }
+      return unit.convert(node.deadline - now, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Nonnull @Override public Set<Entry<K, V>> entrySet() {
+    Set<Entry<K, V>> entrySet = this.entrySet;
+    return entrySet == null ? (this.entrySet = new EntrySet()) : entrySet;
+  }
+
+  /**
+   * Cleans up this map. This expires outdated entries using this map's {@link Ticker}. Otherwise,
+   * expiries occur during read and write operations.
+   */
+  public void cleanUp() {
+    advance(ticker.read());
+  }
+
+  /**
+   * Advances this map's timing wheel to the given time, expiring all entries whose deadline has
+   * passed. Time never goes backwards, so advancing to an earlier time does nothing.
+   *
+   * @param nowNanos current time in nanoseconds, as read from this map's {@link Ticker}
+   */
+  public void advance(long nowNanos) {
+    try {
+      synchronized (lock) {
+        expire(nowNanos);
+        sweepDue(nowNanos);
+      }
+    } finally {
+      notifyRemovals();
+    }
+  }
+
+  /*
+   * Must be called while holding the lock.
+   */
+  private void expire(long nowNanos) {
+    if (nowNanos - currentNanos <= 0) {
+      return;
+    }
+    currentNanos = nowNanos;
+    long previousTick = currentTick;
+    long tick = (nowNanos - origin) / TICK_NANOS;
+    if (tick <= previousTick) {
+      return;
+    }
+    currentTick = tick;
+
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = level * SHIFT;
+      long previous = previousTick >>> shift;
+      long current = tick >>> shift;
+      if (current == previous) {
+        break; // Higher levels haven't moved either.
+      }
+      // Visit every bucket passed since the previous tick, at most one full turn.
+      long count = Math.min(current - previous, BUCKETS);
+      for (long i = previous + 1; count-- > 0; i++) {
+        Node<K, V> sentinel = wheel[level][(int) (i & MASK)];
+        Node<K, V> node = sentinel.next;
+        sentinel.next = sentinel.previous = sentinel;
+        while (node != sentinel) {
+          Node<K, V> next = node.next;
+          node.next = node.previous = null;
+          if (node.isExpired(nowNanos)) {
+            map.remove(node.key);
+            removed(node);
+          } else {
+            schedule(node); // Cascade down to a finer level.
+          }
+          node = next;
+        }
+      }
+    }
+  }
+
+  /*
+   * Returns the node of a key, expiring it if its deadline has passed within the current tick,
+   * before the wheel swept it. Must be called while holding the lock.
+   */
+  private Node<K, V> getLive(Object key, long nowNanos) {
+    Node<K, V> node = map.get(key);
+    if (node != null && node.isExpired(nowNanos)) {
+      map.remove(key);
+      node.unlink();
+      removed(node);
+      return null;
+    }
+    return node;
+  }
+
+  /*
+   * Expires the entries whose deadline has passed within the current tick. Those are all in the
+   * bucket of the next tick, as deadlines are rounded up to whole ticks. Must be called while
+   * holding the lock.
+   */
+  private void sweepDue(long nowNanos) {
+    Node<K, V> sentinel = wheel[0][(int) ((currentTick + 1) & MASK)];
+    Node<K, V> node = sentinel.next;
+    while (node != sentinel) {
+      Node<K, V> next = node.next;
+      if (node.isExpired(nowNanos)) {
+        map.remove(node.key);
+        node.unlink();
+        removed(node);
+      }
+      node = next;
+    }
+  }
+
+  /*
+   * Places a node in the bucket of the finest level whose span covers the node's deadline. Must be
+   * called while holding the lock.
+   */
+  private void schedule(Node<K, V> node) {
+    long deadlineTick = ceilDiv(node.deadline - origin, TICK_NANOS);
+    if (deadlineTick <= currentTick) {
+      deadlineTick = currentTick + 1; // Already due, sweep it on the next tick.
+    }
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = level * SHIFT;
+      long deadline = deadlineTick >>> shift;
+      long current = currentTick >>> shift;
+      if (deadline - current < BUCKETS || level == LEVELS - 1) {
+        deadline = Math.min(deadline, current + BUCKETS - 1);
+        node.linkBefore(wheel[level][(int) (deadline & MASK)]);
+        return;
+      }
+    }
+  }
+
+  private static long ceilDiv(long x, long y) {
+    return -Math.floorDiv(-x, y);
+  }
+
+  private void removed(Node<K, V> node) {
+    if (removalListener != null) {
+      pendingRemovals.add(node);
+    }
+  }
+
+  private void notifyRemovals() {
+    if (removalListener == null) {
+      return;
+    }
+    List<Entry<K, V>> removals;
+    synchronized (lock) {
+      if (pendingRemovals.isEmpty()) {
+        return;
+      }
+      removals = pendingRemovals;
+      pendingRemovals = new ArrayList<>();
+    }
+    removalListener.onRemovals(Collections.unmodifiableList(removals));
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+    @Override public int size() {
+      return ExpiringMap.this.size();
+    }
+
+    @Override public boolean contains(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      V value = get(entry.getKey());
+      return value != null && value.equals(entry.getValue());
+    }
+
+    @Override public boolean remove(Object o) {
+      return contains(o) && ExpiringMap.this.remove(((Entry<?, ?>) o).getKey()) != null;
+    }
+
+    @Override public void clear() {
+      ExpiringMap.this.clear();
+    }
+
+    @Nonnull @Override public Iterator<Entry<K, V>> iterator() {
+      final List<Entry<K, V>> snapshot;
+      try {
+        synchronized (lock) {
+          long now = ticker.read();
+          expire(now);
+          sweepDue(now);
+          snapshot = new ArrayList<Entry<K, V>>(map.values());
+        }
+      } finally {
+        notifyRemovals();
+      }
+      final Iterator<Entry<K, V>> iterator = snapshot.iterator();
+      return new Iterator<Entry<K, V>>() {
+        private Entry<K, V> last;
+
+        @Override public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override public Entry<K, V> next() {
+          return last = iterator.next();
+        }
+
+        @Override public void remove() {
+          Preconditions.checkState(last != null, "next() has not been called.");
+          ExpiringMap.this.remove(last.getKey());
+          last = null;
+        }
+      };
+    }
+  }
+
+  /*
+   * An entry of this map, doubling as a node of a timing wheel bucket's circular linked list.
+   */
+  private static final class Node<K, V> implements Entry<K, V> {
+
+    private final K key;
+    private final V value;
+    private final long deadline;
+    private Node<K, V> previous;
+    private Node<K, V> next;
+
+    public Node(K key, V value, long deadline) {
+      this.key = key;
+      this.value = value;
+      this.deadline = deadline;
+    }
+
+    private boolean isExpired(long now) {
+      return deadline - now <= 0;
+    }
+
+    private void linkBefore(Node<K, V> sentinel) {
+      this.next = sentinel;
+      this.previous = sentinel.previous;
+      sentinel.previous.next = this;
+      sentinel.previous = this;
+    }
+
+    private void unlink() {
+      if (this.next != null) {
+        this.previous.next = this.next;
+        this.next.previous = this.previous;
+        this.next = this.previous = null;
+      }
+    }
+
+    @Override public K getKey() {
+      return key;
+    }
+
+    @Override public V getValue() {
+      return value;
+    }
+
+    @Override public V setValue(V value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public boolean equals(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      return key.equals(entry.getKey()) && value.equals(entry.getValue());
+    }
+
+    @Override public int hashCode() {
+      return key.hashCode() ^ value.hashCode();
+    }
+
+    @Override public String toString() {
+      return key + "=" + value;
+    }
+  }
+}
@@ -1,14 +1,15 @@
 package com.supaham.commons.utils;
 
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalNotification;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
 
 import org.jetbrains.annotations.NotNull;
 
 import java.util.AbstractSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -17,16 +18,16 @@ import javax.annotation.Nullable;
 
 /**
  * Represents a {@link Set} with expiring elements. The expiry countdown starts when an item has
- * been added to this set using {@link #add(Object)}.
+ * been added to this set using {@link #add(Object)}, or {@link #add(Object, long, TimeUnit)} for
+ * an element specific duration.
+ * <p />
+ * This set is backed by an {@link ExpiringMap}, see its documentation for details on expiry.
  *
  * @param <E> type of element this set contains
  */
 public class ExpiringSet<E> extends AbstractSet<E> implements Set<E> {
 
-  // Dummy value to associate with an Object in the backing Cache
-  private static final Object PRESENT = new Object();
-
-  private final Cache<E, Object> cache;
+  private final ExpiringMap<E, Boolean> map;
 
   public ExpiringSet(long duration, @Nonnull TimeUnit unit) {
     this(duration, unit, null);
@@ -34,61 +35,87 @@ public class ExpiringSet<E> extends AbstractSet<E> implements Set<E> {
 
   public ExpiringSet(long duration, @Nonnull TimeUnit unit,
                      @Nullable final RemovalListener<E> removalListener) {
+    this(duration, unit, removalListener, Ticker.systemTicker());
+  }
+
+  /**
+   * @param duration default duration of elements
+   * @param unit unit of {@code duration}
+   * @param removalListener listener to notify of removed elements, nullable
+   * @param ticker ticker providing the current time in nanoseconds
+   */
+  public ExpiringSet(long duration, @Nonnull TimeUnit unit,
+                     @Nullable final RemovalListener<E> removalListener, @Nonnull Ticker ticker) {
     Preconditions.checkNotNull(unit, "unit cannot be null.");
     Preconditions.checkArgument(duration > 0, "duration must be positive: %s %s", duration, unit);
 
-    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
-        .expireAfterWrite(duration, unit);
-
+    RemovalListener<Entry<E, Boolean>> listener = null;
     if (removalListener != null) {
-      builder.removalListener(new com.google.common.cache.RemovalListener<E, Object>() {
-        @Override public void onRemoval(@Nonnull RemovalNotification<E, Object> notification) {
-          removalListener.onRemoval(notification.getKey());
+      listener = new RemovalListener<Entry<E, Boolean>>() {
+        @Override public void onRemoval(@Nonnull Entry<E, Boolean> entry) {
+          removalListener.onRemoval(entry.getKey());
         }
-      });
-    }
 
-    cache = builder.build();
+        @Override public void onRemovals(@Nonnull List<Entry<E, Boolean>> entries) {
+          removalListener.onRemovals(Lists.transform(entries, Entry::getKey));
+        }
+      };
+    }
+    this.map = new ExpiringMap<>(duration, unit, listener, ticker);
   }
 
   @Override public int size() {
-    return (int) cache.size();
+    return map.size();
   }
 
   @Override public boolean isEmpty() {
-    return size() == 0;
+    return map.isEmpty();
   }
 
   @Override public boolean contains(Object o) {
-    return cache.getIfPresent(o) != null;
+    return map.containsKey(o);
   }
 
   @NotNull @Override public Iterator<E> iterator() {
-    return cache.asMap().keySet().iterator();
-  }
-
-  @NotNull @Override public Object[] toArray() {
-    return cache.asMap().keySet().toArray();
+    return map.keySet().iterator();
   }
 
-  @NotNull @Override public <T> T[] toArray(@Nonnull T[] a) {
-    return cache.asMap().keySet().toArray(a);
+  @Override public boolean add(E e) {
+    return map.put(e, Boolean.TRUE) == null;
   }
 
-  @Override public boolean add(E e) {
-    int size = size();
-    cache.put(e, PRESENT);
-    return size != size();
+  /**
+   * Adds an element to this set that expires after the given duration, rather than the default
+   * duration given at construction.
+   *
+   * @param e element to add
+   * @param duration duration of the element
+   * @param unit unit of {@code duration}
+   *
+   * @return true if this set did not already contain the element
+   */
+  public boolean add(@Nonnull E e, long duration, @Nonnull TimeUnit unit) {
+    return map.put(e, Boolean.TRUE, duration, unit) == null;
   }
 
   @Override public boolean remove(Object o) {
-    int size = size();
-    cache.invalidate(o);
-    return size != size();
+    return map.remove(o) != null;
   }
 
   @Override public void clear() {
-    cache.invalidateAll();
+    map.clear();
+  }
+
+  /**
+   * Gets the remaining duration of an element in this set.
+   *
+   * @param o element
+   * @param unit unit to return the duration in
+   *
+   * @return remaining duration, or -1 if the element is not in this set
+   */
+  public long getExpiresIn(Object o, @Nonnull TimeUnit unit) {
+    return map.getExpiresIn(o, unit);
   }
 
   /**
@@ -96,7 +123,18 @@ public class ExpiringSet<E> extends AbstractSet<E> implements Set<E> {
    * occur during read and write operations.
    */
   public void cleanUp() {
-    this.cache.cleanUp();
+    this.map.cleanUp();
+  }
+
+  /**
+   * Advances this set to the given time, expiring all elements whose deadline has passed.
+   *
+   * @param nowNanos current time in nanoseconds, as read from this set's {@link Ticker}
+   *
+   * @see ExpiringMap#advance(long)
+   */
+  public void advance(long nowNanos) {
+    this.map.advance(nowNanos);
   }
 
   /**
@@ -110,5 +148,17 @@ public class ExpiringSet<E> extends AbstractSet<E> implements Set<E> {
      * @param e element, nonnull
      */
     void onRemoval(@Nonnull E e);
+
+    /**
+     * Called when elements have been removed in a batch, e.g. when many elements expire at once.
+     * By default, this calls {@link #onRemoval(Object)} for each element.
+     *
+     * @param elements removed elements
+     */
+    default void onRemovals(@Nonnull List<E> elements) {
+      for (E e : elements) {
+        onRemoval(e);
+      }
+    }
   }
 }
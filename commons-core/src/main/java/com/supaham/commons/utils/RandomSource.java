@@ -0,0 +1,327 @@
+package com.supaham.commons.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents a source of pseudorandom numbers. Unlike a shared {@link Random}, whose seed is
+ * updated atomically by every caller, a {@link RandomSource} is either per-thread
+ * ({@link #threadLocal()}) or owned by a single task ({@link #create()}, {@link #seeded(long)}).
+ * <p />
+ * Sources backed by {@link SplittableRandom} are <b>not</b> thread safe. To use one from multiple
+ * threads, give each thread its own {@link #split()} of it. Splitting a seeded source yields the
+ * same streams every time, making parallel simulations reproducible.
+ * <p />
+ * All bounded methods follow the JDK convention of an inclusive origin and an exclusive bound.
+ *
+ * @see RandomUtils#getSource()
+ * @since 0.9.3
+ */
+public abstract class RandomSource {
+
+  private static final RandomSource THREAD_LOCAL = new ThreadLocalSource();
+
+  /**
+   * Returns a thread safe {@link RandomSource} that delegates to
+   * {@link ThreadLocalRandom#current()} of the calling thread.
+   *
+   * @return thread local random source
+   */
+  public static RandomSource threadLocal() {
+    return THREAD_LOCAL;
+  }
+
+  /**
+   * Returns a new {@link RandomSource} backed by a {@link SplittableRandom} with a random seed.
+   *
+   * @return new random source
+   */
+  public static RandomSource create() {
+    return new SplittableSource(new SplittableRandom());
+  }
+
+  /**
+   * Returns a new {@link RandomSource} backed by a {@link SplittableRandom} with the given seed.
+   * Two sources with the same seed produce the same sequence of values.
+   *
+   * @param seed initial seed
+   *
+   * @return new random source
+   */
+  public static RandomSource seeded(long seed) {
+    return new SplittableSource(new SplittableRandom(seed));
+  }
+
+  /**
+   * Returns a {@link RandomSource} backed by the given {@link SplittableRandom}.
+   *
+   * @param random splittable random to use
+   *
+   * @return random source
+   */
+  public static RandomSource of(@Nonnull SplittableRandom random) {
+    checkNotNull(random, "random cannot be null.");
+    return new SplittableSource(random);
+  }
+
+  /**
+   * Returns a {@link RandomSource} backed by the given {@link Random}. If the given instance is a
+   * {@link ThreadLocalRandom}, {@link #threadLocal()} is returned instead.
+   *
+   * @param random random instance to use
+   *
+   * @return random source
+   */
+  public static RandomSource of(@Nonnull Random random) {
+    checkNotNull(random, "random cannot be null.");
+    return random instanceof ThreadLocalRandom ? THREAD_LOCAL : new JdkSource(random);
+  }
+
+  RandomSource() {}
+
+  /**
+   * Returns a pseudorandom int value.
+   *
+   * @return a pseudorandom int
+   */
+  public abstract int nextInt();
+
+  /**
+   * Returns a pseudorandom int value between 0 (inclusive) and the given bound (exclusive).
+   *
+   * @param bound upper bound (exclusive), must be positive
+   *
+   * @return a pseudorandom int
+   */
+  public abstract int nextInt(int bound);
+
+  /**
+   * Returns a pseudorandom int value between the given origin (inclusive) and bound (exclusive).
+   *
+   * @param origin least value returned
+   * @param bound upper bound (exclusive), must be greater than origin
+   *
+   * @return a pseudorandom int
+   */
+  public abstract int nextInt(int origin, int bound);
+
+  /**
+   * Returns a pseudorandom long value.
+   *
+   * @return a pseudorandom long
+   */
+  public abstract long nextLong();
+
+  /**
+   * Returns a pseudorandom long value between 0 (inclusive) and the given bound (exclusive).
+   *
+   * @param bound upper bound (exclusive), must be positive
+   *
+   * @return a pseudorandom long
+   */
+  public long nextLong(long bound) {
+    return nextLong(0, bound);
+  }
+
+  /**
+   * Returns a pseudorandom long value between the given origin (inclusive) and bound (exclusive).
+   *
+   * @param origin least value returned
+   * @param bound upper bound (exclusive), must be greater than origin
+   *
+   * @return a pseudorandom long
+   */
+  public abstract long nextLong(long origin, long bound);
+
+  /**
+   * Returns a pseudorandom double value between 0 (inclusive) and 1 (exclusive).
+   *
+   * @return a pseudorandom double
+   */
+  public abstract double nextDouble();
+
+  /**
+   * Returns a pseudorandom double value between the given origin (inclusive) and bound
+   * (exclusive).
+   *
+   * @param origin least value returned
+   * @param bound upper bound (exclusive), must be greater than origin
+   *
+   * @return a pseudorandom double
+   */
+  public abstract double nextDouble(double origin, double bound);
+
+  /**
+   * Returns a pseudorandom boolean value.
+   *
+   * @return a pseudorandom boolean
+   */
+  public abstract boolean nextBoolean();
+
+  /**
+   * Returns a new {@link RandomSource} that shares no mutable state with this one, suitable for
+   * handing to another thread or task. Splitting a seeded source is deterministic.
+   *
+   * @return new random source
+   */
+  public abstract RandomSource split();
+
+  private static final class ThreadLocalSource extends RandomSource {
+
+    @Override public int nextInt() {
+      return ThreadLocalRandom.current().nextInt();
+    }
+
+    @Override public int nextInt(int bound) {
+      return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    @Override public int nextInt(int origin, int bound) {
+      return ThreadLocalRandom.current().nextInt(origin, bound);
+    }
+
+    @Override public long nextLong() {
+      return ThreadLocalRandom.current().nextLong();
+    }
+
+    @Override public long nextLong(long bound) {
+      return ThreadLocalRandom.current().nextLong(bound);
+    }
+
+    @Override public long nextLong(long origin, long bound) {
+      return ThreadLocalRandom.current().nextLong(origin, bound);
+    }
+
+    @Override public double nextDouble() {
+      return ThreadLocalRandom.current().nextDouble();
+    }
+
+    @Override public double nextDouble(double origin, double bound) {
+      return ThreadLocalRandom.current().nextDouble(origin, bound);
+    }
+
+    @Override public boolean nextBoolean() {
+      return ThreadLocalRandom.current().nextBoolean();
+    }
+
+    @Override public RandomSource split() {
+      return new SplittableSource(new SplittableRandom(ThreadLocalRandom.current().nextLong()));
+    }
+  }
+
+  private static final class SplittableSource extends RandomSource {
+
+    private final SplittableRandom random;
+
+    public SplittableSource(SplittableRandom random) {
+      this.random = random;
+    }
+
+    @Override public int nextInt() {
+      return random.nextInt();
+    }
+
+    @Override public int nextInt(int bound) {
+      return random.nextInt(bound);
+    }
+
+    @Override public int nextInt(int origin, int bound) {
+      return random.nextInt(origin, bound);
+    }
+
+    @Override public long nextLong() {
+      return random.nextLong();
+    }
+
+    @Override public long nextLong(long bound) {
+      return random.nextLong(bound);
+    }
+
+    @Override public long nextLong(long origin, long bound) {
+      return random.nextLong(origin, bound);
+    }
+
+    @Override public double nextDouble() {
+      return random.nextDouble();
+    }
+
+    @Override public double nextDouble(double origin, double bound) {
+      return random.nextDouble(origin, bound);
+    }
+
+    @Override public boolean nextBoolean() {
+      return random.nextBoolean();
+    }
+
+    @Override public RandomSource split() {
+      return new SplittableSource(random.split());
+    }
+  }
+
+  /*
+   * Adapter for plain Random instances, e.g. ones handed to us by Bukkit. Java 8's Random has no
+   * bounded origin methods, so those are implemented here the same way the JDK does.
+   */
+  private static final class JdkSource extends RandomSource {
+
+    private final Random random;
+
+    public JdkSource(Random random) {
+      this.random = random;
+    }
+
+    @Override public int nextInt() {
+      return random.nextInt();
+    }
+
+    @Override public int nextInt(int bound) {
+      return random.nextInt(bound);
+    }
+
+    @Override public int nextInt(int origin, int bound) {
+      checkArgument(origin < bound, "bound must be greater than origin.");
+      int n = bound - origin;
+      if (n > 0) {
+        return random.nextInt(n) + origin;
+      }
+      int r;
+      do {
+        r = random.nextInt();
+      } while (r < origin || r >= bound);
+      return r;
+    }
+
+    @Override public long nextLong() {
+      return random.nextLong();
+    }
+
+    @Override public long nextLong(long origin, long bound) {
+      checkArgument(origin < bound, "bound must be greater than origin.");
+      return RandomUtils.nextLong(random, origin, bound);
+    }
+
+    @Override public double nextDouble() {
+      return random.nextDouble();
+    }
+
+    @Override public double nextDouble(double origin, double bound) {
+      checkArgument(origin < bound, "bound must be greater than origin.");
+      double r = origin + (bound - origin) * random.nextDouble();
+      return r < bound ? r : Math.nextDown(bound);
+    }
+
+    @Override public boolean nextBoolean() {
+      return random.nextBoolean();
+    }
+
+    @Override public RandomSource split() {
+      return new SplittableSource(new SplittableRandom(random.nextLong()));
+    }
+  }
+}
@@ -5,20 +5,26 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Range;
 
+import com.supaham.commons.collections.WeightedRandom;
+
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.annotation.Nonnull;
 
 /**
  * Utility methods for working with {@link Random} instances. This class contains methods such as
  * {@link #nextInt(int)}, {@link #nextLong(long)}, and more.
+ * <p />
+ * Methods that don't take a random instance use the calling thread's {@link ThreadLocalRandom},
+ * so concurrent callers never contend on a shared seed.
  *
  * @since 0.1
  */
 public class RandomUtils {
 
-  private static Random random = new Random();
-
   /**
    * Returns a pseudo-random int between min and max, inclusive. This is equivalent to calling
    * {@link #nextInt(Random, int, int)} with {@link #getRandom()}.
@@ -29,7 +35,7 @@ public class RandomUtils {
    * @return random int in the given range.
    */
   public static int nextInt(int min, int max) {
-    return nextInt(random, min, max);
+    return nextInt(ThreadLocalRandom.current(), min, max);
   }
 
   /**
@@ -57,7 +63,7 @@ public class RandomUtils {
    * @return a pseudorandom value
    */
   public static int nextInt(Range<Integer> range) {
-    return nextInt(random, range);
+    return nextInt(ThreadLocalRandom.current(), range);
   }
 
   /**
@@ -97,7 +103,7 @@ public class RandomUtils {
    * @return random double in the given range.
    */
   public static double nextDouble(double min, double max) {
-    return nextDouble(random, min, max);
+    return nextDouble(ThreadLocalRandom.current(), min, max);
   }
 
   /**
@@ -159,7 +165,7 @@ public class RandomUtils {
    * @see #nextLong(Random, long, long)
    */
   public static long nextLong(long origin, long bound) {
-    return nextLong(random, origin, bound);
+    return nextLong(ThreadLocalRandom.current(), origin, bound);
   }
 
   /**
@@ -195,8 +201,188 @@ public class RandomUtils {
     return r;
   }
 
+  /**
+   * Returns a pseudo-random int between min and max, inclusive.
+   *
+   * @param source random source to use
+   * @param min min range
+   * @param max max range
+   *
+   * @return random int in the given range.
+   */
+  public static int nextInt(@Nonnull RandomSource source, int min, int max) {
+    checkNotNull(source, "source cannot be null.");
+    return max < Integer.MAX_VALUE ? source.nextInt(min, max + 1)
+                                   : (int) source.nextLong(min, max + 1L);
+  }
+
+  /**
+   * Returns a pseudo-random double between min and max.
+   *
+   * @param source random source to use
+   * @param min min range
+   * @param max max range
+   *
+   * @return random double in the given range.
+   */
+  public static double nextDouble(@Nonnull RandomSource source, double min, double max) {
+    checkNotNull(source, "source cannot be null.");
+    return min + (max - min) * source.nextDouble();
+  }
+
+  /**
+   * Fills the given array with pseudo-random ints between min and max, inclusive. This is
+   * equivalent to calling {@link #nextInts(RandomSource, int[], int, int)} with
+   * {@link #getSource()}.
+   *
+   * @param out array to fill
+   * @param min min range
+   * @param max max range
+   *
+   * @return {@code out} for chaining
+   */
+  public static int[] nextInts(@Nonnull int[] out, int min, int max) {
+    return nextInts(getSource(), out, min, max);
+  }
+
+  /**
+   * Fills the given array with pseudo-random ints between min and max, inclusive.
+   *
+   * @param source random source to use
+   * @param out array to fill
+   * @param min min range
+   * @param max max range
+   *
+   * @return {@code out} for chaining
+   */
+  public static int[] nextInts(@Nonnull RandomSource source, @Nonnull int[] out, int min,
+                               int max) {
+    checkNotNull(source, "source cannot be null.");
+    checkNotNull(out, "out cannot be null.");
+    Preconditions.checkArgument(min <= max, "min cannot be greater than max.");
+    if (max < Integer.MAX_VALUE) {
+      int bound = max + 1;
+      for (int i = 0; i < out.length; i++) {
+        out[i] = source.nextInt(min, bound);
+      }
+    } else {
+      long bound = max + 1L;
+      for (int i = 0; i < out.length; i++) {
+        out[i] = (int) source.nextLong(min, bound);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Fills the given array with pseudo-random doubles between min and max. This is equivalent to
+   * calling {@link #nextDoubles(RandomSource, double[], double, double)} with
+   * {@link #getSource()}.
+   *
+   * @param out array to fill
+   * @param min min range
+   * @param max max range
+   *
+   * @return {@code out} for chaining
+   */
+  public static double[] nextDoubles(@Nonnull double[] out, double min, double max) {
+    return nextDoubles(getSource(), out, min, max);
+  }
+
+  /**
+   * Fills the given array with pseudo-random doubles between min and max.
+   *
+   * @param source random source to use
+   * @param out array to fill
+   * @param min min range
+   * @param max max range
+   *
+   * @return {@code out} for chaining
+   */
+  public static double[] nextDoubles(@Nonnull RandomSource source, @Nonnull double[] out,
+                                     double min, double max) {
+    checkNotNull(source, "source cannot be null.");
+    checkNotNull(out, "out cannot be null.");
+    double range = max - min;
+    for (int i = 0; i < out.length; i++) {
+      out[i] = min + range * source.nextDouble();
+    }
+    return out;
+  }
+
+  /**
+   * Picks a random key from the given map, proportionally to its value. This is equivalent to
+   * calling {@link #nextWeighted(RandomSource, Map)} with {@link #getSource()}.
+   *
+   * @param weights map of elements to their weights
+   * @param <T> type of elements
+   *
+   * @return the picked element
+   *
+   * @see WeightedRandom
+   */
+  public static <T> T nextWeighted(@Nonnull Map<T, ? extends Number> weights) {
+    return nextWeighted(getSource(), weights);
+  }
+
+  /**
+   * Picks a random key from the given map, proportionally to its value. This is a linear scan
+   * suitable for one-off picks; weights that are picked from repeatedly should be turned into a
+   * {@link WeightedRandom} instead.
+   *
+   * @param source random source to use
+   * @param weights map of elements to their weights
+   * @param <T> type of elements
+   *
+   * @return the picked element
+   *
+   * @throws IllegalArgumentException thrown if the total weight is not greater than 0
+   * @see WeightedRandom
+   */
+  public static <T> T nextWeighted(@Nonnull RandomSource source,
+                                   @Nonnull Map<T, ? extends Number> weights) {
+    checkNotNull(source, "source cannot be null.");
+    checkNotNull(weights, "weights cannot be null.");
+    double total = 0;
+    for (Number weight : weights.values()) {
+      total += weight.doubleValue();
+    }
+    Preconditions.checkArgument(total > 0, "total weight must be greater than 0.");
+    double remaining = source.nextDouble() * total;
+    T last = null;
+    for (Entry<T, ? extends Number> entry : weights.entrySet()) {
+      double weight = entry.getValue().doubleValue();
+      if (weight > 0) {
+        last = entry.getKey();
+        if ((remaining -= weight) < 0) {
+          return last;
+        }
+      }
+    }
+    return last; // Rounding error.
+  }
+
+  /**
+   * Returns the calling thread's {@link ThreadLocalRandom}. The returned instance must not be
+   * shared with other threads, and does not support {@link Random#setSeed(long)}.
+   *
+   * @return the current thread's random
+   */
   public static Random getRandom() {
-    return random;
+    return ThreadLocalRandom.current();
+  }
+
+  /**
+   * Returns the default {@link RandomSource}, backed by the calling thread's
+   * {@link ThreadLocalRandom}. Unlike {@link #getRandom()}, the returned instance may be shared
+   * between threads.
+   *
+   * @return default random source
+   *
+   * @see RandomSource#threadLocal()
+   */
+  public static RandomSource getSource() {
+    return RandomSource.threadLocal();
   }
   
   /* ================================
@@ -207,55 +393,55 @@ public class RandomUtils {
    * @see Random#nextBytes(byte[])
    */
   public static void nextBytes(byte[] bytes) {
-    random.nextBytes(bytes);
+    ThreadLocalRandom.current().nextBytes(bytes);
   }
 
   /**
    * @see Random#nextInt()
    */
   public static int nextInt() {
-    return random.nextInt();
+    return ThreadLocalRandom.current().nextInt();
   }
 
   /**
    * @see Random#nextInt(int)
    */
   public static int nextInt(int bound) {
-    return random.nextInt(bound);
+    return ThreadLocalRandom.current().nextInt(bound);
   }
 
   /**
    * @see Random#nextLong()
    */
   public static long nextLong() {
-    return random.nextLong();
+    return ThreadLocalRandom.current().nextLong();
   }
 
   /**
    * @see Random#nextBoolean()
    */
   public static boolean nextBoolean() {
-    return random.nextBoolean();
+    return ThreadLocalRandom.current().nextBoolean();
   }
 
   /**
    * @see Random#nextFloat()
    */
   public static float nextFloat() {
-    return random.nextFloat();
+    return ThreadLocalRandom.current().nextFloat();
   }
 
   /**
    * @see Random#nextDouble()
    */
   public static double nextDouble() {
-    return random.nextDouble();
+    return ThreadLocalRandom.current().nextDouble();
   }
 
   /**
    * @see Random#nextGaussian()
    */
   public static double nextGaussian() {
-    return random.nextGaussian();
+    return ThreadLocalRandom.current().nextGaussian();
   }
 }
@@ -2,18 +2,38 @@ package com.supaham.commons.utils;
 
 import com.google.common.base.Preconditions;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+/**
+ * Utility methods for working with reflection. Lookups are cached per class in a
+ * {@link ClassValue}, so repeated calls for the same class don't rescan its members. The returned
+ * {@link Method}s and {@link Field}s are fresh copies of the cached ones, so one caller changing
+ * them, e.g. through {@code setAccessible}, doesn't affect another.
+ */
 public class ReflectionUtils {
 
+  private static final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+    @Override protected ClassMetadata computeValue(Class<?> type) {
+      return new ClassMetadata(type);
+    }
+  };
+
   public static List<Method> getUniqueDeclaredMethods(@Nonnull Class<?> clazz) {
     return getUniqueDeclaredMethods(clazz, Collections.emptyList());
   }
@@ -23,41 +43,47 @@ public class ReflectionUtils {
     Preconditions.checkNotNull(clazz, "class cannot be null.");
     Preconditions.checkNotNull(ignoreClasses, "ignoreClasses cannot be null.");
 
-    List<Method> result = new ArrayList<>();
-    getUniqueDeclaredMethods(clazz, ignoreClasses, result);
-    return result;
+    ClassMetadata metadata = METADATA.get(clazz);
+    Set<?> ignored = ignoreClasses instanceof Set ? (Set<?>) ignoreClasses
+                                                  : new HashSet<>(ignoreClasses);
+    List<Method> result = metadata.uniqueMethods.get(ignored);
+    if (result == null) {
+      result = new ArrayList<>();
+      getUniqueDeclaredMethods(clazz, ignored, new HashSet<>(), result);
+      result = Collections.unmodifiableList(result);
+      // Copy the key, the given collection may be mutated later.
+      metadata.uniqueMethods.putIfAbsent(new HashSet<>(ignored), result);
+    }
+    List<Method> copies = new ArrayList<>(result.size());
+    for (Method method : result) {
+      copies.add(copyOf(method));
+    }
+    return copies;
   }
 
   private static void getUniqueDeclaredMethods(@Nonnull Class<?> clazz,
-                                               @Nonnull Collection<Class<?>> ignoreClasses,
+                                               @Nonnull Set<?> ignoreClasses,
+                                               @Nonnull Set<SignatureKey> signatures,
                                                @Nonnull List<Method> result) {
-    Preconditions.checkNotNull(clazz, "class cannot be null.");
-    Preconditions.checkNotNull(ignoreClasses, "ignoreClasses cannot be null.");
-    Preconditions.checkNotNull(result, "result cannot be null.");
-
-    for (Method method : clazz.getDeclaredMethods()) {
-      boolean found = false;
-      for (Method existing : result) {
-        // find overridden methods by only checking name and parameters
-        // using equals() checks return type too, we don't care about that.
-        if (sameMethodSignature(method, existing)) {
-          found = true;
-          break;
-        }
-      }
-      if (!found) {
-        result.add(method);
+    DeclaredMethods declared = METADATA.get(clazz).getDeclaredMethods();
+    Method[] methods = declared.methods;
+    SignatureKey[] keys = declared.signatures;
+    for (int i = 0; i < methods.length; i++) {
+      // find overridden methods by only checking name and parameters
+      // using equals() checks return type too, we don't care about that.
+      if (signatures.add(keys[i])) {
+        result.add(methods[i]);
       }
     }
 
     if (clazz.getSuperclass() != null) {
       if (!ignoreClasses.contains(clazz.getSuperclass())) {
-        getUniqueDeclaredMethods(clazz.getSuperclass(), ignoreClasses, result);
+        getUniqueDeclaredMethods(clazz.getSuperclass(), ignoreClasses, signatures, result);
       }
     } else if (clazz.isInterface()) {
       for (Class<?> interfaceClazz : clazz.getInterfaces()) {
         if (!ignoreClasses.contains(interfaceClazz)) {
-          getUniqueDeclaredMethods(interfaceClazz, ignoreClasses, result);
+          getUniqueDeclaredMethods(interfaceClazz, ignoreClasses, signatures, result);
         }
       }
     }
@@ -89,26 +115,150 @@ public class ReflectionUtils {
   }
 
   public static Field getField(Class<?> clazz, String name) {
-    try {
-      Field field = clazz.getDeclaredField(name);
-      field.setAccessible(true);
-      return field;
-    } catch (Exception e) {
-      e.printStackTrace();
+    Optional<Field> field = METADATA.get(clazz).fields.computeIfAbsent(name, n -> {
+      try {
+        return Optional.of(clazz.getDeclaredField(n));
+      } catch (Exception e) {
+        e.printStackTrace();
+        return Optional.empty();
+      }
+    });
+    if (!field.isPresent()) {
       return null;
     }
+    try {
+      Field copy = clazz.getDeclaredField(name);
+      copy.setAccessible(true);
+      return copy;
+    } catch (NoSuchFieldException e) {
+      throw new AssertionError(e); // Found before.
+    }
   }
 
   public static Method getMethod(Class<?> clazz, String name,
                                  Class<?>... args) {
-    for (Method m : clazz.getDeclaredMethods()) {
-      if (m.getName().equals(name) && (args.length == 0 || ReflectionUtils.ClassListEqual(args,
-                                                                                          m.getParameterTypes()))) {
-        m.setAccessible(true);
-        return m;
+    ClassMetadata metadata = METADATA.get(clazz);
+    SignatureKey key = new SignatureKey(name, args.clone());
+    Optional<Method> method = metadata.methods.get(key);
+    if (method == null) {
+      method = Optional.empty();
+      DeclaredMethods declared = metadata.getDeclaredMethods();
+      Method[] methods = declared.methods;
+      SignatureKey[] keys = declared.signatures;
+      for (int i = 0; i < methods.length; i++) {
+        Method m = methods[i];
+        if (m.getName().equals(name) && (args.length == 0 || keys[i].equals(key))) {
+          method = Optional.of(m);
+          break;
+        }
       }
+      metadata.methods.putIfAbsent(key, method);
     }
-    return null;
+    if (!method.isPresent()) {
+      return null;
+    }
+    Method copy = copyOf(method.get());
+    copy.setAccessible(true);
+    return copy;
+  }
+
+  /*
+   * Returns a fresh copy of a cached method.
+   */
+  private static Method copyOf(Method method) {
+    Class<?> clazz = method.getDeclaringClass();
+    try {
+      Method copy = clazz.getDeclaredMethod(method.getName(), method.getParameterTypes());
+      // Differs when bridge methods share the signature, search for the exact one below.
+      if (copy.equals(method)) {
+        return copy;
+      }
+    } catch (NoSuchMethodException ignored) {
+    }
+    for (Method copy : clazz.getDeclaredMethods()) {
+      if (copy.equals(method)) {
+        return copy;
+      }
+    }
+    throw new AssertionError("method disappeared: " + method);
+  }
+
+  /**
+   * Returns a {@link MethodHandle} of the method returned by
+   * {@link #getMethod(Class, String, Class[])}. The handle is created once and cached.
+   *
+   * @param clazz class to get method from
+   * @param name name of the method
+   * @param args parameter types of the method, or none to match the first method by name
+   *
+   * @return method handle, or null if the method was not found or is inaccessible
+   */
+  @Nullable
+  public static MethodHandle getMethodHandle(@Nonnull Class<?> clazz, @Nonnull String name,
+                                             Class<?>... args) {
+    SignatureKey key = new SignatureKey(name, args.clone());
+    return METADATA.get(clazz).methodHandles.computeIfAbsent(key, k -> {
+      Method method = getMethod(clazz, name, args);
+      if (method == null) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of(MethodHandles.lookup().unreflect(method));
+      } catch (IllegalAccessException e) {
+        e.printStackTrace();
+        return Optional.empty();
+      }
+    }).orElse(null);
+  }
+
+  /**
+   * Returns a {@link MethodHandle} that reads the field returned by
+   * {@link #getField(Class, String)}. The handle is created once and cached.
+   *
+   * @param clazz class to get field from
+   * @param name name of the field
+   *
+   * @return getter method handle, or null if the field was not found or is inaccessible
+   */
+  @Nullable
+  public static MethodHandle getFieldGetter(@Nonnull Class<?> clazz, @Nonnull String name) {
+    return METADATA.get(clazz).getters.computeIfAbsent(name, n -> {
+      Field field = getField(clazz, n);
+      if (field == null) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of(MethodHandles.lookup().unreflectGetter(field));
+      } catch (IllegalAccessException e) {
+        e.printStackTrace();
+        return Optional.empty();
+      }
+    }).orElse(null);
+  }
+
+  /**
+   * Returns a {@link MethodHandle} that writes the field returned by
+   * {@link #getField(Class, String)}. The handle is created once and cached.
+   *
+   * @param clazz class to get field from
+   * @param name name of the field
+   *
+   * @return setter method handle, or null if the field was not found, is inaccessible or is final
+   */
+  @Nullable
+  public static MethodHandle getFieldSetter(@Nonnull Class<?> clazz, @Nonnull String name) {
+    return METADATA.get(clazz).setters.computeIfAbsent(name, n -> {
+      Field field = getField(clazz, n);
+      if (field == null) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of(MethodHandles.lookup().unreflectSetter(field));
+      } catch (IllegalAccessException e) {
+        e.printStackTrace();
+        return Optional.empty();
+      }
+    }).orElse(null);
   }
 
   public static boolean ClassListEqual(Class<?>[] l1, Class<?>[] l2) {
@@ -124,4 +274,81 @@ public class ReflectionUtils {
     }
     return equal;
   }
+
+  /*
+   * Reflection data of a single class. Declared methods and their signatures are read once, lookups
+   * are memoized, including misses.
+   */
+  private static final class ClassMetadata {
+
+    private final Class<?> clazz;
+    private volatile DeclaredMethods declaredMethods;
+
+    private final ConcurrentMap<Set<?>, List<Method>> uniqueMethods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SignatureKey, Optional<Method>> methods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Optional<Field>> fields = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SignatureKey, Optional<MethodHandle>> methodHandles =
+        new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Optional<MethodHandle>> getters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Optional<MethodHandle>> setters = new ConcurrentHashMap<>();
+
+    public ClassMetadata(Class<?> clazz) {
+      this.clazz = clazz;
+    }
+
+    public DeclaredMethods getDeclaredMethods() {
+      DeclaredMethods declaredMethods = this.declaredMethods;
+      if (declaredMethods == null) {
+        // Racy but idempotent, the worst case is reading the methods twice.
+        this.declaredMethods = declaredMethods = new DeclaredMethods(clazz.getDeclaredMethods());
+      }
+      return declaredMethods;
+    }
+  }
+
+  private static final class DeclaredMethods {
+
+    private final Method[] methods;
+    private final SignatureKey[] signatures;
+
+    public DeclaredMethods(Method[] methods) {
+      this.methods = methods;
+      this.signatures = new SignatureKey[methods.length];
+      for (int i = 0; i < methods.length; i++) {
+        this.signatures[i] = new SignatureKey(methods[i].getName(), methods[i].getParameterTypes());
+      }
+    }
+  }
+
+  /*
+   * A method name and its parameter types, with a precomputed hash.
+   */
+  private static final class SignatureKey {
+
+    private final String name;
+    private final Class<?>[] parameterTypes;
+    private final int hash;
+
+    public SignatureKey(String name, Class<?>[] parameterTypes) {
+      this.name = name;
+      this.parameterTypes = parameterTypes;
+      this.hash = 31 * name.hashCode() + Arrays.hashCode(parameterTypes);
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof SignatureKey)) {
+        return false;
+      }
+      SignatureKey that = (SignatureKey) o;
+      return hash == that.hash && name.equals(that.name)
+             && ClassListEqual(parameterTypes, that.parameterTypes);
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+  }
 }
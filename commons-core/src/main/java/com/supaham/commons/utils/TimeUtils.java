@@ -10,7 +10,6 @@ import com.supaham.commons.exceptions.TimeParseException;
 
 import java.math.BigInteger;
 import java.time.LocalTime;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
@@ -127,8 +126,8 @@ public class TimeUtils {
 
   /**
    * Parses a {@link CharSequence} into a {@code long} duration represented as milliseconds.
-   * The pattern used to parse the duration is {@link TimeUtils#PATTERN}. In short, 1d2h3m4s5ms is
-   * valid, whereas 1x is not.
+   * The format accepted is every match of {@link TimeUtils#PATTERN}, parsed in a single pass
+   * without using the pattern. In short, 1d2h3m4s5ms is valid, whereas 1x is not.
    * <pre>
    *   DurationUtils.parseDuration("1s1ms") is <b>valid</b>
    *   DurationUtils.parseDuration("1m1s2ms") is <b>valid</b>
@@ -147,50 +146,54 @@ public class TimeUtils {
   public static long parseDurationMs(@Nonnull CharSequence text) throws DurationParseException {
     checkNotNull(text, "text cannot be null.");
     checkArgument(text.length() > 0, "text cannot be empty.");
-    if (text.equals("0")) {
+    int length = text.length();
+    if (length == 1 && text.charAt(0) == '0') {
       return 0;
     }
 
-    Matcher matcher = PATTERN.matcher(text);
+    // Single pass equivalent of finding every PATTERN match. A number can only be followed by a
+    // unit at its longest extent, so no backtracking is needed.
     long sum = 0;
     boolean foundUnit = false;
-    while (matcher.find()) {
-      String d = matcher.group(1);
-      String u = StringUtils.lowerCase(matcher.group(2));
+    int i = 0;
+    while (i < length) {
+      int numberEnd = scanNumber(text, i);
+      if (numberEnd == length) {
+        break;
+      }
       int multiplier;
+      int unitLength = 1;
       String unitString;
-      foundUnit = true;
-      switch (u) {
-        case "d":
+      switch (text.charAt(numberEnd)) {
+        case 'd':
           multiplier = TimeUtils.SECONDS_PER_DAY * 1000;
           unitString = "days";
           break;
-        case "h":
+        case 'h':
           multiplier = TimeUtils.SECONDS_PER_HOUR * 1000;
           unitString = "hours";
           break;
-        case "m":
-          multiplier = TimeUtils.SECONDS_PER_MINUTE * 1000;
-          unitString = "minutes";
+        case 'm':
+          if (numberEnd + 1 < length && text.charAt(numberEnd + 1) == 's') {
+            multiplier = 1;
+            unitLength = 2;
+            unitString = "milliseconds";
+          } else {
+            multiplier = TimeUtils.SECONDS_PER_MINUTE * 1000;
+            unitString = "minutes";
+          }
           break;
-        case "s":
+        case 's':
           multiplier = 1000;
           unitString = "seconds";
           break;
-        case "ms":
-          multiplier = 1;
-          unitString = "milliseconds";
-          break;
         default:
+          i++; // No match starting at i, try the next character.
           continue;
       }
-
-      try {
-        sum += parseNumber(d, multiplier, unitString);
-      } catch (ArithmeticException ex) {
-        throw (DurationParseException) new DurationParseException(
-            "Text cannot be parsed as milliseconds: overflow").initCause(ex);
-      }
+      foundUnit = true;
+      sum += parseNumber(text, i, numberEnd, multiplier, unitString);
+      i = numberEnd + unitLength;
     }
     if (sum == 0 && !foundUnit) {
       throw new DurationParseException("Text cannot be parsed as milliseconds " + text);
@@ -198,15 +201,52 @@ public class TimeUtils {
     return sum;
   }
 
-  private static long parseNumber(String parsed, int multiplier, String errorText) {
-    // regex limits to [-+]?[0-9]+
-    if (parsed == null) {
-      return 0;
+  /*
+   * Returns the end index of the longest match of -?\d*\.?\d* starting at the given index.
+   */
+  private static int scanNumber(CharSequence text, int start) {
+    int length = text.length();
+    int i = start;
+    if (i < length && text.charAt(i) == '-') {
+      i++;
+    }
+    while (i < length && isDigit(text.charAt(i))) {
+      i++;
+    }
+    if (i < length && text.charAt(i) == '.') {
+      i++;
+    }
+    while (i < length && isDigit(text.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static long parseNumber(CharSequence text, int start, int end, int multiplier,
+                                  String errorText) {
+    // Fast path for plain integers that a double represents exactly, giving the same result as
+    // Double.parseDouble without creating a String.
+    boolean negative = start < end && text.charAt(start) == '-';
+    int digitsStart = negative ? start + 1 : start;
+    if (end > digitsStart && end - digitsStart <= 15) {
+      long value = 0;
+      int i = digitsStart;
+      for (; i < end && isDigit(text.charAt(i)); i++) {
+        value = value * 10 + (text.charAt(i) - '0');
+      }
+      if (i == end) {
+        double val = negative ? -(double) value : (double) value;
+        return (long) (val * multiplier);
+      }
     }
     try {
-      double val = Double.parseDouble(parsed);
+      double val = Double.parseDouble(text.subSequence(start, end).toString());
       return (long) (val * multiplier);
-    } catch (NumberFormatException | ArithmeticException ex) {
+    } catch (NumberFormatException ex) {
       throw (DurationParseException)
           new DurationParseException("Text cannot be parsed to a Duration: " + errorText)
               .initCause(ex);
@@ -259,8 +299,8 @@ public class TimeUtils {
   }
 
   /**
-   * Parses a {@link LocalTime} in the form of a string. The {@link Pattern} used to match the {@code timeString} is
-   * {@link #TIME_PATTERN}. A combination of hours, minutes, and seconds may be present to form a full 0-23 hour point
+   * Parses a {@link LocalTime} in the form of a string. The format accepted is that of {@link #TIME_PATTERN}, parsed
+   * in a single pass without using the pattern. A combination of hours, minutes, and seconds may be present to form a full 0-23 hour point
    * in time. This method supports <b>12-hour time format</b>, where a string can be 12AM, 12:00PM, etc.
    * <pre><code>
    * TimeUtils.parse(null) = {@link NullPointerException}
@@ -308,28 +348,46 @@ public class TimeUtils {
   public static LocalTime parseTime(@Nonnull String timeString) throws TimeParseException {
     StringUtils.checkNotNullOrEmpty(timeString, "time string");
 
-    Matcher matcher = TIME_PATTERN.matcher(timeString);
-    checkTime(timeString, matcher.matches(), timeString + " is not a valid time.");
-
-    int hours = Integer.parseInt(matcher.group("hours"));
+    // Single pass equivalent of matching TIME_PATTERN.
+    int length = timeString.length();
+    int i = 0;
+    checkTime(timeString, isDigit(timeString.charAt(i)), timeString + " is not a valid time.");
+    int hours = timeString.charAt(i++) - '0';
+    if (i < length && isDigit(timeString.charAt(i))) {
+      hours = hours * 10 + (timeString.charAt(i++) - '0');
+    }
     int minutes = 0;
     int seconds = 0;
-    Boolean isAM = null;
-
-    try {
-      minutes = Integer.parseInt(matcher.group("minutes"));
-    } catch (IllegalArgumentException ignored) { // ignores NumberFormatException as well
+    if (isColonAndTwoDigits(timeString, i)) {
+      minutes = parseTwoDigits(timeString, i + 1);
+      i += 3;
+      if (isColonAndTwoDigits(timeString, i)) {
+        seconds = parseTwoDigits(timeString, i + 1);
+        i += 3;
+      }
     }
-
-    try {
-      seconds = Integer.parseInt(matcher.group("seconds"));
-    } catch (IllegalArgumentException ignored) { // ignores NumberFormatException as well
+    while (i < length && isRegexWhitespace(timeString.charAt(i))) {
+      i++;
     }
-
-    if (matcher.group("ampm") != null) {
-      isAM = matcher.group("ampm").toLowerCase()
-          .replaceAll("\\.", "") // 12-hour time might be A.M or P.M.
-          .equals("am");
+    Boolean isAM = null;
+    // 12-hour time might be AM, A.M, A.M., etc. The pattern allows repeating it, the last one wins.
+    while (i < length) {
+      char c = timeString.charAt(i);
+      checkTime(timeString, c == 'a' || c == 'A' || c == 'p' || c == 'P',
+                timeString + " is not a valid time.");
+      int j = i + 1;
+      if (j < length && timeString.charAt(j) == '.') {
+        j++;
+      }
+      checkTime(timeString, j < length && (timeString.charAt(j) == 'm'
+                                           || timeString.charAt(j) == 'M'),
+                timeString + " is not a valid time.");
+      j++;
+      if (j < length && timeString.charAt(j) == '.') {
+        j++;
+      }
+      isAM = c == 'a' || c == 'A';
+      i = j;
     }
 
     checkTime(timeString, hours >= 0 && hours <= 23, "hours cannot be less than 0 or greater than 23.");
@@ -354,6 +412,22 @@ public class TimeUtils {
     return LocalTime.of(hours, minutes, seconds);
   }
 
+  private static boolean isColonAndTwoDigits(String string, int index) {
+    return index + 2 < string.length() && string.charAt(index) == ':'
+           && isDigit(string.charAt(index + 1)) && isDigit(string.charAt(index + 2));
+  }
+
+  private static int parseTwoDigits(String string, int index) {
+    return (string.charAt(index) - '0') * 10 + (string.charAt(index + 1) - '0');
+  }
+
+  /*
+   * Same characters as the \\s regex character class.
+   */
+  private static boolean isRegexWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
   private static void checkTime(String timeString, boolean b, String message) throws TimeParseException {
     if (!b) {
       throw new TimeParseException(timeString, message);
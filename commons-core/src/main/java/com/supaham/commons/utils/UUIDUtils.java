@@ -2,6 +2,8 @@ package com.supaham.commons.utils;
 
 import com.google.common.base.Preconditions;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
@@ -15,6 +17,20 @@ import javax.annotation.Nullable;
  */
 public class UUIDUtils {
 
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final byte[] HEX_VALUES = new byte[128];
+
+  static {
+    Arrays.fill(HEX_VALUES, (byte) -1);
+    for (int i = 0; i < 10; i++) {
+      HEX_VALUES['0' + i] = (byte) i;
+    }
+    for (int i = 0; i < 6; i++) {
+      HEX_VALUES['a' + i] = (byte) (10 + i);
+      HEX_VALUES['A' + i] = (byte) (10 + i);
+    }
+  }
+
   /**
    * Returns a hyphen-stripped {@link String} from a {@link UUID}. E.g. a UUID of
    * {@code "5828669c-1b13-4d0e-b9d3-d1c97c832f49"} transforming into
@@ -31,7 +47,10 @@ public class UUIDUtils {
     if (uuid == null) {
       return null;
     }
-    return stripHyphens(uuid.toString());
+    char[] chars = new char[32];
+    formatHex(uuid.getMostSignificantBits(), chars, 0);
+    formatHex(uuid.getLeastSignificantBits(), chars, 16);
+    return new String(chars);
   }
 
   /**
@@ -47,7 +66,18 @@ public class UUIDUtils {
     if (StringUtils.trimToNull(uuid) == null) {
       return null;
     }
-    return uuid.replaceAll("-", "");
+    int hyphen = uuid.indexOf('-');
+    if (hyphen < 0) {
+      return uuid;
+    }
+    StringBuilder sb = new StringBuilder(uuid.length() - 1).append(uuid, 0, hyphen);
+    for (int i = hyphen + 1; i < uuid.length(); i++) {
+      char c = uuid.charAt(i);
+      if (c != '-') {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
   }
 
   /**
@@ -65,9 +95,136 @@ public class UUIDUtils {
     Preconditions.checkArgument(uuid.length() == 32 || uuid.length() == 36,
                                 "uuid has an unexpected length of " + uuid.length());
     if (uuid.length() == 32) {
-      uuid = uuid.replaceAll("(\\w{8})(\\w{4})(\\w{4})(\\w{4})(\\w{12})", "$1-$2-$3-$4-$5");
+      return new UUID(parseHex(uuid, 0, 16), parseHex(uuid, 16, 32));
+    }
+    if (uuid.charAt(8) == '-' && uuid.charAt(13) == '-' && uuid.charAt(18) == '-'
+        && uuid.charAt(23) == '-') {
+      long msb = parseHex(uuid, 0, 8) << 32 | parseHex(uuid, 9, 13) << 16 | parseHex(uuid, 14, 18);
+      long lsb = parseHex(uuid, 19, 23) << 48 | parseHex(uuid, 24, 36);
+      return new UUID(msb, lsb);
+    }
+    return UUID.fromString(uuid); // Leave unusual, but valid, forms to the JDK.
+  }
+
+  /**
+   * Returns the 16 byte big-endian binary representation of a {@link UUID}, suitable for storing
+   * in a {@code BINARY(16)} column.
+   *
+   * @param uuid uuid to encode
+   *
+   * @return new byte array of length 16
+   *
+   * @since 0.9.3
+   */
+  public static byte[] toBytes(@Nonnull UUID uuid) {
+    Preconditions.checkNotNull(uuid, "uuid cannot be null.");
+    byte[] bytes = new byte[16];
+    writeLong(uuid.getMostSignificantBits(), bytes, 0);
+    writeLong(uuid.getLeastSignificantBits(), bytes, 8);
+    return bytes;
+  }
+
+  /**
+   * Constructs a {@link UUID} from its 16 byte big-endian binary representation.
+   *
+   * @param bytes bytes to decode, must be of length 16
+   *
+   * @return decoded uuid
+   *
+   * @throws IllegalArgumentException when {@code bytes} is not of length 16
+   * @see #toBytes(UUID)
+   * @since 0.9.3
+   */
+  public static UUID fromBytes(@Nonnull byte[] bytes) {
+    Preconditions.checkNotNull(bytes, "bytes cannot be null.");
+    Preconditions.checkArgument(bytes.length == 16,
+                                "bytes has an unexpected length of " + bytes.length);
+    return fromBytes(bytes, 0);
+  }
+
+  /**
+   * Constructs a {@link UUID} from its 16 byte big-endian binary representation, starting at the
+   * given offset.
+   *
+   * @param bytes bytes to decode
+   * @param offset index of the first byte
+   *
+   * @return decoded uuid
+   *
+   * @since 0.9.3
+   */
+  public static UUID fromBytes(@Nonnull byte[] bytes, int offset) {
+    Preconditions.checkNotNull(bytes, "bytes cannot be null.");
+    Preconditions.checkPositionIndexes(offset, offset + 16, bytes.length);
+    return new UUID(readLong(bytes, offset), readLong(bytes, offset + 8));
+  }
+
+  /**
+   * Writes the 16 byte binary representation of a {@link UUID} to a {@link ByteBuffer}, in the
+   * buffer's byte order, advancing its position.
+   *
+   * @param uuid uuid to encode
+   * @param buffer buffer to write to
+   *
+   * @return {@code buffer} for chaining
+   *
+   * @since 0.9.3
+   */
+  public static ByteBuffer writeTo(@Nonnull UUID uuid, @Nonnull ByteBuffer buffer) {
+    Preconditions.checkNotNull(uuid, "uuid cannot be null.");
+    Preconditions.checkNotNull(buffer, "buffer cannot be null.");
+    return buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+  }
+
+  /**
+   * Reads a {@link UUID} written by {@link #writeTo(UUID, ByteBuffer)}, advancing the buffer's
+   * position.
+   *
+   * @param buffer buffer to read from
+   *
+   * @return decoded uuid
+   *
+   * @since 0.9.3
+   */
+  public static UUID readFrom(@Nonnull ByteBuffer buffer) {
+    Preconditions.checkNotNull(buffer, "buffer cannot be null.");
+    long msb = buffer.getLong();
+    return new UUID(msb, buffer.getLong());
+  }
+
+  private static long parseHex(String s, int from, int to) {
+    long value = 0;
+    for (int i = from; i < to; i++) {
+      char c = s.charAt(i);
+      int digit = c < 128 ? HEX_VALUES[c] : -1;
+      if (digit < 0) {
+        throw new IllegalArgumentException("Invalid UUID string: " + s);
+      }
+      value = value << 4 | digit;
+    }
+    return value;
+  }
+
+  private static void formatHex(long value, char[] chars, int offset) {
+    for (int i = offset + 15; i >= offset; i--) {
+      chars[i] = HEX_DIGITS[(int) value & 0xF];
+      value >>>= 4;
+    }
+  }
+
+  private static void writeLong(long value, byte[] bytes, int offset) {
+    for (int i = offset + 7; i >= offset; i--) {
+      bytes[i] = (byte) value;
+      value >>>= 8;
+    }
+  }
+
+  private static long readLong(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = offset; i < offset + 8; i++) {
+      value = value << 8 | (bytes[i] & 0xFF);
     }
-    return UUID.fromString(uuid);
+    return value;
   }
 
   private UUIDUtils() {
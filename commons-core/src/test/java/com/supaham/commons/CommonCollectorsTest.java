@@ -0,0 +1,61 @@
+package com.supaham.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class CommonCollectorsTest {
+
+  @Test
+  public void testSampleIsUniform() {
+    int n = 20;
+    int k = 5;
+    int runs = 40_000;
+    int[] counts = new int[n];
+    for (int i = 0; i < runs; i++) {
+      List<Integer> sample = IntStream.range(0, n).boxed().parallel()
+          .collect(CommonCollectors.sample(k));
+      assertEquals(k, sample.size());
+      assertEquals(k, new HashSet<>(sample).size());
+      sample.forEach(e -> counts[e]++);
+    }
+    double expected = runs * (double) k / n;
+    for (int i = 0; i < n; i++) {
+      assertEquals("element " + i, expected, counts[i], expected * 0.05);
+    }
+  }
+
+  @Test
+  public void testSampleSmallStream() {
+    List<Integer> sample = Stream.of(1, 2, 3).collect(CommonCollectors.sample(10));
+    assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), new HashSet<>(sample));
+    assertTrue(Stream.empty().collect(CommonCollectors.sample(10)).isEmpty());
+    assertFalse(Stream.empty().collect(CommonCollectors.singleRandom()).isPresent());
+    assertEquals(Integer.valueOf(1), Stream.of(1).collect(CommonCollectors.singleRandom()).get());
+  }
+
+  @Test
+  public void testTopK() {
+    List<Integer> list = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+    Collections.shuffle(list);
+    assertEquals(Arrays.asList(9999, 9998, 9997),
+                 list.parallelStream()
+                     .collect(CommonCollectors.topK(3, Comparator.naturalOrder())));
+    assertEquals(Arrays.asList(0, 1, 2),
+                 list.parallelStream()
+                     .collect(CommonCollectors.bottomK(3, Comparator.naturalOrder())));
+    assertTrue(list.stream().collect(CommonCollectors.topK(0, Comparator.naturalOrder()))
+                   .isEmpty());
+  }
+}
@@ -0,0 +1,40 @@
+package com.supaham.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class EnumsTest {
+
+  private enum Color {
+    DARK_RED, DARKRED, RED, REDDISH, GREEN
+  }
+
+  @Test
+  public void testFindByValue() {
+    assertSame(Color.RED, Enums.findByValue(Color.class, "red", "RED"));
+    assertNull(Enums.findByValue(Color.class, "red", "BLUE"));
+  }
+
+  @Test
+  public void testFindFuzzyByValue() {
+    assertSame(Color.DARK_RED, Enums.findFuzzyByValue(Color.class, "darkred"));
+    assertSame(Color.DARK_RED, Enums.findFuzzyByValue(Color.class, "dArK_rEd"));
+    assertSame(Color.GREEN, Enums.findFuzzyByValue(Color.class, "blue", "gr_een"));
+    assertNull(Enums.findFuzzyByValue(Color.class, "blue"));
+  }
+
+  @Test
+  public void testFindByPrefix() {
+    assertEquals(Arrays.asList(Color.RED, Color.REDDISH), Enums.findByPrefix(Color.class, "Re"));
+    assertEquals(Arrays.asList(Color.DARK_RED, Color.DARKRED),
+                 Enums.findByPrefix(Color.class, "dark_"));
+    assertEquals(Arrays.asList(Color.values()), Enums.findByPrefix(Color.class, ""));
+    assertTrue(Enums.findByPrefix(Color.class, "x").isEmpty());
+  }
+}
@@ -0,0 +1,151 @@
+package com.supaham.commons;
+
+import com.google.common.base.Ticker;
+import com.supaham.commons.utils.ExpiringMap;
+import com.supaham.commons.utils.ExpiringSet;
+import com.supaham.commons.utils.ExpiringSet.RemovalListener;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+public class ExpiringMapTest {
+
+  private static final class FakeTicker extends Ticker {
+
+    private long nanos = 1000;
+
+    @Override public long read() {
+      return nanos;
+    }
+
+    void advance(long duration, TimeUnit unit) {
+      nanos += unit.toNanos(duration);
+    }
+  }
+
+  @Test
+  public void testPerEntryDuration() {
+    FakeTicker ticker = new FakeTicker();
+    ExpiringMap<String, Integer> map = new ExpiringMap<>(1, TimeUnit.SECONDS, null, ticker);
+    map.put("default", 1);
+    map.put("short", 2, 100, TimeUnit.MILLISECONDS);
+    map.put("long", 3, 2, TimeUnit.HOURS);
+
+    ticker.advance(100, TimeUnit.MILLISECONDS);
+    Assert.assertNull(map.get("short"));
+    Assert.assertEquals(2, map.size());
+
+    ticker.advance(900, TimeUnit.MILLISECONDS);
+    Assert.assertFalse(map.containsKey("default"));
+    Assert.assertEquals(Integer.valueOf(3), map.get("long"));
+    Assert.assertEquals(TimeUnit.HOURS.toMillis(2) - 1000, map.getExpiresIn("long",
+                                                                            TimeUnit.MILLISECONDS));
+
+    ticker.advance(2, TimeUnit.HOURS);
+    Assert.assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void testBatchedRemovals() {
+    FakeTicker ticker = new FakeTicker();
+    final List<List<Entry<String, Integer>>> batches = new ArrayList<>();
+    ExpiringMap<String, Integer> map = new ExpiringMap<>(
+        1, TimeUnit.MINUTES, new RemovalListener<Entry<String, Integer>>() {
+      @Override public void onRemoval(@Nonnull Entry<String, Integer> entry) {
+        Assert.fail("Expected a batch.");
+      }
+
+      @Override public void onRemovals(@Nonnull List<Entry<String, Integer>> entries) {
+        batches.add(new ArrayList<>(entries));
+      }
+    }, ticker);
+    for (int i = 0; i < 10; i++) {
+      map.put("key" + i, i);
+    }
+    map.advance(ticker.read() + TimeUnit.MINUTES.toNanos(1));
+    Assert.assertEquals(1, batches.size());
+    Assert.assertEquals(10, batches.get(0).size());
+
+    map.put("removed", 1);
+    map.remove("removed");
+    Assert.assertEquals(2, batches.size());
+    Assert.assertEquals("removed", batches.get(1).get(0).getKey());
+  }
+
+  @Test
+  public void testExpiryWithinTick() {
+    FakeTicker ticker = new FakeTicker();
+    final List<String> removed = new ArrayList<>();
+    ExpiringMap<String, Integer> map = new ExpiringMap<>(
+        1, TimeUnit.SECONDS, new RemovalListener<Entry<String, Integer>>() {
+      @Override public void onRemoval(@Nonnull Entry<String, Integer> entry) {
+        removed.add(entry.getKey());
+      }
+    }, ticker);
+    map.put("put", 1, 100, TimeUnit.MICROSECONDS);
+    map.put("removed", 2, 100, TimeUnit.MICROSECONDS);
+    map.put("swept", 3, 100, TimeUnit.MICROSECONDS);
+    map.put("live", 4);
+
+    // Still within the same one millisecond tick of the wheel.
+    ticker.advance(200, TimeUnit.MICROSECONDS);
+    Assert.assertNull(map.put("put", 5));
+    Assert.assertNull(map.remove("removed"));
+    Assert.assertEquals(2, map.size());
+    Assert.assertEquals(new HashSet<>(Arrays.asList("put", "live")), map.keySet());
+    Assert.assertEquals(Arrays.asList("put", "removed", "swept"), removed);
+
+    ExpiringSet<String> set = new ExpiringSet<>(1, TimeUnit.SECONDS, null, ticker);
+    set.add("a", 100, TimeUnit.MICROSECONDS);
+    set.add("b", 100, TimeUnit.MICROSECONDS);
+    ticker.advance(200, TimeUnit.MICROSECONDS);
+    Assert.assertTrue(set.add("a"));
+    Assert.assertFalse(set.remove("b"));
+    Assert.assertEquals(1, set.size());
+  }
+
+  @Test
+  public void testMatchesBruteForce() {
+    FakeTicker ticker = new FakeTicker();
+    final Map<Integer, Long> removedAt = new HashMap<>();
+    ExpiringMap<Integer, Long> map = new ExpiringMap<>(
+        1, TimeUnit.SECONDS, new RemovalListener<Entry<Integer, Long>>() {
+      @Override public void onRemoval(@Nonnull Entry<Integer, Long> entry) {
+        removedAt.put(entry.getKey(), ticker.read());
+      }
+    }, ticker);
+    Map<Integer, Long> deadlines = new HashMap<>();
+
+    Random random = new Random(42);
+    for (int i = 0; i < 5000; i++) {
+      long duration = 1 + (long) (Math.pow(random.nextDouble(), 4) * TimeUnit.DAYS.toMillis(3));
+      map.put(i, duration, duration, TimeUnit.MILLISECONDS);
+      deadlines.put(i, ticker.read() + TimeUnit.MILLISECONDS.toNanos(duration));
+      if (random.nextInt(10) == 0) {
+        ticker.advance(random.nextInt(1000), TimeUnit.MILLISECONDS);
+        map.cleanUp();
+      }
+    }
+    while (!map.isEmpty()) {
+      ticker.advance(1 + random.nextInt(60_000), TimeUnit.MILLISECONDS);
+      map.cleanUp();
+      for (Entry<Integer, Long> entry : deadlines.entrySet()) {
+        boolean expired = entry.getValue() <= ticker.read();
+        Assert.assertEquals("key " + entry.getKey(), expired, removedAt.containsKey(entry.getKey()));
+      }
+    }
+    Assert.assertEquals(deadlines.size(), removedAt.size());
+  }
+}
@@ -0,0 +1,96 @@
+package com.supaham.commons;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.util.Random;
+
+public class FuzzyColorMatcherTest {
+
+  // The original linear scan.
+  private static int bruteForce(Color[] colors, int rgb) {
+    Color color = new Color(rgb);
+    int best = 0;
+    double bestDistance = Double.MAX_VALUE;
+    for (int i = 0; i < colors.length; i++) {
+      Color c2 = colors[i];
+      double rmean = (color.getRed() + c2.getRed()) / 2.0;
+      double r = color.getRed() - c2.getRed();
+      double g = color.getGreen() - c2.getGreen();
+      int b = color.getBlue() - c2.getBlue();
+      double distance = (2 + rmean / 256.0) * r * r + 4.0 * g * g
+                        + (2 + (255 - rmean) / 256.0) * b * b;
+      if (distance < bestDistance) {
+        best = i;
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+  private static Color[] palette(Random random, int size) {
+    Color[] colors = new Color[size];
+    for (int i = 0; i < size; i++) {
+      // Coarse components make duplicate colors and ties likely.
+      colors[i] = new Color(random.nextInt(8) * 36, random.nextInt(8) * 36, random.nextInt(8) * 36);
+    }
+    return colors;
+  }
+
+  // A color within one of the given lookup table blocks of 4096 colors.
+  private static int inBlocks(Random random, int[] blocks) {
+    return blocks[random.nextInt(blocks.length)] << 12 | random.nextInt(1 << 12);
+  }
+
+  @Test
+  public void testMatchesLinearScan() {
+    Random random = new Random(3);
+    // Palettes over 256 colors have no lookup table, every query searches the k-d tree.
+    for (int size : new int[]{300, 1000}) {
+      Color[] colors = palette(random, size);
+      FuzzyColorMatcher matcher = new FuzzyColorMatcher(colors);
+      for (int i = 0; i < 2_000; i++) {
+        int rgb = random.nextInt(1 << 24);
+        int expected = bruteForce(colors, rgb);
+        assertEquals("size " + size + " rgb " + rgb, expected, matcher.findMatchIndex(rgb));
+        assertEquals(colors[expected].getRGB() & 0xFFFFFF, matcher.findMatchRgb(0xFF000000 | rgb));
+      }
+    }
+  }
+
+  @Test
+  public void testLookupTable() {
+    Random random = new Random(5);
+    for (int size : new int[]{1, 16, 100}) {
+      Color[] colors = palette(random, size);
+      FuzzyColorMatcher matcher = new FuzzyColorMatcher(colors);
+      // Every color of a few blocks, including the first and last block.
+      for (int block : new int[]{0, random.nextInt(1 << 12), (1 << 12) - 1}) {
+        for (int rgb = block << 12; rgb < (block + 1) << 12; rgb++) {
+          assertEquals("size " + size + " rgb " + rgb, bruteForce(colors, rgb),
+                       matcher.findMatchIndex(rgb));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testQuantize() {
+    Random random = new Random(4);
+    Color[] colors = palette(random, 64);
+    FuzzyColorMatcher matcher = new FuzzyColorMatcher(colors);
+    // Large enough to be quantized in parallel, within a few blocks to keep the table small.
+    int[] blocks = {random.nextInt(1 << 12), random.nextInt(1 << 12), random.nextInt(1 << 12)};
+    int[] argb = new int[20_000];
+    for (int i = 0; i < argb.length; i++) {
+      argb[i] = random.nextInt(256) << 24 | inBlocks(random, blocks);
+    }
+    int[] indices = matcher.quantize(argb, new int[argb.length]);
+    for (int i = 0; i < argb.length; i++) {
+      assertEquals(bruteForce(colors, argb[i] & 0xFFFFFF), indices[i]);
+    }
+    assertEquals(colors[indices[0]], matcher.findMatch(new Color(argb[0] | 0xFF000000)));
+  }
+}
@@ -8,7 +8,10 @@ import com.supaham.commons.Joiner.FunctionJoiner;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
@@ -29,6 +32,77 @@ public class JoinerTest {
                  newJoiner.join(Arrays.asList(new StringWrapper("A"), new StringWrapper("B"))));
   }
 
+  @Test
+  public void testVarargs() throws Exception {
+    Joiner joiner = Joiner.on(", ");
+    assertEquals("A, B, C, D", joiner.join("A", "B", "C", "D"));
+    assertEquals("A, B", joiner.join("A", "B"));
+    assertEquals("A, B, C", joiner.join(new Object[]{"A", "B", "C"}));
+  }
+
+  @Test
+  public void testNulls() throws Exception {
+    FunctionJoiner<String> joiner = Joiner.on(", ").function(input -> input);
+    assertEquals("A, null, B", joiner.useForNull("null").join("A", null, "B"));
+    assertEquals("A, B", joiner.skipNulls().join("A", null, "B"));
+  }
+
+  @Test
+  public void testLimit() throws Exception {
+    Joiner joiner = Joiner.on(", ").limit(2).overflow(" ... and %d more");
+    assertEquals("A, B ... and 3 more", joiner.join(Arrays.asList("A", "B", "C", "D", "E")));
+    assertEquals("A, B", joiner.join("A", "B"));
+    assertEquals("A, B ... and 1 more", joiner.join(Arrays.asList("A", "B", "C").iterator()));
+    assertEquals("A, B", Joiner.on(", ").limit(2).join("A", "B", "C"));
+  }
+
+  @Test
+  public void testMaxLength() throws Exception {
+    Joiner joiner = Joiner.on(", ").maxLength(12).overflow(" +%d");
+    List<String> list = Arrays.asList("AA", "BB", "CC", "DD", "EE");
+    String joined = joiner.join(list);
+    assertEquals("AA, BB +3", joined);
+    assertEquals("AA, BB, CC", joiner.join(list.subList(0, 3)));
+    assertEquals("A\u2026", Joiner.on(",").maxLength(2).overflow("\u2026").join("A", "B"));
+
+    StringBuilder sb = new StringBuilder("> ");
+    assertEquals("> AA, BB +3", joiner.appendTo(sb, list).toString());
+  }
+
+  @Test
+  public void testOverflowFitsMaxLength() throws Exception {
+    // The suffix never fits, so it is left out rather than exceeding the limit.
+    assertEquals("A", Joiner.on(",").maxLength(2).overflow(" ... and %d more").join("A", "B"));
+
+    AtomicInteger suffixes = new AtomicInteger();
+    Joiner joiner = Joiner.on(",").maxLength(1000).overflow(skipped -> {
+      suffixes.incrementAndGet();
+      return " +" + skipped;
+    });
+    List<Integer> ints = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      ints.add(i);
+    }
+    assertEquals(289, joiner.join(ints).length());
+    // Only the upper bound is formatted while far from the limit.
+    assertEquals(1, suffixes.get());
+  }
+
+  @Test
+  public void testLazyFunction() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    FunctionJoiner<Integer> joiner = Joiner.on(",").function((Integer i) -> {
+      calls.incrementAndGet();
+      return String.valueOf(i);
+    }).limit(3).overflow("...");
+    List<Integer> ints = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      ints.add(i);
+    }
+    assertEquals("0,1,2...", joiner.join(ints));
+    assertEquals(3, calls.get());
+  }
+
   private class StringWrapper {
 
     private final String string;
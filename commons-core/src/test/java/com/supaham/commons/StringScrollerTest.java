@@ -0,0 +1,92 @@
+package com.supaham.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StringScrollerTest {
+
+  @Test
+  public void testScroll() throws Exception {
+    StringScroller sc = new StringScroller("ABCDEF", 4);
+    String[] expected = {"ABCD", "BCDE", "CDEF", "DEFA", "EFAB", "FABC", "ABCD", "ABCD", "BCDE"};
+    for (String s : expected) {
+      sc.run();
+      assertEquals(s, sc.getCurrentString());
+    }
+    assertEquals(1, sc.getPosition());
+  }
+
+  @Test
+  public void testInstantlyRepeat() throws Exception {
+    StringScroller sc = new StringScroller("ABCDEF", 4, true);
+    String[] expected = {"ABCD", "BCDE", "CDEF", "ABCD", "BCDE", "CDEF", "ABCD"};
+    for (int i = 0; i < expected.length; i++) {
+      sc.run();
+      assertEquals(expected[i], sc.getCurrentString());
+      assertEquals(i == 3 || i == 6, sc.isReset());
+    }
+  }
+
+  @Test
+  public void testSharedFrames() throws Exception {
+    StringScroller sc = new StringScroller("ABCDEF", 4, true);
+    StringScroller clone = sc.clone();
+    sc.run();
+    sc.run();
+    clone.run();
+    assertSame(sc.getFrames(), clone.getFrames());
+    assertSame(sc.getFrames(), ScrollerFrames.of("ABCDEF", 4, true));
+    assertEquals("BCDE", sc.getCurrentString());
+    assertEquals("ABCD", clone.getCurrentString());
+  }
+
+  @Test
+  public void testResetHook() throws Exception {
+    int[] resets = {0};
+    StringScroller sc = new StringScroller("ABC", 2, true) {
+      @Override protected void onReset() {
+        resets[0]++;
+      }
+    };
+    for (int i = 0; i < 5; i++) {
+      sc.run();
+    }
+    assertEquals(2, resets[0]);
+    assertTrue(sc.isReset());
+    sc.run();
+    assertFalse(sc.isReset());
+  }
+
+  @Test
+  public void testNonShareableHooks() throws Exception {
+    assertTrue(new StringScroller("ABC", 2).isShareable());
+    // Each instance numbers its own frames, which can't be shared.
+    StringScroller sc = new StringScroller("ABCDEF", 4, true) {
+      private int runs;
+
+      @Override protected String postRun(String string) {
+        return string.substring(1) + ++runs % 10;
+      }
+    };
+    assertFalse(sc.isShareable());
+    sc.run();
+    sc.run();
+    StringScroller clone = sc.clone();
+    sc.run();
+    assertEquals("DEF3", sc.getCurrentString());
+    clone.run();
+    assertEquals("DEF3", clone.getCurrentString());
+    sc.run();
+    assertEquals("BCD4", sc.getCurrentString());
+    assertTrue(sc.isReset());
+    // Shared frames would repeat the second cycle from here on.
+    for (int i = 0; i < 3; i++) {
+      sc.run();
+    }
+    assertEquals("BCD7", sc.getCurrentString());
+  }
+}
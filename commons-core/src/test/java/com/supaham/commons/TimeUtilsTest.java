@@ -4,12 +4,15 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import com.supaham.commons.exceptions.DurationParseException;
+import com.supaham.commons.exceptions.TimeParseException;
 import com.supaham.commons.utils.TimeUtils;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.time.LocalTime;
+import java.util.Random;
+import java.util.regex.Matcher;
 
 /**
  * Created by Ali on 09/02/2015.
@@ -80,4 +83,157 @@ public class TimeUtilsTest {
     Assert.assertEquals(LocalTime.of(12, 0, 30), TimeUtils.parseTime("12:00:30p.M."));
 
   }
+
+  @Test
+  public void testParseMsMatchesRegex() throws Exception {
+    String[] fixed = {"0", "1x", "d", "-", "-s", ".s", "1.s", ".5s", "-.5m", "1.5.5s", "1x5ms", "5m s",
+                      "1mss", "999999999999999999d", "1234567890123456s", "-0s", "10ms5", "1M"};
+    for (String text : fixed) {
+      assertSameDuration(text);
+    }
+    Random random = new Random(1);
+    String alphabet = "0123456789.-dhmsx M";
+    for (int i = 0; i < 100_000; i++) {
+      StringBuilder builder = new StringBuilder();
+      int length = 1 + random.nextInt(12);
+      for (int j = 0; j < length; j++) {
+        builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      assertSameDuration(builder.toString());
+    }
+  }
+
+  @Test
+  public void testParseTimeMatchesRegex() throws Exception {
+    Random random = new Random(2);
+    String alphabet = "0123456789::aApPmM.. \t";
+    for (int i = 0; i < 100_000; i++) {
+      StringBuilder builder = new StringBuilder();
+      int length = 1 + random.nextInt(12);
+      for (int j = 0; j < length; j++) {
+        builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      assertSameTime(builder.toString());
+    }
+    for (String text : new String[]{"12 ", "1:23:45 p.m.", "12AMPM", "1:2:34", "123", "01:60"}) {
+      assertSameTime(text);
+    }
+  }
+
+  private static void assertSameDuration(String text) {
+    Object expected;
+    Object actual;
+    try {
+      expected = legacyParseDurationMs(text);
+    } catch (RuntimeException e) {
+      expected = e.getClass() + ": " + e.getMessage();
+    }
+    try {
+      actual = TimeUtils.parseDurationMs(text);
+    } catch (RuntimeException e) {
+      actual = e.getClass() + ": " + e.getMessage();
+    }
+    Assert.assertEquals(text, expected, actual);
+  }
+
+  private static void assertSameTime(String text) {
+    Object expected;
+    Object actual;
+    try {
+      expected = legacyParseTime(text);
+    } catch (RuntimeException e) {
+      expected = e.getClass() + ": " + e.getMessage();
+    }
+    try {
+      actual = TimeUtils.parseTime(text);
+    } catch (RuntimeException e) {
+      actual = e.getClass() + ": " + e.getMessage();
+    }
+    Assert.assertEquals(text, expected, actual);
+  }
+
+  /*
+   * The regex based implementations TimeUtils used to have.
+   */
+  private static long legacyParseDurationMs(String text) {
+    if (text.equals("0")) {
+      return 0;
+    }
+    Matcher matcher = TimeUtils.PATTERN.matcher(text);
+    long sum = 0;
+    boolean foundUnit = false;
+    while (matcher.find()) {
+      String d = matcher.group(1);
+      int multiplier;
+      String unitString;
+      foundUnit = true;
+      switch (matcher.group(2)) {
+        case "d":
+          multiplier = TimeUtils.SECONDS_PER_DAY * 1000;
+          unitString = "days";
+          break;
+        case "h":
+          multiplier = TimeUtils.SECONDS_PER_HOUR * 1000;
+          unitString = "hours";
+          break;
+        case "m":
+          multiplier = TimeUtils.SECONDS_PER_MINUTE * 1000;
+          unitString = "minutes";
+          break;
+        case "s":
+          multiplier = 1000;
+          unitString = "seconds";
+          break;
+        default:
+          multiplier = 1;
+          unitString = "milliseconds";
+      }
+      try {
+        sum += (long) (Double.parseDouble(d) * multiplier);
+      } catch (NumberFormatException ex) {
+        throw new DurationParseException("Text cannot be parsed to a Duration: " + unitString);
+      }
+    }
+    if (sum == 0 && !foundUnit) {
+      throw new DurationParseException("Text cannot be parsed as milliseconds " + text);
+    }
+    return sum;
+  }
+
+  private static LocalTime legacyParseTime(String timeString) {
+    Matcher matcher = TimeUtils.TIME_PATTERN.matcher(timeString);
+    if (!matcher.matches()) {
+      throw new TimeParseException(timeString, timeString + " is not a valid time.");
+    }
+    int hours = Integer.parseInt(matcher.group("hours"));
+    int minutes = matcher.group("minutes") == null ? 0 : Integer.parseInt(matcher.group("minutes"));
+    int seconds = matcher.group("seconds") == null ? 0 : Integer.parseInt(matcher.group("seconds"));
+    Boolean isAM = null;
+    if (matcher.group("ampm") != null) {
+      isAM = matcher.group("ampm").toLowerCase().replaceAll("\\.", "").equals("am");
+    }
+    if (hours > 23) {
+      throw new TimeParseException(timeString, "hours cannot be less than 0 or greater than 23.");
+    }
+    if (minutes > 60) {
+      throw new TimeParseException(timeString, "minutes cannot be less than 0 or greater than 60.");
+    }
+    if (seconds > 60) {
+      throw new TimeParseException(timeString, "seconds cannot be less than 0 or greater than 60.");
+    }
+    if (isAM != null) {
+      if (hours < 1 || hours > 12) {
+        throw new TimeParseException(timeString,
+                                     "hours cannot be less than 1 or greater than 12 in 12-hour "
+                                     + "format.");
+      }
+      if (hours == 12) {
+        hours = 0;
+      }
+      if (!isAM) {
+        hours += 12;
+      }
+    }
+    return LocalTime.of(hours, minutes, seconds);
+  }
 }
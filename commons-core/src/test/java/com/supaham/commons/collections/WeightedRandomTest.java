@@ -0,0 +1,114 @@
+package com.supaham.commons.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.supaham.commons.utils.RandomSource;
+import com.supaham.commons.utils.RandomUtils;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+public class WeightedRandomTest {
+
+  private static final int SAMPLES = 200_000;
+
+  private static <T> void assertDistribution(WeightedRandom<T> random, RandomSource source) {
+    Map<T, Integer> counts = new HashMap<>();
+    for (int i = 0; i < SAMPLES; i++) {
+      counts.merge(random.next(source), 1, Integer::sum);
+    }
+    for (Entry<T, Double> entry : random.getWeights().entrySet()) {
+      double expected = random.getProbability(entry.getKey());
+      double actual = counts.getOrDefault(entry.getKey(), 0) / (double) SAMPLES;
+      if (expected == 0) {
+        assertEquals("element " + entry.getKey(), 0, actual, 0);
+      } else {
+        assertEquals("element " + entry.getKey(), expected, actual, 0.01);
+      }
+    }
+  }
+
+  @Test
+  public void testAlias() {
+    WeightedRandom<String> random = WeightedRandom.<String>builder()
+        .add("a", 1).add("b", 3).add("c", 0).add("d", 6).add("b", 2).build();
+    assertEquals(4, random.size());
+    assertEquals(12, random.getTotalWeight(), 0);
+    assertEquals(5, random.getWeight("b"), 0);
+    assertDistribution(random, RandomSource.seeded(1));
+    assertEquals("a", WeightedRandom.of(ImmutableMap.of("a", 1)).next());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testZeroTotal() {
+    WeightedRandom.of(ImmutableMap.of("a", 0)).next();
+  }
+
+  @Test
+  public void testMutable() {
+    MutableWeightedRandom<Integer> random = new MutableWeightedRandom<>(1);
+    Map<Integer, Double> expected = new HashMap<>();
+    Random r = new Random(7);
+    for (int i = 0; i < 10_000; i++) {
+      int element = r.nextInt(50);
+      if (r.nextInt(4) == 0) {
+        assertEquals(expected.getOrDefault(element, 0d), random.remove(element), 0);
+        expected.remove(element);
+      } else {
+        double weight = r.nextInt(100);
+        random.set(element, weight);
+        expected.put(element, weight);
+      }
+    }
+    assertEquals(expected, random.getWeights());
+    double total = expected.values().stream().mapToDouble(Double::doubleValue).sum();
+    assertEquals(total, random.getTotalWeight(), 1e-6);
+    assertDistribution(random, RandomSource.seeded(2));
+
+    random.clear();
+    assertTrue(random.isEmpty());
+    random.add(3, 1);
+    assertFalse(random.contains(1));
+    assertEquals(Integer.valueOf(3), random.next());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMutableZeroTotal() {
+    MutableWeightedRandom<String> random = new MutableWeightedRandom<>();
+    random.set("a", .1);
+    random.set("b", .2);
+    random.set("a", 0);
+    random.set("b", 0);
+    assertEquals(0, random.getTotalWeight(), 0);
+    random.next();
+  }
+
+  @Test
+  public void testMutableSkipsZeroWeights() {
+    MutableWeightedRandom<String> random = new MutableWeightedRandom<>();
+    random.set("a", .1);
+    random.set("b", .2);
+    random.set("c", .3);
+    random.set("a", 0);
+    random.set("c", 0);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("b", random.next());
+    }
+  }
+
+  @Test
+  public void testNextWeighted() {
+    Map<String, Integer> weights = ImmutableMap.of("a", 0, "b", 1);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("b", RandomUtils.nextWeighted(weights));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.supaham.commons.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class EventBusTest {
+
+  @Test
+  public void testPriorities() throws Exception {
+    EventBus bus = new EventBus();
+    Listener listener = new Listener();
+    bus.register(listener);
+    TestEvent event = bus.post(new TestEvent());
+    assertEquals(Arrays.asList("lowest", "normal", "monitor"), event.calls);
+    assertEquals(1, listener.events);
+  }
+
+  @Test
+  public void testIgnoreCancelled() throws Exception {
+    EventBus bus = new EventBus();
+    bus.register(new Listener());
+    bus.subscribe(TestEvent.class, e -> e.setCancelled(true), EventPriority.LOW, false);
+    TestEvent event = bus.post(new TestEvent());
+    // normal ignores cancelled events.
+    assertEquals(Arrays.asList("lowest", "monitor"), event.calls);
+  }
+
+  @Test
+  public void testHierarchyAndUnregister() throws Exception {
+    EventBus bus = new EventBus();
+    Listener listener = new Listener();
+    PrivateListener privateListener = new PrivateListener();
+    bus.register(listener);
+    bus.register(privateListener);
+    bus.post("not an event");
+    bus.post(new TestEvent());
+    assertEquals(1, listener.events);
+    assertEquals(2, privateListener.objects);
+
+    assertTrue(bus.unregister(listener));
+    assertFalse(bus.unregister(listener));
+    bus.post(new TestEvent());
+    assertEquals(1, listener.events);
+    assertEquals(3, privateListener.objects);
+    assertTrue(bus.unregister(privateListener));
+    assertFalse(bus.hasHandlers(TestEvent.class));
+  }
+
+  @Test
+  public void testExceptions() throws Exception {
+    List<Throwable> thrown = new ArrayList<>();
+    EventBus bus = new EventBus(Runnable::run, (t, event) -> thrown.add(t));
+    bus.subscribe(TestEvent.class, e -> {
+      throw new IllegalStateException();
+    }, EventPriority.LOWEST, false);
+    TestEvent event = bus.post(new TestEvent());
+    bus.register(new Listener());
+    bus.post(event);
+    assertEquals(2, thrown.size());
+    assertEquals(Arrays.asList("lowest", "normal", "monitor"), event.calls);
+  }
+
+  @Test
+  public void testAsync() throws Exception {
+    EventBus bus = new EventBus();
+    Thread[] thread = new Thread[1];
+    bus.subscribe(TestEvent.class, e -> thread[0] = Thread.currentThread());
+    TestEvent event = new TestEvent();
+    assertSame(event, bus.postAsync(event).get(5, TimeUnit.SECONDS));
+    assertTrue(thread[0] != Thread.currentThread());
+  }
+
+  public static class TestEvent extends AbstractCancellable {
+
+    private final List<String> calls = new ArrayList<>();
+  }
+
+  public static class Listener {
+
+    private int events;
+
+    @Subscribe(priority = EventPriority.MONITOR)
+    public void onMonitor(TestEvent event) {
+      event.calls.add("monitor");
+    }
+
+    @Subscribe(ignoreCancelled = true)
+    public void onNormal(TestEvent event) {
+      event.calls.add("normal");
+      events++;
+    }
+
+    @Subscribe(priority = EventPriority.LOWEST)
+    public void onLowest(TestEvent event) {
+      event.calls.add("lowest");
+    }
+  }
+
+  private static class PrivateListener {
+
+    private int objects;
+
+    @Subscribe
+    private void onObject(Object object) {
+      objects++;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.supaham.commons.placeholders;
+
+import static com.supaham.commons.placeholders.SimplePlaceholderTest.PNAME;
+import static com.supaham.commons.placeholders.SimplePlaceholderTest.SIMPLE_PLACEHOLDER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public class AsyncPlaceholderTest {
+
+  private PlaceholderSet<Placeholder> set = new PlaceholderSet<>();
+  private CompletableFuture<String> deaths = new CompletableFuture<>();
+  private AtomicInteger deathsLookups = new AtomicInteger();
+
+  @Before
+  public void before() {
+    set.add(SIMPLE_PLACEHOLDER);
+    set.add(new AsyncPlaceholder(1, TimeUnit.SECONDS, "?", "kills") {
+      @Nullable @Override
+      public CompletableFuture<String> applyAsync(@Nonnull PlaceholderData input) {
+        return CompletableFuture.supplyAsync(() -> "42");
+      }
+    });
+    // Never completes.
+    set.add(new AsyncPlaceholder(50, TimeUnit.MILLISECONDS, "N/A", "slow") {
+      @Nullable @Override
+      public CompletableFuture<String> applyAsync(@Nonnull PlaceholderData input) {
+        return new CompletableFuture<>();
+      }
+    });
+    set.add(new AsyncPlaceholder(1, TimeUnit.SECONDS, "error", "broken") {
+      @Nullable @Override
+      public CompletableFuture<String> applyAsync(@Nonnull PlaceholderData input) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalStateException());
+        return future;
+      }
+    });
+    set.add(new AsyncPlaceholder(1, TimeUnit.SECONDS, "cancelled", "cancelled") {
+      @Nullable @Override
+      public CompletableFuture<String> applyAsync(@Nonnull PlaceholderData input) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.cancel(false);
+        return future;
+      }
+    });
+    set.add(new CachedPlaceholder(new AsyncPlaceholder(10, TimeUnit.SECONDS, "?", "deaths") {
+      @Nullable @Override
+      public CompletableFuture<String> applyAsync(@Nonnull PlaceholderData input) {
+        deathsLookups.incrementAndGet();
+        return deaths;
+      }
+    }, 1, TimeUnit.MINUTES));
+  }
+
+  @Test
+  public void testApplyAsync() throws Exception {
+    String result = set.applyAsync(PlaceholderData.build("{pname}: {kills} {kills}")).get();
+    assertEquals(PNAME + ": 42 42", result);
+  }
+
+  @Test
+  public void testFallback() throws Exception {
+    String result = set.applyAsync(PlaceholderData.build("{kills} {slow} {broken}")).get();
+    assertEquals("42 N/A error", result);
+  }
+
+  @Test
+  public void testSynchronousApply() {
+    assertEquals("42 N/A", set.apply("{kills} {slow}"));
+    assertEquals("cancelled", set.apply("{cancelled}"));
+  }
+
+  @Test
+  public void testCachedApplyAsync() throws Exception {
+    CompletableFuture<String> result = set.applyAsync(PlaceholderData.build("{deaths} {kills}"));
+    // The cached placeholder is awaited asynchronously rather than blocking applyAsync.
+    assertFalse(result.isDone());
+    deaths.complete("7");
+    assertEquals("7 42", result.get());
+
+    deaths = new CompletableFuture<>(); // Served from the cache, never completes otherwise.
+    assertEquals("7", set.applyAsync(PlaceholderData.build("{deaths}")).get());
+    assertEquals("7", set.apply("{deaths}"));
+    assertEquals(1, deathsLookups.get());
+  }
+
+  @Test
+  public void testFallbackIsNotCached() throws Exception {
+    final AtomicInteger lookups = new AtomicInteger();
+    PlaceholderSet<Placeholder> set = new PlaceholderSet<>();
+    set.add(new CachedPlaceholder(new AsyncPlaceholder(50, TimeUnit.MILLISECONDS, "N/A", "rank") {
+      @Nullable @Override
+      public CompletableFuture<String> applyAsync(@Nonnull PlaceholderData input) {
+        // Times out twice, once through apply and once through applyAsync.
+        return lookups.incrementAndGet() <= 2 ? new CompletableFuture<String>()
+                                              : CompletableFuture.completedFuture("Gold");
+      }
+    }, 1, TimeUnit.MINUTES));
+
+    assertEquals("N/A", set.apply("{rank}"));
+    assertEquals("N/A", set.applyAsync(PlaceholderData.build("{rank}")).get());
+    assertEquals("Gold", set.apply("{rank}"));
+    assertEquals("Gold", set.applyAsync(PlaceholderData.build("{rank}")).get());
+    assertEquals(3, lookups.get());
+  }
+
+  @Test
+  public void testRenderOffTimeoutThread() throws Exception {
+    set.add(new SimplePlaceholder("thread") {
+      @Nullable @Override public String apply(PlaceholderData input) {
+        return isPlaceholder(input.getPlaceholder()) ? Thread.currentThread().getName() : null;
+      }
+    });
+    // {slow} completes last, on the timeout scheduler.
+    String result = set.applyAsync(PlaceholderData.build("{slow} {thread}")).get();
+    assertTrue(result, result.startsWith("N/A "));
+    assertFalse(result, result.contains("AsyncPlaceholder-timeouts"));
+  }
+}
@@ -0,0 +1,64 @@
+package com.supaham.commons.placeholders;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+public class CachedPlaceholderTest {
+
+  private static class CountingPlaceholder extends SimplePlaceholder {
+
+    private int calls;
+
+    public CountingPlaceholder() {
+      super("count");
+    }
+
+    @Nullable @Override public String apply(PlaceholderData input) {
+      return isPlaceholder(input.getPlaceholder()) ? String.valueOf(++calls) : null;
+    }
+  }
+
+  @Test
+  public void testGlobalScope() {
+    CachedPlaceholder placeholder = new CachedPlaceholder(new CountingPlaceholder(), 1,
+                                                          TimeUnit.MINUTES);
+    PlaceholderSet<Placeholder> set = new PlaceholderSet<>();
+    set.add(placeholder);
+
+    assertEquals("1 1", set.apply("{count} {count}"));
+    assertEquals("1", set.apply("{count}"));
+    assertEquals(1, placeholder.getStats().missCount());
+    assertEquals(2, placeholder.getStats().hitCount());
+
+    placeholder.invalidateAll();
+    assertEquals("2", set.apply("{count}"));
+  }
+
+  @Test
+  public void testLocalScope() {
+    CachedPlaceholder placeholder = CachedPlaceholder.builder(new CountingPlaceholder())
+        .ttl(1, TimeUnit.MINUTES).scope(UUID.class).build();
+    PlaceholderSet<Placeholder> set = new PlaceholderSet<>();
+    set.add(placeholder);
+
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+    assertEquals("1", set.apply(PlaceholderData.builder().input("{count}").put(first).build()));
+    assertEquals("2", set.apply(PlaceholderData.builder().input("{count}").put(second).build()));
+    assertEquals("1", set.apply(PlaceholderData.builder().input("{count}").put(first).build()));
+    assertEquals(2, placeholder.size());
+
+    placeholder.invalidate(first);
+    assertEquals(1, placeholder.size());
+
+    // No scope present, the result isn't cached.
+    assertEquals("3", set.apply("{count}"));
+    assertEquals(1, placeholder.size());
+  }
+}
@@ -0,0 +1,96 @@
+package com.supaham.commons.placeholders;
+
+import static com.supaham.commons.placeholders.SimplePlaceholderTest.PDNAME;
+import static com.supaham.commons.placeholders.SimplePlaceholderTest.PNAME;
+import static com.supaham.commons.placeholders.SimplePlaceholderTest.SIMPLE_PLACEHOLDER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class CompiledTemplateTest {
+
+  private static final PlaceholderFunction FUNCTION = new PlaceholderFunction() {
+    @Override
+    public Collection<Placeholder> getPlaceholders() {
+      return Arrays.asList(SIMPLE_PLACEHOLDER);
+    }
+  };
+
+  @Test
+  public void testCompileIsCached() {
+    String input = "Hi, {pname}!";
+    assertSame(CompiledTemplate.compile(input), CompiledTemplate.compile(new String(input)));
+  }
+
+  @Test
+  public void testSegments() {
+    CompiledTemplate template = CompiledTemplate.compile("{pname} is in {world}.");
+    assertTrue(template.hasPlaceholders());
+    assertEquals(Arrays.asList("pname", "world"), template.getPlaceholders());
+    assertEquals(" is in .".length(), template.getLiteralsLength());
+
+    assertFalse(CompiledTemplate.compile("No placeholders here.").hasPlaceholders());
+  }
+
+  @Test
+  public void testRender() {
+    String input = "Hi, my IGN is {pname}. However, my display name is {pdname} {asd}.";
+    String expected = input.replace("{pname}", PNAME).replace("{pdname}", PDNAME);
+    PlaceholderData data = PlaceholderData.build(input);
+    StringBuilder builder = new StringBuilder("> ");
+    CompiledTemplate.compile(input).render(data, FUNCTION, builder);
+    assertEquals("> " + expected, builder.toString());
+  }
+
+  @Test
+  public void testMatchesUncompiledBehaviour() {
+    // Extra braces are kept, only one brace is removed on either side of the placeholder.
+    String input = "{{pname}} {pname}{pdname}";
+    String expected = "{{pname}} " + PNAME + PDNAME;
+    assertEquals(expected, FUNCTION.apply(PlaceholderData.build(input)));
+  }
+
+  @Test
+  public void testApplyProgressiveOutput() {
+    final List<String> seen = new ArrayList<>();
+    final Placeholder recorder = new Placeholder() {
+      @Override public String apply(PlaceholderData input) {
+        seen.add(input.getString() + "|" + input.getPlaceholder());
+        return "<" + input.getPlaceholder() + ">";
+      }
+
+      @Override public void onComplete(String string) {
+        seen.add(string);
+      }
+
+      @Override public boolean isPlaceholder(String string) {
+        return true;
+      }
+
+      @Override public List<String> getPlaceholders() {
+        return Arrays.asList();
+      }
+    };
+    PlaceholderFunction function = new PlaceholderFunction() {
+      @Override
+      public Collection<Placeholder> getPlaceholders() {
+        return Arrays.asList(SIMPLE_PLACEHOLDER, recorder);
+      }
+    };
+    PlaceholderData data = PlaceholderData.build("a {pname} b {xy} c");
+    data.setString("> "); // Output is appended to what the data already holds.
+    String expected = "> a " + PNAME + " b <xy> c";
+    assertEquals(expected, function.apply(data));
+    assertEquals(Arrays.asList("> a " + PNAME + "|xy", expected), seen);
+    // The last handled placeholder is left with its replacement.
+    assertEquals("<xy>", data.getPlaceholder());
+  }
+}
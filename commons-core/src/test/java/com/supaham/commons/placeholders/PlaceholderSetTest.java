@@ -10,6 +10,18 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
 /**
  * Created by Ali on 28/01/2015.
  */
@@ -40,4 +52,118 @@ public class PlaceholderSetTest {
     set.remove(SIMPLE_PLACEHOLDER);
     assertFalse(set.contains(SIMPLE_PLACEHOLDER));
   }
+
+  @Test
+  public void testHasPlaceholder() {
+    assertTrue(set.hasPlaceholder("pname"));
+    assertFalse(set.hasPlaceholder("nope"));
+    set.remove(SIMPLE_PLACEHOLDER);
+    assertFalse(set.hasPlaceholder("pname"));
+  }
+
+  @Test
+  public void testIteratorRemoveUpdatesIndex() {
+    Iterator<Placeholder> it = set.iterator();
+    it.next();
+    it.remove();
+    assertEquals("{pname}", set.apply("{pname}"));
+  }
+
+  @Test
+  public void testDynamicPlaceholder() {
+    set.add(new SimplePlaceholder("stat") {
+      @Nullable @Override public String apply(PlaceholderData input) {
+        String placeholder = input.getPlaceholder();
+        return isPlaceholder(placeholder) ? placeholder.substring("stat_".length()) : null;
+      }
+
+      @Override public boolean isPlaceholder(@Nullable String string) {
+        return string != null && string.startsWith("stat_");
+      }
+    });
+    assertTrue(set.hasPlaceholder("stat_kills"));
+    assertEquals("kills " + PNAME, set.apply("{stat_kills} {pname}"));
+  }
+
+  @Test
+  public void testDynamicPlaceholderNotIndexed() {
+    final List<String> names = new ArrayList<>(Collections.singletonList("old"));
+    set.add(new SimplePlaceholder("old") {
+      @Nullable @Override public String apply(PlaceholderData input) {
+        return isPlaceholder(input.getPlaceholder()) ? "dynamic" : null;
+      }
+
+      @Override public boolean isPlaceholder(@Nullable String string) {
+        return names.contains(string);
+      }
+    });
+    names.set(0, "new");
+    assertFalse(set.hasPlaceholder("old"));
+    assertTrue(set.hasPlaceholder("new"));
+    assertEquals("{old} dynamic", set.apply("{old} {new}"));
+  }
+
+  @Test
+  public void testBulkApply() {
+    final AtomicInteger sharedCalls = new AtomicInteger();
+    PlaceholderSet<Placeholder> set = bulkSet(sharedCalls);
+    List<Map<Object, Object>> locals = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      locals.add(new HashMap<>(Collections.singletonMap(String.class, "p" + i)));
+      expected.add("p" + i + ": 1 online, " + PNAME);
+    }
+    assertEquals(expected, set.apply("{viewer}: {online} online, {pname}", locals));
+    assertEquals(1, sharedCalls.get());
+
+    sharedCalls.set(0);
+    assertEquals(expected, set.apply("{viewer}: {online} online, {pname}", locals, true));
+  }
+
+  @Test
+  public void testBulkApplyCustomFunction() {
+    PlaceholderSet<Placeholder> set = bulkSet(new AtomicInteger());
+    final PlaceholderFunction common = new CommonPlaceholderFunction(set);
+    set.setPlaceholderFunction(new PlaceholderFunction() {
+      @Override public Collection<? extends Placeholder> getPlaceholders() {
+        return common.getPlaceholders();
+      }
+
+      @Nullable @Override public String replace(@Nonnull PlaceholderData data) {
+        String match = common.replace(data);
+        return match != null ? "[" + match + "]" : null;
+      }
+    });
+    Map<Object, Object> locals = new HashMap<>(Collections.singletonMap(String.class, "p0"));
+    assertEquals(Collections.singletonList("[p0]: [1] online, [" + PNAME + "]"),
+                 set.apply("{viewer}: {online} online, {pname}",
+                           Collections.singletonList(locals)));
+  }
+
+  /*
+   * A set of thread safe placeholders, as bulk rendering may apply them in parallel.
+   */
+  private static PlaceholderSet<Placeholder> bulkSet(final AtomicInteger sharedCalls) {
+    PlaceholderSet<Placeholder> set = new PlaceholderSet<>();
+    set.add(new SimplePlaceholder("pname") {
+      @Nullable @Override public String apply(PlaceholderData input) {
+        return isPlaceholder(input.getPlaceholder()) ? PNAME : null;
+      }
+    });
+    set.add(new SimplePlaceholder("online") {
+      @Nullable @Override public String apply(PlaceholderData input) {
+        return isPlaceholder(input.getPlaceholder()) ? sharedCalls.incrementAndGet() + "" : null;
+      }
+
+      @Override public boolean dependsOnLocals() {
+        return false;
+      }
+    });
+    set.add(new SimplePlaceholder("viewer") {
+      @Nullable @Override public String apply(PlaceholderData input) {
+        return isPlaceholder(input.getPlaceholder()) ? input.get(String.class) : null;
+      }
+    });
+    return set;
+  }
 }
@@ -89,4 +89,43 @@ public class RelativeNumberTest {
     Assert.assertEquals(modulus, RelativeNumber.fromString("~%1"));
     Assert.assertEquals(power, RelativeNumber.fromString("~^1"));
   }
+
+  @Test
+  public void testCompile() throws Exception {
+    double[] in = {-3, 0, 0.5, 2, 7};
+    for (ArithmeticOperator operator : ArithmeticOperator.values()) {
+      RelativeNumber relative = RelativeNumber.from(operator, 2.5);
+      double[] out = relative.applyTo(in, new double[in.length]);
+      for (int i = 0; i < in.length; i++) {
+        Assert.assertEquals(relative.apply(in[i]), relative.compile().applyAsDouble(in[i]), 0);
+        Assert.assertEquals(relative.apply(in[i]), out[i], 0);
+      }
+    }
+
+    RelativeNumber absolute = RelativeNumber.fromString("4");
+    Assert.assertArrayEquals(new double[]{4, 4}, absolute.applyTo(new double[]{1, 2}, new double[2]), 0);
+  }
+
+  @Test
+  public void testTryParse() throws Exception {
+    Assert.assertEquals(RelativeNumber.fromString("~-1.5"), RelativeNumber.tryParse("~-1.5"));
+    Assert.assertEquals(RelativeNumber.fromString("~*1e3"), RelativeNumber.tryParse("~*1e3"));
+    Assert.assertEquals(RelativeNumber.ZERO, RelativeNumber.tryParse("~"));
+    Assert.assertTrue(RelativeNumber.tryParse("12").isWholeNumber());
+    Assert.assertFalse(RelativeNumber.tryParse("12.0").isWholeNumber());
+    Assert.assertFalse(RelativeNumber.tryParse("3000000000").isWholeNumber());
+    Assert.assertFalse(RelativeNumber.tryParse("12").isRelative());
+
+    Assert.assertNull(RelativeNumber.tryParse("1asd"));
+    Assert.assertNull(RelativeNumber.tryParse("~1+"));
+    Assert.assertNull(RelativeNumber.tryParse("~&1"));
+    Assert.assertNull(RelativeNumber.tryParse("~+"));
+    Assert.assertNull(RelativeNumber.tryParse("~."));
+    Assert.assertNull(RelativeNumber.tryParse(null));
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testInvalidDeserialization() throws Exception {
+    RelativeNumber.fromString("~1asd");
+  }
 }
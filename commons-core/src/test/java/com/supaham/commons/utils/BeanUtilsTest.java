@@ -0,0 +1,56 @@
+package com.supaham.commons.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BeanUtilsTest {
+
+  public static class Parent {
+
+    private int id = 4;
+
+    public int getId() {
+      return id;
+    }
+  }
+
+  public static class Bean extends Parent {
+
+    private String name = "bean";
+    private transient String secret = "secret";
+    private boolean enabled = true;
+
+    public String getName() {
+      return name;
+    }
+
+    public String getSecret() {
+      return secret;
+    }
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public String getComputed() {
+      return "no field";
+    }
+  }
+
+  @Test
+  public void testProperties() {
+    Map<String, Object> expected = new LinkedHashMap<>();
+    expected.put("enabled", true);
+    expected.put("id", 4);
+    expected.put("name", "bean");
+    assertEquals(expected, BeanUtils.getPropertiesList(new Bean()));
+
+    Map<String, Object> streamed = new LinkedHashMap<>();
+    BeanUtils.forEachProperty(new Bean(), streamed::put);
+    assertEquals(expected, streamed);
+  }
+}
@@ -0,0 +1,75 @@
+package com.supaham.commons.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class ConcurrentWeakSetTest {
+
+  @Test
+  public void testEquality() {
+    ConcurrentWeakSet<String> set = new ConcurrentWeakSet<>();
+    String a = new String("a");
+    assertTrue(set.add(a));
+    assertFalse(set.add(new String("a")));
+    assertTrue(set.contains(new String("a")));
+    assertTrue(set.remove(new String("a")));
+    assertTrue(set.isEmpty());
+  }
+
+  @Test
+  public void testIdentity() {
+    ConcurrentWeakSet<String> set = new ConcurrentWeakSet<>(true);
+    String a = new String("a");
+    String b = new String("a");
+    assertTrue(set.add(a));
+    assertTrue(set.add(b));
+    assertEquals(2, set.size());
+    assertFalse(set.contains(new String("a")));
+    assertTrue(set.remove(a));
+    assertTrue(set.contains(b));
+  }
+
+  @Test
+  public void testModifyWhileIterating() {
+    ConcurrentWeakSet<Integer> set = new ConcurrentWeakSet<>();
+    List<Integer> strong = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      Integer integer = i;
+      strong.add(integer);
+      set.add(integer);
+    }
+    Iterator<Integer> iterator = set.iterator();
+    while (iterator.hasNext()) {
+      Integer next = iterator.next();
+      if (next % 2 == 0) {
+        iterator.remove();
+      } else {
+        set.remove(next); // Would throw ConcurrentModificationException in a WeakSet.
+      }
+    }
+    assertTrue(set.isEmpty());
+  }
+
+  @Test
+  public void testExpunge() throws Exception {
+    ConcurrentWeakKeyMap<Object, String> map = new ConcurrentWeakKeyMap<>();
+    Object strong = new Object();
+    map.put(strong, "strong");
+    for (int i = 0; i < 100; i++) {
+      map.put(new Object(), "weak");
+    }
+    for (int i = 0; i < 50 && map.size() > 1; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertEquals(1, map.size());
+    assertEquals("strong", map.get(strong));
+  }
+}
@@ -3,6 +3,10 @@ package com.supaham.commons.utils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class RandomUtilsTest {
 
   @Test
@@ -13,4 +17,37 @@ public class RandomUtilsTest {
     }
 
   }
+
+  @Test
+  public void testBulkFill() throws Exception {
+    int[] ints = RandomUtils.nextInts(new int[10000], -3, 3);
+    boolean[] seen = new boolean[7];
+    for (int i : ints) {
+      Assert.assertTrue(i >= -3 && i <= 3);
+      seen[i + 3] = true;
+    }
+    for (boolean b : seen) {
+      Assert.assertTrue(b);
+    }
+    RandomUtils.nextInts(ints, Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+    for (int i : ints) {
+      Assert.assertTrue(i >= Integer.MAX_VALUE - 1);
+    }
+    for (double d : RandomUtils.nextDoubles(new double[10000], 20, 200)) {
+      Assert.assertTrue(d >= 20 && d < 200);
+    }
+  }
+
+  @Test
+  public void testSeededSource() throws Exception {
+    int[] a = RandomUtils.nextInts(RandomSource.seeded(42).split(), new int[100], 0, 1000);
+    int[] b = RandomUtils.nextInts(RandomSource.seeded(42).split(), new int[100], 0, 1000);
+    Assert.assertArrayEquals(a, b);
+
+    Set<Integer> set = new LinkedHashSet<>(Arrays.asList(1, 2, 3, 4, 5));
+    RandomSource source = RandomSource.seeded(1);
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertTrue(set.contains(CollectionUtils.getRandomElement(source, set)));
+    }
+  }
 }
@@ -5,6 +5,8 @@ import static com.supaham.commons.utils.ReflectionUtils.getUniqueDeclaredMethods
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.List;
@@ -18,6 +20,50 @@ public class ReflectionUtilsTest {
     Assert.assertEquals(3, list.size());
   }
 
+  @Test
+  public void testCachedLookups() throws Throwable {
+    Method method = ReflectionUtils.getMethod(C.class, "secret", int.class);
+    Assert.assertNotNull(method);
+    Assert.assertEquals(method, ReflectionUtils.getMethod(C.class, "secret", int.class));
+    Assert.assertNull(ReflectionUtils.getMethod(C.class, "secret", long.class));
+    Assert.assertEquals(method, ReflectionUtils.getMethod(C.class, "secret"));
+
+    MethodHandle handle = ReflectionUtils.getMethodHandle(C.class, "secret", int.class);
+    Assert.assertEquals(6, (int) handle.invoke(new C(), 3));
+
+    C c = new C();
+    ReflectionUtils.getFieldSetter(C.class, "value").invoke(c, 5);
+    Assert.assertEquals(5, (int) ReflectionUtils.getFieldGetter(C.class, "value").invoke(c));
+    Assert.assertEquals(5, ReflectionUtils.getField(C.class, "value").get(c));
+
+    List<Method> list = getUniqueDeclaredMethods(C.class, Collections.singletonList(Object.class));
+    list.clear(); // Returned lists must not share the cached list.
+    Assert.assertEquals(4, getUniqueDeclaredMethods(C.class, Collections.singleton(Object.class))
+        .size());
+  }
+
+  @Test
+  public void testReturnedMembersAreCopies() throws Exception {
+    Method method = ReflectionUtils.getMethod(C.class, "secret", int.class);
+    Method other = ReflectionUtils.getMethod(C.class, "secret", int.class);
+    Assert.assertNotSame(method, other);
+    method.setAccessible(false);
+    Assert.assertTrue(other.isAccessible());
+    Assert.assertTrue(ReflectionUtils.getMethod(C.class, "secret", int.class).isAccessible());
+
+    Field field = ReflectionUtils.getField(C.class, "value");
+    Assert.assertNotSame(field, ReflectionUtils.getField(C.class, "value"));
+    field.setAccessible(false);
+    Assert.assertTrue(ReflectionUtils.getField(C.class, "value").isAccessible());
+
+    Method unique = getUniqueDeclaredMethods(C.class, Collections.singleton(Object.class)).get(0);
+    unique.setAccessible(true);
+    for (Method m : getUniqueDeclaredMethods(C.class, Collections.singleton(Object.class))) {
+      Assert.assertNotSame(unique, m);
+      Assert.assertFalse(m.isAccessible());
+    }
+  }
+
   public static class A {
 
     public void someMethod() {}
@@ -31,4 +77,13 @@ public class ReflectionUtilsTest {
 
     public void subclassMethod() {}
   }
+
+  public static class C extends B {
+
+    private int value;
+
+    private int secret(int i) {
+      return i * 2;
+    }
+  }
 }
@@ -3,6 +3,7 @@ package com.supaham.commons.utils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 /**
@@ -25,4 +26,38 @@ public class UUIDUtilsTest {
   public void testConstruct() throws Exception {
     Assert.assertEquals(RANDOM_UUID, UUIDUtils.constructUUID(RANDOM_STRIPPED_UUID));
   }
+
+  @Test
+  public void testRandomRoundTrips() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      UUID uuid = UUID.randomUUID();
+      String stripped = UUIDUtils.stripHyphens(uuid);
+      Assert.assertEquals(uuid.toString().replace("-", ""), stripped);
+      Assert.assertEquals(stripped, UUIDUtils.stripHyphens(uuid.toString()));
+      Assert.assertEquals(uuid, UUIDUtils.constructUUID(stripped));
+      Assert.assertEquals(uuid, UUIDUtils.constructUUID(uuid.toString().toUpperCase()));
+      Assert.assertEquals(uuid, UUIDUtils.fromBytes(UUIDUtils.toBytes(uuid)));
+      ByteBuffer buffer = UUIDUtils.writeTo(uuid, ByteBuffer.allocate(16));
+      buffer.flip();
+      Assert.assertEquals(uuid, UUIDUtils.readFrom(buffer));
+    }
+    Assert.assertNull(UUIDUtils.stripHyphens(" "));
+    Assert.assertEquals("ab", UUIDUtils.stripHyphens("-a--b-"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidHex() throws Exception {
+    UUIDUtils.constructUUID("5828669c1b134d0eb9d3d1c97c832f4z");
+  }
+
+  @Test
+  public void testBytesLayout() throws Exception {
+    UUID uuid = UUID.fromString("00010203-0405-0607-0809-0a0b0c0d0e0f");
+    byte[] bytes = UUIDUtils.toBytes(uuid);
+    for (int i = 0; i < 16; i++) {
+      Assert.assertEquals(i, bytes[i]);
+    }
+    Assert.assertArrayEquals(ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits())
+                                 .putLong(uuid.getLeastSignificantBits()).array(), bytes);
+  }
 }
@@ -21,6 +21,17 @@ public class CDataSource implements DataSource {
         this.hikariCP = hikariCP;
     }
 
+    /**
+     * Returns the {@link HikariDataSource} this data source delegates to.
+     *
+     * @return hikari data source
+     *
+     * @since 0.9.3
+     */
+    public HikariDataSource getHikariDataSource() {
+        return hikariCP;
+    }
+
     @Override
     public Connection getConnection() throws SQLException {
         return hikariCP.getConnection();
@@ -0,0 +1,318 @@
+package com.supaham.commons.jdbc.spring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.supaham.commons.jdbc.CDataSource;
+import com.supaham.commons.jdbc.spring.SimpleBatchSetter.BatchConsumer;
+import com.supaham.commons.jdbc.sql.MySQLConfig;
+import com.supaham.commons.jdbc.sql.SpringJDBCAgent;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+
+/**
+ * Represents an executor of batch statements that iterates its elements once, and sends them to
+ * the database in chunks of a fixed size, rather than in one batch of unbounded size.
+ * <p />
+ * Example usage:
+ * <pre>
+ * BatchExecutor executor = new BatchExecutor(agent);
+ * BatchExecutor.Result result = executor.execute("INSERT INTO answers (text, poll) VALUES (?, ?)",
+ *     answers, (ps, answer) -> {
+ *       ps.setString(1, answer.getText());
+ *       ps.setInt(2, answer.getPollId());
+ *     });
+ * </pre>
+ * <p />
+ * Chunks may be committed one by one, or all at once, see {@link CommitMode}. When executed within
+ * a Spring managed transaction, commits are left to the transaction.
+ * <p />
+ * Agents of a {@link MySQLConfig} enable the driver's {@code rewriteBatchedStatements} property
+ * by default, which turns each chunk of inserts into a single multi-row statement.
+ *
+ * @see SpringJDBCAgent#createAgent(com.supaham.commons.jdbc.sql.SQLConfig)
+ * @since 0.9.3
+ */
+public class BatchExecutor {
+
+  public static final int DEFAULT_CHUNK_SIZE = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int chunkSize;
+  private final CommitMode commitMode;
+  private final boolean rewritingBatches;
+
+  /**
+   * Constructs a new {@link BatchExecutor} with chunks of {@link #DEFAULT_CHUNK_SIZE} elements,
+   * committed one by one.
+   *
+   * @param agent agent to get connections from
+   */
+  public BatchExecutor(@Nonnull SpringJDBCAgent agent) {
+    this(agent, DEFAULT_CHUNK_SIZE, CommitMode.PER_CHUNK);
+  }
+
+  /**
+   * Constructs a new {@link BatchExecutor}.
+   *
+   * @param agent agent to get connections from
+   * @param chunkSize maximum amount of elements per chunk
+   * @param commitMode when to commit chunks
+   */
+  public BatchExecutor(@Nonnull SpringJDBCAgent agent, int chunkSize,
+                       @Nonnull CommitMode commitMode) {
+    this(checkNotNull(agent, "agent cannot be null.").getDataSource(), chunkSize, commitMode,
+         isRewritingBatches(agent));
+  }
+
+  /**
+   * Constructs a new {@link BatchExecutor}.
+   *
+   * @param dataSource data source to get connections from
+   * @param chunkSize maximum amount of elements per chunk
+   * @param commitMode when to commit chunks
+   */
+  public BatchExecutor(@Nonnull DataSource dataSource, int chunkSize,
+                       @Nonnull CommitMode commitMode) {
+    this(dataSource, chunkSize, commitMode, false);
+  }
+
+  /*
+   * Reads the rewriteBatchedStatements property the agent's MySQL data source was configured
+   * with, which SpringJDBCAgent defaults to true unless the hikari config says otherwise.
+   */
+  private static boolean isRewritingBatches(SpringJDBCAgent agent) {
+    if (!(agent.getConfiguration() instanceof MySQLConfig)
+        || !(agent.getDataSource() instanceof CDataSource)) {
+      return false;
+    }
+    Object value = ((CDataSource) agent.getDataSource()).getHikariDataSource()
+        .getDataSourceProperties().get("rewriteBatchedStatements");
+    return value != null && Boolean.parseBoolean(value.toString());
+  }
+
+  private BatchExecutor(DataSource dataSource, int chunkSize, CommitMode commitMode,
+                        boolean rewritingBatches) {
+    checkNotNull(dataSource, "dataSource cannot be null.");
+    checkArgument(chunkSize > 0, "chunkSize must be positive.");
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.chunkSize = chunkSize;
+    this.commitMode = checkNotNull(commitMode, "commitMode cannot be null.");
+    this.rewritingBatches = rewritingBatches;
+  }
+
+  /**
+   * Executes the given statement once per element, in chunks.
+   *
+   * @param sql statement to execute
+   * @param elements elements to set the statement's parameters of, iterated once
+   * @param consumer sets the statement's parameters of an element
+   * @param <T> type of elements
+   *
+   * @return result of the execution
+   *
+   * @throws org.springframework.dao.DataAccessException thrown if a chunk fails. In
+   * {@link CommitMode#PER_CHUNK}, chunks before the failing chunk remain committed
+   */
+  @Nonnull
+  public <T> Result execute(@Nonnull String sql, @Nonnull Iterable<T> elements,
+                            @Nonnull BatchConsumer<? super T> consumer) {
+    checkNotNull(sql, "sql cannot be null.");
+    checkNotNull(elements, "elements cannot be null.");
+    checkNotNull(consumer, "consumer cannot be null.");
+    return this.jdbcTemplate.execute((ConnectionCallback<Result>) conn -> {
+      // Within a Spring transaction, the transaction manager decides when to commit.
+      boolean manageCommits = !DataSourceUtils.isConnectionTransactional(
+          conn, this.jdbcTemplate.getDataSource());
+      boolean autoCommit = conn.getAutoCommit();
+      if (manageCommits && autoCommit) {
+        conn.setAutoCommit(false);
+      }
+      Exception failure = null;
+      try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Result result = execute(conn, stmt, elements, consumer, manageCommits);
+        if (manageCommits && this.commitMode == CommitMode.PER_BATCH) {
+          conn.commit();
+        }
+        return result;
+      } catch (SQLException | RuntimeException e) {
+        failure = e;
+        if (manageCommits) {
+          try {
+            conn.rollback();
+          } catch (SQLException e2) {
+            e.addSuppressed(e2);
+          }
+        }
+        throw e;
+      } finally {
+        if (manageCommits && autoCommit) {
+          try {
+            conn.setAutoCommit(true);
+          } catch (SQLException e) {
+            // Don't mask the failure that got us here.
+            if (failure == null) {
+              throw e;
+            }
+            failure.addSuppressed(e);
+          }
+        }
+      }
+    });
+  }
+
+  private <T> Result execute(Connection conn, PreparedStatement stmt, Iterable<T> elements,
+                             BatchConsumer<? super T> consumer, boolean manageCommits)
+      throws SQLException {
+    Result result = new Result();
+    int pending = 0;
+    long chunkStart = System.nanoTime();
+    for (T element : elements) {
+      consumer.consume(stmt, element);
+      stmt.addBatch();
+      if (++pending == this.chunkSize) {
+        executeChunk(conn, stmt, pending, chunkStart, result, manageCommits);
+        pending = 0;
+        chunkStart = System.nanoTime();
+      }
+    }
+    if (pending > 0) {
+      executeChunk(conn, stmt, pending, chunkStart, result, manageCommits);
+    }
+    return result;
+  }
+
+  private void executeChunk(Connection conn, PreparedStatement stmt, int size, long start,
+                            Result result, boolean manageCommits) throws SQLException {
+    int[] counts = stmt.executeBatch();
+    if (manageCommits && this.commitMode == CommitMode.PER_CHUNK) {
+      conn.commit();
+    }
+    result.addChunk(size, counts, System.nanoTime() - start);
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  @Nonnull
+  public CommitMode getCommitMode() {
+    return commitMode;
+  }
+
+  /**
+   * Returns whether the driver rewrites batches into multi-row statements, which is the case for
+   * agents of a {@link MySQLConfig}, unless their hikari config sets the
+   * {@code rewriteBatchedStatements} data source property to false.
+   *
+   * @return whether batches are rewritten
+   */
+  public boolean isRewritingBatches() {
+    return rewritingBatches;
+  }
+
+  /**
+   * Represents when a {@link BatchExecutor} commits.
+   */
+  public enum CommitMode {
+    /**
+     * Commits after every chunk, keeping transactions small. A failure only rolls back the
+     * failing chunk.
+     */
+    PER_CHUNK,
+    /**
+     * Commits once after every chunk has been executed. A failure rolls back every chunk.
+     */
+    PER_BATCH
+  }
+
+  /**
+   * Represents the result of {@link BatchExecutor#execute(String, Iterable, BatchConsumer)}.
+   */
+  public static final class Result {
+
+    private int rows;
+    private int chunks;
+    private int updateCount;
+    private long[] chunkNanos = new long[4];
+
+    private Result() {
+    }
+
+    private void addChunk(int size, int[] counts, long nanos) {
+      if (this.chunks == this.chunkNanos.length) {
+        this.chunkNanos = Arrays.copyOf(this.chunkNanos, this.chunks * 2);
+      }
+      this.chunkNanos[this.chunks++] = nanos;
+      this.rows += size;
+      for (int count : counts) {
+        // Drivers may not know the count of each statement, e.g. with rewritten batches.
+        if (count > 0) {
+          this.updateCount += count;
+        }
+      }
+    }
+
+    /**
+     * Returns the amount of elements executed.
+     *
+     * @return amount of rows
+     */
+    public int getRowCount() {
+      return rows;
+    }
+
+    /**
+     * Returns the amount of updated rows reported by the driver. Drivers that report
+     * {@link java.sql.Statement#SUCCESS_NO_INFO} contribute nothing.
+     *
+     * @return update count
+     */
+    public int getUpdateCount() {
+      return updateCount;
+    }
+
+    /**
+     * Returns the amount of executed chunks.
+     *
+     * @return amount of chunks
+     */
+    public int getChunkCount() {
+      return chunks;
+    }
+
+    /**
+     * Returns the time spent on each chunk in nanoseconds, from setting its first element's
+     * parameters until it was executed, and committed if committing per chunk.
+     *
+     * @return chunk timings, in order of execution
+     */
+    @Nonnull
+    public long[] getChunkNanos() {
+      return Arrays.copyOf(this.chunkNanos, this.chunks);
+    }
+
+    /**
+     * Returns the total time spent on chunks in nanoseconds.
+     *
+     * @return total time
+     */
+    public long getTotalNanos() {
+      long total = 0;
+      for (int i = 0; i < this.chunks; i++) {
+        total += this.chunkNanos[i];
+      }
+      return total;
+    }
+  }
+}
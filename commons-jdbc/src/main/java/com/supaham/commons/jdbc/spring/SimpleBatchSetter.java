@@ -1,13 +1,14 @@
 package com.supaham.commons.jdbc.spring;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterables;
 
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 import javax.annotation.Nonnull;
 
@@ -37,11 +38,16 @@ import javax.annotation.Nonnull;
  *         return answers.size();
  *     }
  * }</pre>
+ * <p />
+ * All elements are sent in a single batch, see {@link BatchExecutor} for chunked batches.
  */
 public class SimpleBatchSetter<T> implements BatchPreparedStatementSetter {
 
   private final Collection<T> collection;
   private final BatchConsumer<T> consumer;
+  // Spring sets values in order, so non-list collections are walked once instead of per element.
+  private Iterator<T> iterator;
+  private int nextIndex;
 
   public SimpleBatchSetter(Collection<T> collection, @Nonnull BatchConsumer<T> consumer) {
     this.collection = collection;
@@ -49,7 +55,21 @@ public class SimpleBatchSetter<T> implements BatchPreparedStatementSetter {
   }
 
   @Override public void setValues(PreparedStatement ps, int i) throws SQLException {
-    consumer.consume(ps, Iterables.get(this.collection, i));
+    consumer.consume(ps, get(i));
+  }
+
+  private T get(int i) {
+    if (this.collection instanceof List) {
+      return ((List<T>) this.collection).get(i);
+    }
+    if (this.iterator == null || i != this.nextIndex) {
+      this.iterator = this.collection.iterator();
+      for (int skip = 0; skip < i; skip++) {
+        this.iterator.next();
+      }
+    }
+    this.nextIndex = i + 1;
+    return this.iterator.next();
   }
 
   @Override public int getBatchSize() {
@@ -112,6 +112,10 @@ public class SpringJDBCAgent implements JDBCAgent {
                               + mysql.getDatabase());
       hikariCPConfig.setUsername(mysql.getUsername());
       hikariCPConfig.setPassword(mysql.getPassword());
+      // Lets the driver send batches as multi-row statements, see BatchExecutor.
+      if (!hikariCPConfig.getDataSourceProperties().containsKey("rewriteBatchedStatements")) {
+        hikariCPConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
+      }
     } else {
       Class.forName("org.sqlite.JDBC");
       hikariCPConfig.setJdbcUrl("jdbc:sqlite:" + new File(config.getFile()).getAbsolutePath());
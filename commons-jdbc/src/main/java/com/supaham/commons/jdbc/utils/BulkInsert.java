@@ -0,0 +1,564 @@
+package com.supaham.commons.jdbc.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.supaham.commons.utils.StringUtils.checkNotNullOrEmpty;
+
+import com.supaham.commons.jdbc.sql.MySQLConfig;
+import com.supaham.commons.jdbc.sql.SQLConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+
+/**
+ * Represents a multi-row {@code INSERT} statement of a table, optionally updating or ignoring
+ * rows that already exist, in MySQL or SQLite syntax.
+ * <p />
+ * Rows are sent in statements of a power of two rows each, up to
+ * {@link Builder#maxRowsPerStatement(int)}, so only a few statement shapes are ever generated.
+ * The SQL of each shape is generated once and kept by this instance, which is meant to be
+ * reused.
+ * <p />
+ * Example usage:
+ * <pre>
+ * private static final BulkInsert&lt;Stat&gt; INSERT_STATS = BulkInsert.builder(config, "stats")
+ *     .columns("uuid", "kills", "deaths")
+ *     .conflictKeys("uuid")
+ *     .updateOnConflict("kills", "deaths")
+ *     .build((row, stat) -&gt; row.setString(stat.getUuid().toString())
+ *                              .setInt(stat.getKills())
+ *                              .setInt(stat.getDeaths()));
+ *
+ * INSERT_STATS.execute(dataSource, stats);
+ * </pre>
+ *
+ * @param <T> type of elements to insert
+ *
+ * @since 0.9.3
+ */
+public final class BulkInsert<T> {
+
+  public static final int DEFAULT_MAX_ROWS_PER_STATEMENT = 256;
+  // Older SQLite versions allow at most 999 parameters per statement.
+  private static final int SQLITE_MAX_PARAMETERS = 999;
+
+  private final Dialect dialect;
+  private final String table;
+  private final List<String> columns;
+  private final List<String> conflictKeys;
+  private final List<String> updateColumns;
+  private final boolean ignoreConflicts;
+  private final int maxRows;
+  private final RowBinder<? super T> binder;
+  // Generated SQL, indexed by log2 of the amount of rows.
+  private final AtomicReferenceArray<String> statements;
+
+  /**
+   * Returns a new {@link Builder} of a table, in the syntax of the given configuration's database,
+   * see {@link Dialect#of(SQLConfig)}.
+   *
+   * @param config configuration of the database
+   * @param table name of the table
+   *
+   * @return new builder
+   */
+  @Nonnull
+  public static Builder builder(@Nonnull SQLConfig config, @Nonnull String table) {
+    return builder(Dialect.of(config), table);
+  }
+
+  /**
+   * Returns a new {@link Builder} of a table, in the given dialect.
+   *
+   * @param dialect sql dialect
+   * @param table name of the table
+   *
+   * @return new builder
+   */
+  @Nonnull
+  public static Builder builder(@Nonnull Dialect dialect, @Nonnull String table) {
+    return new Builder(dialect, table);
+  }
+
+  private BulkInsert(Builder builder, RowBinder<? super T> binder) {
+    this.dialect = builder.dialect;
+    this.table = builder.table;
+    this.columns = Collections.unmodifiableList(new ArrayList<>(builder.columns));
+    this.conflictKeys = Collections.unmodifiableList(new ArrayList<>(builder.conflictKeys));
+    this.updateColumns = Collections.unmodifiableList(new ArrayList<>(builder.updateColumns));
+    this.ignoreConflicts = builder.ignoreConflicts;
+    int maxRows = builder.maxRows;
+    if (this.dialect == Dialect.SQLITE) {
+      maxRows = Math.min(maxRows, SQLITE_MAX_PARAMETERS / this.columns.size());
+    }
+    // Round down to a power of two, the largest statement shape.
+    this.maxRows = Math.max(1, Integer.highestOneBit(maxRows));
+    this.binder = binder;
+    this.statements = new AtomicReferenceArray<>(Integer.numberOfTrailingZeros(this.maxRows) + 1);
+  }
+
+  /**
+   * Inserts every element, using a connection of the given data source.
+   *
+   * @param dataSource data source to get a connection from
+   * @param elements elements to insert, iterated once
+   *
+   * @return sum of the update counts reported by the driver
+   *
+   * @throws SQLException thrown if a statement fails
+   */
+  public int execute(@Nonnull DataSource dataSource, @Nonnull Iterable<? extends T> elements)
+      throws SQLException {
+    checkNotNull(dataSource, "dataSource cannot be null.");
+    try (Connection conn = dataSource.getConnection()) {
+      return execute(conn, elements);
+    }
+  }
+
+  /**
+   * Inserts every element using the given connection. The connection is not closed, and its
+   * transaction state is left untouched.
+   *
+   * @param connection connection to use
+   * @param elements elements to insert, iterated once
+   *
+   * @return sum of the update counts reported by the driver
+   *
+   * @throws SQLException thrown if a statement fails
+   */
+  public int execute(@Nonnull Connection connection, @Nonnull Iterable<? extends T> elements)
+      throws SQLException {
+    checkNotNull(connection, "connection cannot be null.");
+    checkNotNull(elements, "elements cannot be null.");
+    PreparedStatement[] prepared = new PreparedStatement[this.statements.length()];
+    Exception failure = null;
+    try {
+      List<T> buffer = new ArrayList<>(Math.min(this.maxRows, 64));
+      int updated = 0;
+      for (T element : elements) {
+        buffer.add(element);
+        if (buffer.size() == this.maxRows) {
+          updated += execute(connection, prepared, buffer, 0, this.maxRows);
+          buffer.clear();
+        }
+      }
+      // Send the rest in decreasing powers of two, e.g. 13 rows as 8 + 4 + 1.
+      int from = 0;
+      while (from < buffer.size()) {
+        int rows = Integer.highestOneBit(buffer.size() - from);
+        updated += execute(connection, prepared, buffer, from, rows);
+        from += rows;
+      }
+      return updated;
+    } catch (SQLException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      SQLException closeFailure = null;
+      for (PreparedStatement stmt : prepared) {
+        if (stmt != null) {
+          try {
+            stmt.close();
+          } catch (SQLException e) {
+            // Don't mask the failure that got us here.
+            if (failure != null) {
+              failure.addSuppressed(e);
+            } else if (closeFailure != null) {
+              closeFailure.addSuppressed(e);
+            } else {
+              closeFailure = e;
+            }
+          }
+        }
+      }
+      if (closeFailure != null) {
+        throw closeFailure;
+      }
+    }
+  }
+
+  private int execute(Connection connection, PreparedStatement[] prepared, List<T> elements,
+                      int from, int rows) throws SQLException {
+    int shape = Integer.numberOfTrailingZeros(rows);
+    PreparedStatement stmt = prepared[shape];
+    if (stmt == null) {
+      stmt = prepared[shape] = connection.prepareStatement(getSql(rows));
+    }
+    Row row = new Row(stmt);
+    int columns = this.columns.size();
+    for (int i = 0; i < rows; i++) {
+      this.binder.bind(row, elements.get(from + i));
+      int expected = (i + 1) * columns;
+      checkState(row.index == expected, "row %s bound %s parameters, expected %s.", from + i,
+                 row.index - i * columns, columns);
+    }
+    return stmt.executeUpdate();
+  }
+
+  /**
+   * Returns the SQL of a statement inserting the given amount of rows.
+   *
+   * @param rows amount of rows, a power of two no larger than {@link #getMaxRowsPerStatement()}
+   *
+   * @return sql
+   */
+  @Nonnull
+  public String getSql(int rows) {
+    checkArgument(rows > 0 && Integer.bitCount(rows) == 1 && rows <= this.maxRows,
+                  "rows must be a power of two up to %s.", this.maxRows);
+    int shape = Integer.numberOfTrailingZeros(rows);
+    String sql = this.statements.get(shape);
+    if (sql == null) {
+      sql = generateSql(rows);
+      this.statements.lazySet(shape, sql);
+    }
+    return sql;
+  }
+
+  private String generateSql(int rows) {
+    StringBuilder sb = new StringBuilder(64 + rows * (this.columns.size() * 2 + 3));
+    sb.append(this.ignoreConflicts ? this.dialect.insertIgnore : "INSERT INTO ");
+    this.dialect.quote(sb, this.table).append(" (");
+    appendColumns(sb, this.columns);
+    sb.append(") VALUES ");
+    String placeholders = "(" + SQLUtils.preparePlaceHolders(this.columns.size()) + ")";
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(placeholders);
+    }
+    if (!this.updateColumns.isEmpty()) {
+      if (this.dialect == Dialect.MYSQL) {
+        sb.append(" ON DUPLICATE KEY UPDATE ");
+      } else {
+        sb.append(" ON CONFLICT (");
+        appendColumns(sb, this.conflictKeys);
+        sb.append(") DO UPDATE SET ");
+      }
+      for (int i = 0; i < this.updateColumns.size(); i++) {
+        if (i > 0) {
+          sb.append(',');
+        }
+        String column = this.updateColumns.get(i);
+        this.dialect.quote(sb, column).append('=');
+        if (this.dialect == Dialect.MYSQL) {
+          this.dialect.quote(sb.append("VALUES("), column).append(')');
+        } else {
+          this.dialect.quote(sb.append("excluded."), column);
+        }
+      }
+    }
+    return sb.toString();
+  }
+
+  private void appendColumns(StringBuilder sb, List<String> columns) {
+    for (int i = 0; i < columns.size(); i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      this.dialect.quote(sb, columns.get(i));
+    }
+  }
+
+  @Nonnull
+  public Dialect getDialect() {
+    return dialect;
+  }
+
+  @Nonnull
+  public String getTable() {
+    return table;
+  }
+
+  @Nonnull
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns the maximum amount of rows sent per statement, a power of two.
+   *
+   * @return maximum rows per statement
+   */
+  public int getMaxRowsPerStatement() {
+    return maxRows;
+  }
+
+  /**
+   * Represents a SQL dialect supported by {@link BulkInsert}.
+   */
+  public enum Dialect {
+    MYSQL('`', "INSERT IGNORE INTO "),
+    SQLITE('"', "INSERT OR IGNORE INTO ");
+
+    private final char quote;
+    private final String insertIgnore;
+
+    Dialect(char quote, String insertIgnore) {
+      this.quote = quote;
+      this.insertIgnore = insertIgnore;
+    }
+
+    /**
+     * Returns the dialect of the database of a configuration. {@link MySQLConfig}s are MySQL
+     * databases, any other configuration is a SQLite database, matching
+     * {@link com.supaham.commons.jdbc.sql.SpringJDBCAgent}.
+     *
+     * @param config configuration of the database
+     *
+     * @return dialect
+     */
+    @Nonnull
+    public static Dialect of(@Nonnull SQLConfig config) {
+      checkNotNull(config, "config cannot be null.");
+      return config instanceof MySQLConfig ? MYSQL : SQLITE;
+    }
+
+    private StringBuilder quote(StringBuilder sb, String identifier) {
+      return sb.append(this.quote).append(identifier).append(this.quote);
+    }
+
+    private void checkIdentifier(String identifier, String name) {
+      checkNotNullOrEmpty(identifier, name);
+      checkArgument(identifier.indexOf(this.quote) < 0, "%s cannot contain %s.", name, this.quote);
+    }
+  }
+
+  /**
+   * Represents a function that sets the parameters of an element's row.
+   *
+   * @param <T> type of elements
+   */
+  public interface RowBinder<T> {
+
+    /**
+     * Sets the parameters of an element's row, one per column, in order of
+     * {@link Builder#columns(String...)}.
+     *
+     * @param row row to set the parameters of
+     * @param element element to insert
+     *
+     * @throws SQLException thrown by the statement
+     */
+    void bind(@Nonnull Row row, T element) throws SQLException;
+  }
+
+  /**
+   * Represents a row of a {@link BulkInsert} statement. Each setter sets the parameter of the next
+   * column.
+   */
+  public static final class Row {
+
+    private final PreparedStatement stmt;
+    private int index;
+
+    private Row(PreparedStatement stmt) {
+      this.stmt = stmt;
+    }
+
+    public Row setString(@Nullable String value) throws SQLException {
+      this.stmt.setString(++this.index, value);
+      return this;
+    }
+
+    public Row setInt(int value) throws SQLException {
+      this.stmt.setInt(++this.index, value);
+      return this;
+    }
+
+    public Row setLong(long value) throws SQLException {
+      this.stmt.setLong(++this.index, value);
+      return this;
+    }
+
+    public Row setDouble(double value) throws SQLException {
+      this.stmt.setDouble(++this.index, value);
+      return this;
+    }
+
+    public Row setBoolean(boolean value) throws SQLException {
+      this.stmt.setBoolean(++this.index, value);
+      return this;
+    }
+
+    public Row setBytes(@Nullable byte[] value) throws SQLException {
+      this.stmt.setBytes(++this.index, value);
+      return this;
+    }
+
+    public Row setObject(@Nullable Object value) throws SQLException {
+      this.stmt.setObject(++this.index, value);
+      return this;
+    }
+
+    /**
+     * Sets the next column to SQL {@code NULL}.
+     *
+     * @param sqlType type of the column, see {@link java.sql.Types}
+     *
+     * @return this row
+     *
+     * @throws SQLException thrown by the statement
+     */
+    public Row setNull(int sqlType) throws SQLException {
+      this.stmt.setNull(++this.index, sqlType);
+      return this;
+    }
+
+    /**
+     * Returns the underlying statement, see {@link #nextIndex()}.
+     *
+     * @return statement
+     */
+    @Nonnull
+    public PreparedStatement getStatement() {
+      return stmt;
+    }
+
+    /**
+     * Returns the index of the next parameter to set, and skips it. Use this along with
+     * {@link #getStatement()} to set a parameter of a type not covered by this class.
+     *
+     * @return parameter index
+     */
+    public int nextIndex() {
+      return ++this.index;
+    }
+  }
+
+  /**
+   * Represents a builder of {@link BulkInsert}s.
+   */
+  public static final class Builder {
+
+    private final Dialect dialect;
+    private final String table;
+    private final Set<String> columns = new LinkedHashSet<>();
+    private final Set<String> conflictKeys = new LinkedHashSet<>();
+    private final Set<String> updateColumns = new LinkedHashSet<>();
+    private boolean ignoreConflicts;
+    private boolean updateAll;
+    private int maxRows = DEFAULT_MAX_ROWS_PER_STATEMENT;
+
+    private Builder(Dialect dialect, String table) {
+      this.dialect = checkNotNull(dialect, "dialect cannot be null.");
+      dialect.checkIdentifier(table, "table");
+      this.table = table;
+    }
+
+    /**
+     * Adds columns to insert, in the order their parameters are set by the {@link RowBinder}.
+     *
+     * @param columns names of the columns
+     *
+     * @return this builder
+     */
+    public Builder columns(@Nonnull String... columns) {
+      for (String column : columns) {
+        this.dialect.checkIdentifier(column, "column");
+        checkArgument(this.columns.add(column), "column %s was already added.", column);
+      }
+      return this;
+    }
+
+    /**
+     * Sets the columns of the unique key that may conflict with inserted rows. Required by SQLite
+     * to {@link #updateOnConflict(String...)}, ignored by MySQL which uses any unique key.
+     *
+     * @param keys names of the key columns
+     *
+     * @return this builder
+     */
+    public Builder conflictKeys(@Nonnull String... keys) {
+      this.conflictKeys.clear();
+      for (String key : keys) {
+        this.dialect.checkIdentifier(key, "key");
+        this.conflictKeys.add(key);
+      }
+      return this;
+    }
+
+    /**
+     * Updates the given columns of existing rows that conflict with inserted rows, to the values
+     * of the inserted rows. If no columns are given, every column that isn't a
+     * {@link #conflictKeys(String...) conflict key} is updated.
+     *
+     * @param columns names of the columns to update
+     *
+     * @return this builder
+     */
+    public Builder updateOnConflict(@Nonnull String... columns) {
+      this.ignoreConflicts = false;
+      this.updateColumns.clear();
+      this.updateColumns.addAll(Arrays.asList(columns));
+      this.updateAll = columns.length == 0;
+      return this;
+    }
+
+    /**
+     * Skips inserted rows that conflict with existing rows.
+     *
+     * @return this builder
+     */
+    public Builder ignoreConflicts() {
+      this.ignoreConflicts = true;
+      this.updateColumns.clear();
+      this.updateAll = false;
+      return this;
+    }
+
+    /**
+     * Sets the maximum amount of rows per statement, rounded down to a power of two. SQLite
+     * statements are further limited to 999 parameters.
+     *
+     * @param maxRows maximum amount of rows per statement
+     *
+     * @return this builder
+     */
+    public Builder maxRowsPerStatement(int maxRows) {
+      checkArgument(maxRows > 0, "maxRows must be positive.");
+      this.maxRows = maxRows;
+      return this;
+    }
+
+    /**
+     * Builds a {@link BulkInsert} that sets the parameters of each row with the given binder.
+     *
+     * @param binder binder of rows
+     * @param <T> type of elements
+     *
+     * @return new bulk insert
+     */
+    @Nonnull
+    public <T> BulkInsert<T> build(@Nonnull RowBinder<? super T> binder) {
+      checkNotNull(binder, "binder cannot be null.");
+      checkState(!this.columns.isEmpty(), "columns cannot be empty.");
+      checkState(this.columns.containsAll(this.conflictKeys), "conflict keys must be columns.");
+      if (this.updateAll) {
+        this.updateColumns.addAll(this.columns);
+        this.updateColumns.removeAll(this.conflictKeys);
+        checkState(!this.updateColumns.isEmpty(), "there are no columns to update.");
+      }
+      for (String column : this.updateColumns) {
+        checkState(this.columns.contains(column), "update column %s is not a column.", column);
+      }
+      checkState(this.dialect != Dialect.SQLITE || this.updateColumns.isEmpty()
+                 || !this.conflictKeys.isEmpty(), "SQLite requires conflictKeys to update.");
+      return new BulkInsert<>(this, binder);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package com.supaham.commons.jdbc.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import com.supaham.commons.jdbc.spring.BatchExecutor.CommitMode;
+import com.supaham.commons.jdbc.spring.BatchExecutor.Result;
+import com.supaham.commons.jdbc.sql.SQLConfig;
+import com.supaham.commons.jdbc.sql.SpringJDBCAgent;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+public class BatchExecutorTest {
+
+  private static final String INSERT = "INSERT INTO `numbers` (`n`) VALUES (?)";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private SpringJDBCAgent agent;
+  private JdbcTemplate template;
+
+  @Before
+  public void setUp() throws Exception {
+    File file = folder.newFile("test.sqlite");
+    agent = SpringJDBCAgent.createAgent(new SQLConfig(file.getAbsolutePath(),
+                                                      new HashMap<String, String>()));
+    template = agent.createJdbcTemplate();
+    template.execute("CREATE TABLE `numbers` (`n` INT NOT NULL UNIQUE)");
+  }
+
+  @Test
+  public void testChunkBoundaries() throws Exception {
+    BatchExecutor executor = new BatchExecutor(agent, 4, CommitMode.PER_CHUNK);
+    assertFalse(executor.isRewritingBatches());
+    assertChunks(executor, 0, 0);
+    assertChunks(executor, 4, 1);
+    assertChunks(executor, 5, 2);
+    assertChunks(executor, 12, 3);
+  }
+
+  @Test
+  public void testPerChunkRollback() throws Exception {
+    // The second chunk fails on its duplicate, the first chunk stays committed.
+    executeFailing(new BatchExecutor(agent, 2, CommitMode.PER_CHUNK), 1, 2, 3, 3, 4);
+    assertEquals(Arrays.asList(1, 2), numbers());
+  }
+
+  @Test
+  public void testPerBatchRollback() throws Exception {
+    executeFailing(new BatchExecutor(agent, 2, CommitMode.PER_BATCH), 1, 2, 3, 3, 4);
+    assertEquals(Collections.emptyList(), numbers());
+  }
+
+  @Test
+  public void testAutoCommitRestored() throws Exception {
+    executeFailing(new BatchExecutor(agent, 2, CommitMode.PER_CHUNK), 1, 1);
+    // Plain statements on the pooled connection must commit on their own again.
+    template.update(INSERT, 7);
+    assertEquals(Collections.singletonList(7), numbers());
+  }
+
+  @Test
+  public void testSimpleBatchSetterCollection() throws Exception {
+    ArrayDeque<Integer> deque = new ArrayDeque<>(Arrays.asList(5, 3, 8, 1));
+    int[] counts = template.batchUpdate(
+        INSERT, new SimpleBatchSetter<>(deque, (ps, n) -> ps.setInt(1, n)));
+    assertEquals(4, counts.length);
+    assertEquals(Arrays.asList(5, 3, 8, 1),
+                 template.queryForList("SELECT `n` FROM `numbers` ORDER BY rowid", Integer.class));
+  }
+
+  private void assertChunks(BatchExecutor executor, int rows, int chunks) {
+    template.update("DELETE FROM `numbers`");
+    List<Integer> elements = new ArrayList<>();
+    for (int i = 0; i < rows; i++) {
+      elements.add(i);
+    }
+    Result result = executor.execute(INSERT, elements, (ps, n) -> ps.setInt(1, n));
+    assertEquals(rows, result.getRowCount());
+    assertEquals(rows, result.getUpdateCount());
+    assertEquals(chunks, result.getChunkCount());
+    assertEquals(chunks, result.getChunkNanos().length);
+    assertEquals(elements, numbers());
+  }
+
+  private void executeFailing(BatchExecutor executor, Integer... elements) {
+    try {
+      executor.execute(INSERT, Arrays.asList(elements), (ps, n) -> ps.setInt(1, n));
+      fail("Expected the duplicate to fail.");
+    } catch (DataAccessException expected) {
+    }
+  }
+
+  private List<Integer> numbers() {
+    return template.queryForList("SELECT `n` FROM `numbers` ORDER BY `n`", Integer.class);
+  }
+}
@@ -0,0 +1,266 @@
+package com.supaham.commons.jdbc.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.supaham.commons.jdbc.sql.MySQLConfig;
+import com.supaham.commons.jdbc.sql.SQLConfig;
+import com.supaham.commons.jdbc.sql.SpringJDBCAgent;
+import com.supaham.commons.jdbc.utils.BulkInsert.Dialect;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+public class BulkInsertTest {
+
+  private static final BulkInsert.RowBinder<int[]> STAT_BINDER =
+      (row, stat) -> row.setInt(stat[0]).setInt(stat[1]).setInt(stat[2]);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private SQLConfig config;
+  private DataSource dataSource;
+  private JdbcTemplate template;
+
+  @Before
+  public void setUp() throws Exception {
+    File file = folder.newFile("test.sqlite");
+    config = new SQLConfig(file.getAbsolutePath(), new HashMap<String, String>());
+    SpringJDBCAgent agent = SpringJDBCAgent.createAgent(config);
+    dataSource = agent.getDataSource();
+    template = agent.createJdbcTemplate();
+    template.execute("CREATE TABLE `stats` (`id` INT PRIMARY KEY, `kills` INT, `deaths` INT)");
+  }
+
+  @Test
+  public void testDialect() throws Exception {
+    assertEquals(Dialect.SQLITE, Dialect.of(config));
+    MySQLConfig mysql = new MySQLConfig("localhost", 3306, "root", "", "test",
+                                        new HashMap<String, String>());
+    assertEquals(Dialect.MYSQL, Dialect.of(mysql));
+    BulkInsert<int[]> insert = BulkInsert.builder(mysql, "stats")
+        .columns("id", "kills", "deaths")
+        .updateOnConflict("kills", "deaths")
+        .build(STAT_BINDER);
+    assertEquals("INSERT INTO `stats` (`id`,`kills`,`deaths`) VALUES (?,?,?),(?,?,?) "
+                 + "ON DUPLICATE KEY UPDATE `kills`=VALUES(`kills`),`deaths`=VALUES(`deaths`)",
+                 insert.getSql(2));
+    assertEquals("INSERT IGNORE INTO `stats` (`id`) VALUES (?)",
+                 BulkInsert.builder(mysql, "stats").columns("id").ignoreConflicts()
+                     .build((row, id) -> row.setObject(id)).getSql(1));
+  }
+
+  @Test
+  public void testInsert() throws Exception {
+    BulkInsert<int[]> insert = BulkInsert.builder(config, "stats")
+        .columns("id", "kills", "deaths")
+        .build(STAT_BINDER);
+    assertEquals(3, insert.execute(dataSource, stats(1, 3, 10)));
+    assertEquals(Arrays.asList("1:10:20", "2:11:21", "3:12:22"), rows());
+  }
+
+  @Test
+  public void testIgnoreConflicts() throws Exception {
+    template.update("INSERT INTO `stats` VALUES (2, 0, 0)");
+    BulkInsert<int[]> insert = BulkInsert.builder(config, "stats")
+        .columns("id", "kills", "deaths")
+        .ignoreConflicts()
+        .build(STAT_BINDER);
+    assertEquals(2, insert.execute(dataSource, stats(1, 3, 10)));
+    assertEquals(Arrays.asList("1:10:20", "2:0:0", "3:12:22"), rows());
+  }
+
+  @Test
+  public void testUpdateOnConflict() throws Exception {
+    template.update("INSERT INTO `stats` VALUES (2, 0, 0)");
+    BulkInsert<int[]> insert = BulkInsert.builder(config, "stats")
+        .columns("id", "kills", "deaths")
+        .conflictKeys("id")
+        .updateOnConflict("kills")
+        .build(STAT_BINDER);
+    assertEquals("INSERT INTO \"stats\" (\"id\",\"kills\",\"deaths\") VALUES (?,?,?) "
+                 + "ON CONFLICT (\"id\") DO UPDATE SET \"kills\"=excluded.\"kills\"",
+                 insert.getSql(1));
+    insert.execute(dataSource, stats(1, 3, 10));
+    assertEquals(Arrays.asList("1:10:20", "2:11:0", "3:12:22"), rows());
+
+    // Every column but the conflict keys.
+    BulkInsert.builder(config, "stats")
+        .columns("id", "kills", "deaths")
+        .conflictKeys("id")
+        .updateOnConflict()
+        .build(STAT_BINDER)
+        .execute(dataSource, stats(2, 1, 50));
+    assertEquals(Arrays.asList("1:10:20", "2:50:60", "3:12:22"), rows());
+  }
+
+  @Test
+  public void testRemainderSplit() throws Exception {
+    BulkInsert<int[]> insert = BulkInsert.builder(config, "stats")
+        .columns("id", "kills", "deaths")
+        .maxRowsPerStatement(8)
+        .build(STAT_BINDER);
+    List<String> prepared = new ArrayList<>();
+    try (Connection conn = recording(dataSource.getConnection(), prepared)) {
+      assertEquals(29, insert.execute(conn, stats(1, 29, 0)));
+    }
+    // Three full statements, then the remaining 5 rows as 4 + 1. Full statements are reused.
+    assertEquals(Arrays.asList(insert.getSql(8), insert.getSql(4), insert.getSql(1)), prepared);
+    assertEquals(29, rows().size());
+
+    prepared.clear();
+    try (Connection conn = recording(dataSource.getConnection(), prepared)) {
+      assertEquals(13, insert.execute(conn, stats(100, 13, 0)));
+    }
+    assertEquals(Arrays.asList(insert.getSql(8), insert.getSql(4), insert.getSql(1)), prepared);
+    assertEquals(42, rows().size());
+  }
+
+  @Test
+  public void testSqliteParameterCap() throws Exception {
+    StringBuilder create = new StringBuilder("CREATE TABLE `wide` (");
+    String[] columns = new String[40];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = "c" + i;
+      create.append(i > 0 ? "," : "").append('`').append(columns[i]).append("` INT");
+    }
+    template.execute(create.append(')').toString());
+
+    // 999 / 40 = 24 rows, rounded down to 16.
+    BulkInsert<Integer> insert = BulkInsert.builder(config, "wide")
+        .columns(columns)
+        .build((row, value) -> {
+          for (int i = 0; i < 40; i++) {
+            row.setInt(value);
+          }
+        });
+    assertEquals(16, insert.getMaxRowsPerStatement());
+    List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      values.add(i);
+    }
+    assertEquals(50, insert.execute(dataSource, values));
+    assertEquals(Integer.valueOf(50),
+                 template.queryForObject("SELECT COUNT(*) FROM `wide`", Integer.class));
+
+    // MySQL statements aren't capped by parameters.
+    assertEquals(BulkInsert.DEFAULT_MAX_ROWS_PER_STATEMENT,
+                 BulkInsert.builder(Dialect.MYSQL, "wide").columns(columns)
+                     .build((row, value) -> row.setObject(value)).getMaxRowsPerStatement());
+  }
+
+  @Test
+  public void testWrongParameterCount() throws Exception {
+    BulkInsert<int[]> insert = BulkInsert.builder(config, "stats")
+        .columns("id", "kills", "deaths")
+        .build((row, stat) -> row.setInt(stat[0]).setInt(stat[1]));
+    try {
+      insert.execute(dataSource, stats(1, 2, 0));
+      fail("Expected the missing parameter to be detected.");
+    } catch (IllegalStateException expected) {
+    }
+    assertEquals(0, rows().size());
+  }
+
+  @Test
+  public void testCloseFailureDoesNotMask() throws Exception {
+    BulkInsert<int[]> insert = BulkInsert.builder(config, "stats")
+        .columns("id", "kills", "deaths")
+        .build((row, stat) -> row.setInt(stat[0]).setInt(stat[1]));
+    try (Connection conn = failingClose(dataSource.getConnection())) {
+      insert.execute(conn, stats(1, 2, 0));
+      fail("Expected the missing parameter to be detected.");
+    } catch (IllegalStateException expected) {
+      assertEquals(1, expected.getSuppressed().length);
+      assertEquals("close failed", expected.getSuppressed()[0].getMessage());
+    }
+
+    // Without another failure, the close failure itself is thrown.
+    try (Connection conn = failingClose(dataSource.getConnection())) {
+      insert = BulkInsert.builder(config, "stats").columns("id", "kills", "deaths")
+          .build(STAT_BINDER);
+      insert.execute(conn, stats(1, 2, 0));
+      fail("Expected the close failure to be thrown.");
+    } catch (SQLException expected) {
+      assertEquals("close failed", expected.getMessage());
+    }
+  }
+
+  private static List<int[]> stats(int firstId, int count, int firstKills) {
+    List<int[]> stats = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      stats.add(new int[]{firstId + i, firstKills + i, firstKills + 10 + i});
+    }
+    return stats;
+  }
+
+  private List<String> rows() {
+    return template.queryForList(
+        "SELECT `id` || ':' || `kills` || ':' || `deaths` FROM `stats` ORDER BY `id`",
+        String.class);
+  }
+
+  /*
+   * Wraps a connection, recording the SQL of every prepared statement.
+   */
+  private static Connection recording(Connection conn, List<String> prepared) {
+    return (Connection) Proxy.newProxyInstance(
+        BulkInsertTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("prepareStatement")) {
+            prepared.add((String) args[0]);
+          }
+          return invoke(conn, method, args);
+        });
+  }
+
+  /*
+   * Wraps a connection whose prepared statements throw once they are closed.
+   */
+  private static Connection failingClose(Connection conn) {
+    return (Connection) Proxy.newProxyInstance(
+        BulkInsertTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+        (proxy, method, args) -> {
+          Object result = invoke(conn, method, args);
+          if (!method.getName().equals("prepareStatement")) {
+            return result;
+          }
+          PreparedStatement stmt = (PreparedStatement) result;
+          return Proxy.newProxyInstance(
+              BulkInsertTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+              (proxy2, method2, args2) -> {
+                Object result2 = invoke(stmt, method2, args2);
+                if (method2.getName().equals("close")) {
+                  throw new SQLException("close failed");
+                }
+                return result2;
+              });
+        });
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}